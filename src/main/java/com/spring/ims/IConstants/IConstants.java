@@ -12,6 +12,44 @@ public class IConstants {
 	public static final String ROLE_NOT_FOUND = "Role not found";
 	public static final String USER_REGISTERED_SUCCESSFULLY = "User registered successfully!";
     public static final String USER_NOT_FOUND = "User not found";
+	public static final String USER_ROLES_UPDATED = "User roles updated successfully!";
+	public static final String INVALID_REFRESH_TOKEN = "Refresh token is invalid or expired";
+	public static final String SIGNED_OUT = "Signed out successfully!";
+	public static final String LOGIN_BUSY = "Too many sign in requests, please retry shortly";
+	public static final String LOGIN_THROTTLED = "Too many sign in attempts, please retry later";
+	public static final String LOGIN_UNAVAILABLE = "Sign in is temporarily unavailable, please retry shortly";
 	public static final String USERNAME_ALREADY_EXISTS = "Error: Username is already taken!";
 	public static final String EMAIL_ALREADY_EXISTS = "Error: Email is already in use!";
+	public static final String INVALID_SEVERITY = "Severity must be one of LOW, MEDIUM, MAJOR or CRITICAL";
+	public static final String BATCH_TOO_LARGE = "Batch cannot contain more than " + IConstants.MAX_ISSUE_BATCH + " items";
+	public static final String USER_BATCH_TOO_LARGE = "Batch cannot contain more than " + IConstants.MAX_USER_BATCH + " users";
+	public static final String TRANSITION_TARGET_REQUIRED = "Status or severity to set is required";
+	public static final String TRANSITION_SCOPE_REQUIRED = "Issue ids or at least one filter is required";
+	public static final String DELETE_FILTER_REQUIRED = "At least one filter is required";
+	public static final String SEARCH_QUERY_NULL_OR_EMPTY = "Search query cannot be null or empty";
+	public static final String INVALID_PAGE = "Page cannot be negative";
+	public static final String ISSUE_VERSION_MISMATCH = "Issue was modified by another request";
+	public static final String INVALID_IF_MATCH = "If-Match must be an issue ETag";
+	public static final String INVALID_PAGE_SIZE = "Page size must be between 1 and " + IConstants.MAX_PAGE_SIZE;
+	
+	public static final int DEFAULT_PAGE_SIZE = 50;
+	public static final int MAX_PAGE_SIZE = 500;
+	
+	public static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+	public static final int EXPORT_FETCH_SIZE = 500;
+	
+	// Matches spring.jpa.properties.hibernate.jdbc.batch_size and the issue id allocation size
+	public static final int ISSUE_BATCH_SIZE = 50;
+	public static final int MAX_ISSUE_BATCH = 5000;
+	public static final int IN_CLAUSE_SIZE = 1000;
+	
+	// Issues changed per transaction by bulk deletes and filter transitions
+	public static final int BULK_CHUNK_SIZE = 500;
+	
+	// Matches spring.jpa.properties.hibernate.jdbc.batch_size and the user id allocation size
+	public static final int USER_BATCH_SIZE = 50;
+	public static final int MAX_USER_BATCH = 10000;
+	
+	// Deepest result reachable through search paging
+	public static final int MAX_SEARCH_WINDOW = 10000;
 }
@@ -0,0 +1,53 @@
+package com.spring.ims.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ISSUE_CACHE = "issues";
+
+    public static final String USER_DETAILS_CACHE = "userDetails";
+
+    @Value("${spring.app.issueCacheMaxSize}")
+    private long issueCacheMaxSize;
+
+    @Value("${spring.app.issueCacheTtlSeconds}")
+    private long issueCacheTtlSeconds;
+
+    @Value("${spring.app.userCacheMaxSize}")
+    private long userCacheMaxSize;
+
+    @Value("${spring.app.userCacheTtlSeconds}")
+    private long userCacheTtlSeconds;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+
+        // Only the caches registered here exist, each with its own bounds
+        cacheManager.registerCustomCache(ISSUE_CACHE, Caffeine.newBuilder()
+                .maximumSize(issueCacheMaxSize)
+                .expireAfterWrite(issueCacheTtlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build());
+
+        cacheManager.registerCustomCache(USER_DETAILS_CACHE, Caffeine.newBuilder()
+                .maximumSize(userCacheMaxSize)
+                .expireAfterWrite(userCacheTtlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build());
+
+        return cacheManager;
+    }
+}
@@ -0,0 +1,131 @@
+package com.spring.ims.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.locks.Lock;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Stand-in for replication between two local H2 databases: copies a full
+ * script of the primary into the replica at a fixed interval. The replica is
+ * marked unavailable while it is reloaded, so new reads go to the primary.
+ * Replica connections are not handed out during the reload, and the replica
+ * pool is drained first, so no read still running on the replica sees its
+ * tables dropped. A snapshot is skipped when the replica pool does not
+ * drain within the timeout.
+ */
+public class H2SnapshotReplicator {
+
+  private static final Logger logger = LoggerFactory.getLogger(H2SnapshotReplicator.class);
+
+  private final DataSource primary;
+
+  private final String replicaUrl;
+
+  private final String replicaUsername;
+
+  private final String replicaPassword;
+
+  private final HikariDataSource replicaPool;
+
+  private final long drainTimeoutMs;
+
+  private final ReplicationLagTracker lagTracker;
+
+  public H2SnapshotReplicator(DataSource primary, String replicaUrl, String replicaUsername, String replicaPassword,
+      HikariDataSource replicaPool, long drainTimeoutMs, ReplicationLagTracker lagTracker) {
+    this.primary = primary;
+    this.replicaUrl = replicaUrl;
+    this.replicaUsername = replicaUsername;
+    this.replicaPassword = replicaPassword;
+    this.replicaPool = replicaPool;
+    this.drainTimeoutMs = drainTimeoutMs;
+    this.lagTracker = lagTracker;
+  }
+
+  @Scheduled(fixedDelayString = "${spring.app.replica.snapshotMs}")
+  public synchronized void replicate() {
+    File script = null;
+    try {
+      script = File.createTempFile("replica-snapshot", ".sql");
+      String path = script.getAbsolutePath().replace("'", "''");
+
+      try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement()) {
+        statement.execute("SCRIPT TO '" + path + "'");
+      }
+
+      lagTracker.setReplicaAvailable(false);
+
+      // No replica connection is handed out until the reload is done
+      Lock reload = lagTracker.getReplicaLock().writeLock();
+      reload.lock();
+      try {
+        if (!drainReplicaPool()) {
+          logger.warn("Replica still in use after {} ms, snapshot skipped", drainTimeoutMs);
+          return;
+        }
+
+        try (Connection connection = DriverManager.getConnection(replicaUrl, replicaUsername, replicaPassword);
+            Statement statement = connection.createStatement()) {
+          statement.execute("DROP ALL OBJECTS");
+          statement.execute("RUNSCRIPT FROM '" + path + "'");
+        }
+      } finally {
+        reload.unlock();
+        lagTracker.setReplicaAvailable(true);
+      }
+
+      lagTracker.refresh();
+    } catch (IOException | SQLException e) {
+      logger.warn("Replica snapshot failed: {}", e.getMessage());
+    } finally {
+      if (script != null) {
+        script.delete();
+      }
+    }
+  }
+
+  /**
+   * Retires every replica connection and waits until none is borrowed. Idle
+   * connections are closed right away, borrowed ones when they are returned,
+   * and connections opened after the reload start on the new tables.
+   *
+   * @return false if reads were still running on the replica at the timeout
+   */
+  private boolean drainReplicaPool() {
+    HikariPoolMXBean pool = replicaPool.getHikariPoolMXBean();
+    if (pool == null) {
+      // The pool has not been started yet
+      return true;
+    }
+
+    pool.softEvictConnections();
+
+    long deadline = System.currentTimeMillis() + drainTimeoutMs;
+    while (pool.getActiveConnections() > 0) {
+      if (System.currentTimeMillis() >= deadline) {
+        return false;
+      }
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
@@ -0,0 +1,197 @@
+package com.spring.ims.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Times every statement executed through its connections and reports it to
+ * the {@link SqlStatementMonitor}, together with the update count or the
+ * number of rows read from the result set. Only execution is timed, not
+ * statement preparation or result iteration.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource implements AutoCloseable {
+
+  private final SqlStatementMonitor monitor;
+
+  public InstrumentedDataSource(DataSource targetDataSource, SqlStatementMonitor monitor) {
+    super(targetDataSource);
+    this.monitor = monitor;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return proxy(Connection.class, new ConnectionHandler(obtainTargetDataSource().getConnection()));
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return proxy(Connection.class, new ConnectionHandler(obtainTargetDataSource().getConnection(username, password)));
+  }
+
+  /**
+   * Closes the target when it is a pool, since this bean replaces it in the context
+   */
+  @Override
+  public void close() throws Exception {
+    if (getTargetDataSource() instanceof AutoCloseable) {
+      ((AutoCloseable) getTargetDataSource()).close();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[] { type }, handler);
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getTargetException();
+    }
+  }
+
+  /**
+   * Wraps the statements created by a connection
+   */
+  private final class ConnectionHandler implements InvocationHandler {
+
+    private final Connection target;
+
+    private ConnectionHandler(Connection target) {
+      this.target = target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      Object result = InstrumentedDataSource.invoke(target, method, args);
+
+      String name = method.getName();
+      if (result instanceof Statement
+          && (name.equals("createStatement") || name.equals("prepareStatement") || name.equals("prepareCall"))) {
+        String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+        return proxy(method.getReturnType(), new StatementHandler((Statement) result, sql));
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Times the execute methods of a statement. Prepared statements report the
+   * SQL they were prepared with, plain statements the SQL passed to execute.
+   */
+  private final class StatementHandler implements InvocationHandler {
+
+    private final Statement target;
+
+    private String sql;
+
+    // SQL of the last execution, for result sets fetched after execute()
+    private String lastExecuted;
+
+    private StatementHandler(Statement target, String sql) {
+      this.target = target;
+      this.sql = sql;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+
+      if (name.equals("addBatch") && args != null && args.length == 1 && sql == null) {
+        sql = (String) args[0];
+      }
+
+      if (!name.startsWith("execute")) {
+        Object result = InstrumentedDataSource.invoke(target, method, args);
+        return name.equals("getResultSet") && result != null ? wrap((ResultSet) result, lastExecuted) : result;
+      }
+
+      String executed = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+      lastExecuted = executed;
+      long start = System.nanoTime();
+      Object result = null;
+      try {
+        result = InstrumentedDataSource.invoke(target, method, args);
+        return result instanceof ResultSet ? wrap((ResultSet) result, executed) : result;
+      } finally {
+        monitor.record(executed, System.nanoTime() - start, updateCount(result));
+      }
+    }
+
+    private ResultSet wrap(ResultSet resultSet, String executed) {
+      return proxy(ResultSet.class, new ResultSetHandler(resultSet, executed));
+    }
+
+    private long updateCount(Object result) {
+      if (result instanceof Number) {
+        return Math.max(0, ((Number) result).longValue());
+      }
+
+      long rows = 0;
+      if (result instanceof int[]) {
+        for (int count : (int[]) result) {
+          rows += Math.max(0, count);
+        }
+      } else if (result instanceof long[]) {
+        for (long count : (long[]) result) {
+          rows += Math.max(0, count);
+        }
+      }
+      return rows;
+    }
+  }
+
+  /**
+   * Counts the rows read and reports them once the result is exhausted or closed
+   */
+  private final class ResultSetHandler implements InvocationHandler {
+
+    private final ResultSet target;
+
+    private final String sql;
+
+    private long rows;
+
+    private boolean reported;
+
+    private ResultSetHandler(ResultSet target, String sql) {
+      this.target = target;
+      this.sql = sql;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      Object result = InstrumentedDataSource.invoke(target, method, args);
+
+      if (name.equals("next")) {
+        if (Boolean.TRUE.equals(result)) {
+          rows++;
+        } else {
+          report();
+        }
+      } else if (name.equals("close")) {
+        report();
+      }
+      return result;
+    }
+
+    private void report() {
+      if (!reported) {
+        reported = true;
+        monitor.recordRows(sql, rows);
+      }
+    }
+  }
+}
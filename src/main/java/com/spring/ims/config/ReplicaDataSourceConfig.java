@@ -0,0 +1,93 @@
+package com.spring.ims.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Primary and replica connection pools behind a routing data source. Only
+ * active when spring.app.replica.url is set, otherwise the single datasource
+ * of spring.datasource is used as before.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.app.replica.url")
+public class ReplicaDataSourceConfig {
+
+    @Value("${spring.app.replica.url}")
+    private String replicaUrl;
+
+    @Value("${spring.app.replica.username:${spring.datasource.username}}")
+    private String replicaUsername;
+
+    @Value("${spring.app.replica.password:${spring.datasource.password}}")
+    private String replicaPassword;
+
+    @Value("${spring.app.replica.poolSize}")
+    private int replicaPoolSize;
+
+    @Value("${spring.app.replica.maxLagMs}")
+    private long maxLagMs;
+
+    @Value("${spring.app.replica.maxTrackedUsers}")
+    private long maxTrackedUsers;
+
+    @Value("${spring.app.replica.drainTimeoutMs}")
+    private long drainTimeoutMs;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(replicaUrl);
+        dataSource.setUsername(replicaUsername);
+        dataSource.setPassword(replicaPassword);
+        dataSource.setMaximumPoolSize(replicaPoolSize);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicationLagTracker replicationLagTracker(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica) {
+        return new ReplicationLagTracker(primary, replica, maxLagMs, maxTrackedUsers);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica, ReplicationLagTracker replicationLagTracker) {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primary, replica, replicationLagTracker);
+        routingDataSource.afterPropertiesSet();
+
+        // Defers the routing decision until the transaction's read-only flag is known
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    @ConditionalOnExpression("${spring.app.replica.snapshotMs:0} > 0")
+    public H2SnapshotReplicator h2SnapshotReplicator(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") HikariDataSource replica, ReplicationLagTracker replicationLagTracker) {
+        return new H2SnapshotReplicator(primary, replicaUrl, replicaUsername, replicaPassword, replica, drainTimeoutMs,
+                replicationLagTracker);
+    }
+}
@@ -0,0 +1,148 @@
+package com.spring.ims.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections of read-only transactions to the replica when the lag
+ * tracker allows it, and everything else to the primary. Must be wrapped in a
+ * LazyConnectionDataSourceProxy so that the connection is only fetched once
+ * the transaction's read-only flag is set.
+ * <p>
+ * Read-only transactions that call {@link #usePrimary()} before their first
+ * statement stay on the primary. Loads that fill a shared cache and security
+ * checks use it, since read-your-writes only covers the user who wrote and
+ * any other user could read a lagging row from the replica.
+ * <p>
+ * Replica connections are only handed out while no reload holds the lag
+ * tracker's replica lock. A read routed to the replica just before a reload
+ * started gets a primary connection instead.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  public static final String PRIMARY = "primary";
+
+  public static final String REPLICA = "replica";
+
+  // Bound while a read-only transaction has asked for the primary
+  private static final Object PRIMARY_READ_KEY = new Object();
+
+  // Bound while a write transaction has registered its commit callback
+  private final Object writeTrackingKey = new Object();
+
+  private final DataSource primary;
+
+  private final DataSource replica;
+
+  private final ReplicationLagTracker lagTracker;
+
+  public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicationLagTracker lagTracker) {
+    this.primary = primary;
+    this.replica = replica;
+    this.lagTracker = lagTracker;
+
+    Map<Object, Object> targets = new HashMap<>();
+    targets.put(PRIMARY, primary);
+    targets.put(REPLICA, replica);
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+  }
+
+  /**
+   * Routes the rest of the current transaction to the primary. Must be called
+   * before the transaction's first statement, does nothing outside of one.
+   */
+  public static void usePrimary() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()
+        || TransactionSynchronizationManager.hasResource(PRIMARY_READ_KEY)) {
+      return;
+    }
+
+    TransactionSynchronizationManager.bindResource(PRIMARY_READ_KEY, Boolean.TRUE);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(PRIMARY_READ_KEY);
+      }
+    });
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return borrow(DataSource::getConnection);
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return borrow(dataSource -> dataSource.getConnection(username, password));
+  }
+
+  /**
+   * Takes a connection from the routed pool. Borrowing from the replica is
+   * fenced, the reload drains the connections that were already handed out.
+   */
+  private Connection borrow(ConnectionSource source) throws SQLException {
+    if (!REPLICA.equals(determineCurrentLookupKey())) {
+      return source.getConnection(primary);
+    }
+
+    Lock borrow = lagTracker.getReplicaLock().readLock();
+    if (!borrow.tryLock()) {
+      return source.getConnection(primary);
+    }
+    try {
+      return source.getConnection(replica);
+    } finally {
+      borrow.unlock();
+    }
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      if (TransactionSynchronizationManager.hasResource(PRIMARY_READ_KEY)) {
+        return PRIMARY;
+      }
+      return lagTracker.routeReadToReplica() ? REPLICA : PRIMARY;
+    }
+
+    trackWrite();
+    return PRIMARY;
+  }
+
+  /**
+   * Records the commit time of the current write transaction for read-your-writes
+   */
+  private void trackWrite() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()
+        || TransactionSynchronizationManager.hasResource(writeTrackingKey)) {
+      return;
+    }
+
+    TransactionSynchronizationManager.bindResource(writeTrackingKey, Boolean.TRUE);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        lagTracker.recordWrite();
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(writeTrackingKey);
+      }
+    });
+  }
+
+  private interface ConnectionSource {
+    Connection getConnection(DataSource dataSource) throws SQLException;
+  }
+}
@@ -0,0 +1,170 @@
+package com.spring.ims.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spring.ims.payload.response.ReplicationStatsResponse;
+
+/**
+ * Measures how far the replica is behind the primary and decides whether a
+ * read-only transaction may use it. The primary stamps the current time into
+ * the replication_heartbeat row; the newest stamp visible on the replica tells
+ * which primary writes the replica is known to contain.
+ * <p>
+ * Reads go to the primary while the lag is unknown or above the limit, and
+ * for users whose last committed write is newer than the replica, so every
+ * user reads their own writes.
+ */
+public class ReplicationLagTracker {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplicationLagTracker.class);
+
+  private final JdbcTemplate primary;
+
+  private final JdbcTemplate replica;
+
+  private final long maxLagMs;
+
+  // Primary time of the newest heartbeat on the replica, -1 when unknown
+  private volatile long replicatedUpTo = -1;
+
+  private volatile boolean replicaAvailable = true;
+
+  // Shared while a replica connection is handed out, exclusive while the replica is reloaded
+  private final ReadWriteLock replicaLock = new ReentrantReadWriteLock();
+
+  // Commit time of each user's last write, kept long enough to outlive any acceptable lag
+  private final Cache<String, Long> lastWrites;
+
+  private final LongAdder replicaReads = new LongAdder();
+  private final LongAdder primaryReads = new LongAdder();
+  private final LongAdder lagFallbacks = new LongAdder();
+  private final LongAdder readYourWritesFallbacks = new LongAdder();
+
+  public ReplicationLagTracker(DataSource primary, DataSource replica, long maxLagMs, long maxTrackedUsers) {
+    this.primary = new JdbcTemplate(primary);
+    this.replica = new JdbcTemplate(replica);
+    this.maxLagMs = maxLagMs;
+    this.lastWrites = Caffeine.newBuilder()
+        .maximumSize(maxTrackedUsers)
+        .expireAfterWrite(Math.max(maxLagMs, 1000) * 2, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  /**
+   * Stamps a new heartbeat on the primary and reads the newest one back from
+   * the replica
+   */
+  @Scheduled(fixedDelayString = "${spring.app.replica.heartbeatMs}")
+  public void heartbeat() {
+    primary.update("MERGE INTO replication_heartbeat KEY (id) VALUES (1, ?)", System.currentTimeMillis());
+    refresh();
+  }
+
+  /**
+   * Reads the newest heartbeat visible on the replica
+   */
+  public void refresh() {
+    // Skipped while the replica is reloaded, the reload refreshes when it is done
+    if (!replicaLock.readLock().tryLock()) {
+      return;
+    }
+    try {
+      Long writtenAt = replica.queryForObject("SELECT written_at FROM replication_heartbeat WHERE id = 1", Long.class);
+      replicatedUpTo = writtenAt == null ? -1 : writtenAt;
+    } catch (DataAccessException e) {
+      replicatedUpTo = -1;
+      logger.debug("Replica heartbeat not readable: {}", e.getMessage());
+    } finally {
+      replicaLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Marks the replica as unusable, for example while it is being reloaded
+   */
+  public void setReplicaAvailable(boolean replicaAvailable) {
+    this.replicaAvailable = replicaAvailable;
+  }
+
+  /**
+   * Lock that keeps replica connections from being handed out while the
+   * replica is reloaded. Routing only tries the shared side and falls back to
+   * the primary, a reload takes the exclusive side.
+   */
+  public ReadWriteLock getReplicaLock() {
+    return replicaLock;
+  }
+
+  /**
+   * Decides where a read-only transaction of the current user goes
+   * 
+   * @return true for the replica, false for the primary
+   */
+  public boolean routeReadToReplica() {
+    long upTo = replicatedUpTo;
+
+    if (!replicaAvailable || upTo < 0 || System.currentTimeMillis() - upTo > maxLagMs) {
+      lagFallbacks.increment();
+      primaryReads.increment();
+      return false;
+    }
+
+    String username = currentUsername();
+    Long lastWrite = username == null ? null : lastWrites.getIfPresent(username);
+    if (lastWrite != null && lastWrite >= upTo) {
+      readYourWritesFallbacks.increment();
+      primaryReads.increment();
+      return false;
+    }
+
+    replicaReads.increment();
+    return true;
+  }
+
+  /**
+   * Records that the current user committed a write on the primary
+   */
+  public void recordWrite() {
+    String username = currentUsername();
+    if (username != null) {
+      lastWrites.put(username, System.currentTimeMillis());
+    }
+  }
+
+  public long getLagMs() {
+    long upTo = replicatedUpTo;
+    return upTo < 0 ? -1 : Math.max(0, System.currentTimeMillis() - upTo);
+  }
+
+  public ReplicationStatsResponse getStats() {
+    return new ReplicationStatsResponse(
+        true,
+        replicaAvailable,
+        getLagMs(),
+        maxLagMs,
+        replicaReads.sum(),
+        primaryReads.sum(),
+        lagFallbacks.sum(),
+        readYourWritesFallbacks.sum());
+  }
+
+  private static String currentUsername() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    return authentication == null ? null : authentication.getName();
+  }
+}
@@ -0,0 +1,35 @@
+package com.spring.ims.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wraps the application datasource, the single pool or the replica routing
+ * datasource, in an {@link InstrumentedDataSource}. The pools behind the
+ * routing datasource stay unwrapped, so every statement is recorded once.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.app.sqlMetricsEnabled", havingValue = "true", matchIfMissing = true)
+public class SqlMonitoringConfig {
+
+    public static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    public static BeanPostProcessor sqlMonitoringPostProcessor(ObjectProvider<SqlStatementMonitor> monitor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource
+                        && !(bean instanceof InstrumentedDataSource)) {
+                    return new InstrumentedDataSource((DataSource) bean, monitor.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,312 @@
+package com.spring.ims.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spring.ims.payload.response.SqlShapeStatsResponse;
+import com.spring.ims.payload.response.SqlStatsResponse;
+
+/**
+ * Collects execution statistics of SQL statements grouped by their shape, the
+ * SQL text with literals and IN lists replaced by placeholders. Each shape
+ * keeps a latency histogram, row counts and the endpoints that ran it.
+ * Statements slower than the threshold are logged, at most one per shape per
+ * interval, together with the number of slow runs suppressed since.
+ */
+@Component
+public class SqlStatementMonitor {
+
+  private static final Logger logger = LoggerFactory.getLogger(SqlStatementMonitor.class);
+
+  // Upper bounds of the latency buckets, the last bucket has no upper bound
+  static final long[] BUCKET_BOUNDS_MS = { 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000 };
+
+  static final String BACKGROUND = "background";
+
+  static final String OTHER = "other";
+
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w.$])-?\\d+(?:\\.\\d+)?(?![\\w$])");
+  private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  @Value("${spring.app.sqlSlowQueryMs:200}")
+  private long slowQueryMs;
+
+  @Value("${spring.app.sqlSlowLogIntervalMs:10000}")
+  private long slowLogIntervalMs;
+
+  @Value("${spring.app.sqlMaxShapes:1000}")
+  private int maxShapes;
+
+  @Value("${spring.app.sqlMaxEndpointsPerShape:20}")
+  private int maxEndpointsPerShape;
+
+  private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+
+  // Shape of each raw SQL text, so normalization runs once per distinct statement
+  private Cache<String, String> shapeCache;
+
+  private final LongAdder totalStatements = new LongAdder();
+  private final LongAdder slowStatements = new LongAdder();
+  private final LongAdder suppressedSlowLogs = new LongAdder();
+  private final LongAdder untrackedStatements = new LongAdder();
+  private final AtomicLong untrackedNextLogAt = new AtomicLong();
+  private final LongAdder untrackedSuppressedSlowLogs = new LongAdder();
+
+  @PostConstruct
+  public void init() {
+    shapeCache = Caffeine.newBuilder()
+        .maximumSize(maxShapes * 4L)
+        .build();
+  }
+
+  /**
+   * Records one execution of {@code sql}. {@code rows} is the update count,
+   * rows read by a query are added later with {@link #recordRows(String, long)}.
+   */
+  public void record(String sql, long elapsedNanos, long rows) {
+    totalStatements.increment();
+
+    String shape = shapeOf(sql);
+    String endpoint = currentEndpoint();
+    ShapeStats stats = statsOf(shape);
+    if (stats != null) {
+      stats.record(elapsedNanos, rows, endpoint, maxEndpointsPerShape);
+    } else {
+      untrackedStatements.increment();
+    }
+
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    if (elapsedMs >= slowQueryMs) {
+      slowStatements.increment();
+      if (stats != null) {
+        stats.slowCount.increment();
+      }
+      logSlow(shape, stats, elapsedMs, endpoint);
+    }
+  }
+
+  /**
+   * Adds rows read from the result of a query
+   */
+  public void recordRows(String sql, long rows) {
+    ShapeStats stats = shapes.get(shapeOf(sql));
+    if (stats != null) {
+      stats.rows.add(rows);
+    }
+  }
+
+  /**
+   * @param limit maximum number of shapes returned, those with the highest total time first
+   */
+  public SqlStatsResponse getStats(int limit) {
+    List<Map.Entry<String, ShapeStats>> entries = new ArrayList<>(shapes.entrySet());
+    entries.sort(Comparator.comparingLong((Map.Entry<String, ShapeStats> e) -> e.getValue().totalNanos.sum()).reversed());
+
+    List<SqlShapeStatsResponse> top = new ArrayList<>();
+    for (Map.Entry<String, ShapeStats> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+      top.add(entry.getValue().toResponse(entry.getKey()));
+    }
+
+    List<Long> bounds = new ArrayList<>(BUCKET_BOUNDS_MS.length);
+    for (long bound : BUCKET_BOUNDS_MS) {
+      bounds.add(bound);
+    }
+
+    return new SqlStatsResponse(
+        totalStatements.sum(),
+        slowStatements.sum(),
+        suppressedSlowLogs.sum(),
+        untrackedStatements.sum(),
+        shapes.size(),
+        slowQueryMs,
+        bounds,
+        top);
+  }
+
+  /**
+   * Replaces literals with placeholders, collapses IN lists and whitespace
+   */
+  static String normalize(String sql) {
+    String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+    shape = NUMERIC_LITERAL.matcher(shape).replaceAll("?");
+    shape = IN_LIST.matcher(shape).replaceAll("in (?)");
+    return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+  }
+
+  /**
+   * Method and mapped path pattern of the current request. Statements run
+   * before the handler is known, such as in security filters, fall back to the
+   * request URI.
+   */
+  static String currentEndpoint() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (!(attributes instanceof ServletRequestAttributes)) {
+      return BACKGROUND;
+    }
+
+    HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+  }
+
+  private String shapeOf(String sql) {
+    if (sql == null) {
+      return OTHER;
+    }
+    return shapeCache.get(sql, SqlStatementMonitor::normalize);
+  }
+
+  /**
+   * @return the shape's statistics, or null once the shape limit is reached
+   */
+  private ShapeStats statsOf(String shape) {
+    ShapeStats stats = shapes.get(shape);
+    if (stats == null && shapes.size() < maxShapes) {
+      stats = shapes.computeIfAbsent(shape, key -> new ShapeStats());
+    }
+    return stats;
+  }
+
+  private void logSlow(String shape, ShapeStats stats, long elapsedMs, String endpoint) {
+    // Shapes beyond the limit share one sampling slot
+    AtomicLong nextLogAt = stats != null ? stats.nextLogAt : untrackedNextLogAt;
+    LongAdder suppressed = stats != null ? stats.suppressedSlowLogs : untrackedSuppressedSlowLogs;
+
+    long now = System.currentTimeMillis();
+    long next = nextLogAt.get();
+    if (now >= next && nextLogAt.compareAndSet(next, now + slowLogIntervalMs)) {
+      long skipped = suppressed.sumThenReset();
+      logger.warn("Slow SQL ({} ms) from {}: {}, {} similar suppressed", elapsedMs, endpoint, shape, skipped);
+    } else {
+      suppressed.increment();
+      suppressedSlowLogs.increment();
+    }
+  }
+
+  private static final class ShapeStats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder slowCount = new LongAdder();
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+    private final Map<String, LongAdder> endpoints = new ConcurrentHashMap<>();
+    private final AtomicLong nextLogAt = new AtomicLong();
+    private final LongAdder suppressedSlowLogs = new LongAdder();
+
+    private ShapeStats() {
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    private void record(long elapsedNanos, long rowCount, String endpoint, int maxEndpoints) {
+      count.increment();
+      rows.add(rowCount);
+      totalNanos.add(elapsedNanos);
+      maxNanos.accumulate(elapsedNanos);
+      buckets[bucketOf(elapsedNanos)].increment();
+
+      LongAdder endpointCount = endpoints.get(endpoint);
+      if (endpointCount == null) {
+        endpointCount = endpoints.size() < maxEndpoints
+            ? endpoints.computeIfAbsent(endpoint, key -> new LongAdder())
+            : endpoints.computeIfAbsent(OTHER, key -> new LongAdder());
+      }
+      endpointCount.increment();
+    }
+
+    private static int bucketOf(long elapsedNanos) {
+      long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+      for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+        if (elapsedMs < BUCKET_BOUNDS_MS[i]) {
+          return i;
+        }
+      }
+      return BUCKET_BOUNDS_MS.length;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given quantile, the maximum for the last bucket
+     */
+    private double percentileMs(long[] counts, long total, double quantile) {
+      if (total == 0) {
+        return 0;
+      }
+
+      long rank = (long) Math.ceil(quantile * total);
+      long seen = 0;
+      for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(BUCKET_BOUNDS_MS[i], toMs(maxNanos.get()));
+        }
+      }
+      return toMs(maxNanos.get());
+    }
+
+    private SqlShapeStatsResponse toResponse(String shape) {
+      long[] counts = new long[buckets.length];
+      List<Long> histogram = new ArrayList<>(buckets.length);
+      for (int i = 0; i < buckets.length; i++) {
+        counts[i] = buckets[i].sum();
+        histogram.add(counts[i]);
+      }
+
+      long total = count.sum();
+      double totalMs = toMs(totalNanos.sum());
+
+      List<Map.Entry<String, LongAdder>> byCount = new ArrayList<>(endpoints.entrySet());
+      byCount.sort(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed());
+      Map<String, Long> endpointCounts = new LinkedHashMap<>();
+      for (Map.Entry<String, LongAdder> entry : byCount) {
+        endpointCounts.put(entry.getKey(), entry.getValue().sum());
+      }
+
+      return new SqlShapeStatsResponse(
+          shape,
+          total,
+          rows.sum(),
+          slowCount.sum(),
+          totalMs,
+          total == 0 ? 0 : totalMs / total,
+          toMs(maxNanos.get()),
+          percentileMs(counts, total, 0.50),
+          percentileMs(counts, total, 0.95),
+          percentileMs(counts, total, 0.99),
+          Collections.unmodifiableList(histogram),
+          endpointCounts);
+    }
+
+    private static double toMs(long nanos) {
+      return nanos / 1_000_000.0;
+    }
+  }
+}
@@ -3,22 +3,33 @@ package com.spring.ims.controllers;
 import java.util.List;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spring.ims.models.User;
+import com.spring.ims.IConstants.IConstants;
 import com.spring.ims.payload.request.LoginRequest;
+import com.spring.ims.payload.request.RoleUpdateRequest;
 import com.spring.ims.payload.request.SignupRequest;
+import com.spring.ims.payload.request.TokenRefreshRequest;
+import com.spring.ims.payload.response.BatchResponse;
 import com.spring.ims.payload.response.JwtResponse;
+import com.spring.ims.payload.response.MessageResponse;
 import com.spring.ims.security.services.AuthenticationService;
 
 @RestController
@@ -37,25 +48,53 @@ public class AuthController {
    * @return {@link ResponseEntity<?>}
    */
   @PostMapping("/signin")
-  public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+  public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
 	  
-    
-
-	Map<String, Object> map =  authenticateUserService.authenticateUser(loginRequest);
-	  
-	ObjectMapper objectMapper = new ObjectMapper();
-    String jwt =  objectMapper.convertValue(map.get("jwt"), String.class);
-    Long id =  objectMapper.convertValue(map.get("id"), Long.class);
-    String name =  objectMapper.convertValue(map.get("name"), String.class);
-    String email =  objectMapper.convertValue(map.get("email"), String.class);
-    List<String> roles = new ObjectMapper().convertValue(map.get("roles"), new TypeReference<List<String>>() {});
+    // Attempts are throttled per username and per client address
+	Map<String, Object> map =  authenticateUserService.authenticateUser(loginRequest, request.getRemoteAddr());
 
-    // Returns user details with the generated JWT token
-		return ResponseEntity.ok(
-      new JwtResponse(jwt, id, name, email, roles));
+    // Returns user details with the generated JWT tokens
+		return ResponseEntity.ok(toJwtResponse(map));
       
   }
 
+  /**
+   * This API issues a new access token for a refresh token, without a password check
+   * 
+   * @RequestBody tokenRefreshRequest
+   * 
+   * @return {@link ResponseEntity<JwtResponse>}
+   */
+  @PostMapping("/refresh")
+  public ResponseEntity<JwtResponse> refreshToken(@Valid @RequestBody TokenRefreshRequest tokenRefreshRequest) {
+
+    Map<String, Object> map = authenticateUserService.refreshAccessToken(tokenRefreshRequest.getRefreshToken());
+
+    return ResponseEntity.ok(toJwtResponse(map));
+  }
+
+  /**
+   * This API revokes the bearer token of the request and the given refresh token
+   * 
+   * @RequestHeader Authorization
+   * @RequestBody tokenRefreshRequest
+   * 
+   * @return {@link ResponseEntity<MessageResponse>}
+   */
+  @PostMapping("/signout")
+  public ResponseEntity<MessageResponse> signout(
+      @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+      @RequestBody(required = false) TokenRefreshRequest tokenRefreshRequest) {
+
+    String accessToken = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+    String refreshToken = tokenRefreshRequest == null ? null : tokenRefreshRequest.getRefreshToken();
+
+    // Revokes both tokens until they expire
+    authenticateUserService.signout(accessToken, refreshToken);
+
+    return new ResponseEntity<>(new MessageResponse(IConstants.SIGNED_OUT), HttpStatus.OK);
+  }
+
   /**
 	 * This method is used to create new User
 	 * 
@@ -78,4 +117,53 @@ public class AuthController {
    
     
   }
+
+  /**
+   * This API creates a list of users in one request. Items that fail validation
+   * or clash with an existing user are reported in the response, the others are
+   * created.
+   * 
+   * @RequestBody signupRequests
+   * 
+   * @return {@link ResponseEntity<BatchResponse>}
+   */
+  @PostMapping("/users/batch")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<BatchResponse> provisionUsers(@RequestBody List<SignupRequest> signupRequests) {
+
+    // Creates the users
+    return new ResponseEntity<>(authenticateUserService.provisionUsers(signupRequests), HttpStatus.OK);
+  }
+
+  /**
+   * This API replaces the roles of an existing user
+   * 
+   * @PathVariable userId
+   * @RequestBody roleUpdateRequest
+   * 
+   * @return {@link ResponseEntity<MessageResponse>}
+   */
+  @PutMapping("/users/{userId}/roles")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<MessageResponse> updateUserRoles(@PathVariable Long userId,
+      @Valid @RequestBody RoleUpdateRequest roleUpdateRequest) {
+
+    // Updates the roles and invalidates the user's cached details and tokens
+    authenticateUserService.updateUserRoles(userId, roleUpdateRequest.getRole());
+
+    return new ResponseEntity<>(new MessageResponse(IConstants.USER_ROLES_UPDATED), HttpStatus.OK);
+  }
+
+  private JwtResponse toJwtResponse(Map<String, Object> map) {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    String jwt =  objectMapper.convertValue(map.get("jwt"), String.class);
+    String refreshToken =  objectMapper.convertValue(map.get("refreshToken"), String.class);
+    Long id =  objectMapper.convertValue(map.get("id"), Long.class);
+    String name =  objectMapper.convertValue(map.get("name"), String.class);
+    String email =  objectMapper.convertValue(map.get("email"), String.class);
+    List<String> roles = objectMapper.convertValue(map.get("roles"), new TypeReference<List<String>>() {});
+
+    return new JwtResponse(jwt, refreshToken, id, name, email, roles);
+  }
 }
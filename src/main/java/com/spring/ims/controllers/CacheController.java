@@ -0,0 +1,49 @@
+package com.spring.ims.controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.spring.ims.payload.response.CacheStatsResponse;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+public class CacheController {
+
+	@Autowired
+	private CacheManager cacheManager;
+	
+	/**
+	 * This API returns size, hit, miss and eviction counters of every cache
+	 * 
+	 * @return {@link ResponseEntity<List<CacheStatsResponse>>}
+	 */
+	@GetMapping("/stats")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<List<CacheStatsResponse>> getCacheStats() {
+		
+		List<CacheStatsResponse> stats = new ArrayList<>();
+		
+		for(String name : cacheManager.getCacheNames()) {
+			
+			Cache<Object, Object> cache = ((CaffeineCache) cacheManager.getCache(name)).getNativeCache();
+			CacheStats cacheStats = cache.stats();
+			
+			stats.add(new CacheStatsResponse(name, cache.estimatedSize(), cacheStats.hitCount(),
+					cacheStats.missCount(), cacheStats.hitRate(), cacheStats.evictionCount()));
+		}
+		
+		return new ResponseEntity<>(stats, HttpStatus.OK);
+	}
+}
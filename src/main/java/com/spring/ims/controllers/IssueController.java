@@ -1,8 +1,14 @@
 package com.spring.ims.controllers;
 
+import java.io.IOException;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -13,14 +19,32 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.spring.ims.IConstants.IConstants;
+import com.spring.ims.dto.IssueCountDto;
 import com.spring.ims.dto.IssueDto;
+import com.spring.ims.dto.IssueFilterDto;
+import com.spring.ims.dto.IssueTransitionDto;
+import com.spring.ims.dto.IssueViewDto;
 import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.exception.PreconditionFailedException;
 import com.spring.ims.exception.ResourceNotFoundException;
 import com.spring.ims.models.Issue;
+import com.spring.ims.payload.response.AffectedCountResponse;
+import com.spring.ims.payload.response.BatchResponse;
+import com.spring.ims.payload.response.ChangeFeedResponse;
+import com.spring.ims.payload.response.PageResponse;
+import com.spring.ims.payload.response.SearchResponse;
+import com.spring.ims.services.IssueArchiveService;
+import com.spring.ims.services.IssueChangeService;
+import com.spring.ims.services.IssueSearchService;
 import com.spring.ims.services.IssueService;
+import com.spring.ims.services.IssueStatsService;
 
 @RestController
 @RequestMapping("/api/issue")
@@ -29,12 +53,24 @@ public class IssueController {
 	@Autowired
 	private IssueService issueService;
 	
+	@Autowired
+	private IssueSearchService issueSearchService;
+	
+	@Autowired
+	private IssueStatsService issueStatsService;
+	
+	@Autowired
+	private IssueChangeService issueChangeService;
+	
+	@Autowired
+	private IssueArchiveService issueArchiveService;
+	
 	/**
 	 * Add new issue to the DB
 	 * 
 	 * @RequestBody issueDto
 	 * 
-	 * @return {@link ResponseEntity<Issue>}
+	 * @return {@link ResponseEntity<IssueViewDto>}
 	 * 
 	 * @throws InvalidInputException
 	 */
@@ -42,83 +78,263 @@ public class IssueController {
 	@PostMapping(value = "/", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
 //	@RequestMapping(value = "/", method = RequestMethod.POST)
 	@PreAuthorize("hasRole('USER') or hasRole('MODERATOR')")
-	public ResponseEntity<Issue> addIssue(@RequestBody IssueDto issueDto) throws InvalidInputException {
+	public ResponseEntity<IssueViewDto> addIssue(@RequestBody IssueDto issueDto) throws InvalidInputException {
 		
 		// Creates a new issue 
 		Issue issue = issueService.addIssue(issueDto);
 		
 		// Checks whether created issue is null or not
 		if(issue != null) {
-			return new ResponseEntity<>(issue, HttpStatus.OK);
+			return new ResponseEntity<>(IssueViewDto.from(issue), HttpStatus.OK);
 		}
 		
 		// If null, returns error response
-		return new ResponseEntity<>(issue, HttpStatus.INTERNAL_SERVER_ERROR);
+		return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
 		
 	}
 	
 	/**
-	 * This API updates an existing issue.
+	 * Adds a list of issues in one request. Items that fail validation are
+	 * reported in the response, the others are created.
+	 * 
+	 * @RequestBody issueDtos
+	 * 
+	 * @return {@link ResponseEntity<BatchResponse>}
+	 * 
+	 * @throws InvalidInputException
+	 */
+	@PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('USER') or hasRole('MODERATOR')")
+	public ResponseEntity<BatchResponse> addIssues(@RequestBody List<IssueDto> issueDtos) throws InvalidInputException {
+		
+		// Creates the issues
+		return new ResponseEntity<>(issueService.addIssues(issueDtos), HttpStatus.OK);
+	}
+	
+	/**
+	 * This API updates an existing issue. With an If-Match header the update is
+	 * rejected with 412 unless the issue still has one of the listed ETags;
+	 * "*" matches any existing issue.
 	 * 
 	 * @PathVariabe issueId
 	 * @RequestBody issueDto
+	 * @RequestHeader ifMatch
 	 * 
-	 * @return {@link ResponseEntity<Issue>}
+	 * @return {@link ResponseEntity<IssueViewDto>}
 	 * 
 	 * @throws InvalidInputException
+	 * @throws PreconditionFailedException
 	 */
 	@PutMapping("/{issueId}")
 	@PreAuthorize("hasRole('USER') or hasRole('MODERATOR')")
-	public ResponseEntity<Issue> updateIssue(@PathVariable Long issueId, @RequestBody IssueDto issueDto) throws InvalidInputException{
+	public ResponseEntity<IssueViewDto> updateIssue(@PathVariable Long issueId, @RequestBody IssueDto issueDto,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws InvalidInputException, PreconditionFailedException{
 			
 			// Updates an existing issue
-			Issue issue = issueService.updateIssue(issueId, issueDto);
+			Issue issue = issueService.updateIssue(issueId, issueDto, parseIfMatch(ifMatch));
 			
 			// Checks whether issue is updated or not
 			if(issue != null) {
-				return new ResponseEntity<>(issue, HttpStatus.OK);
+				return ResponseEntity.ok().eTag(toETag(issue.getVersion())).body(IssueViewDto.from(issue));
 			}
 			
 			// If null, returns error response
-			return new ResponseEntity<>(issue, HttpStatus.INTERNAL_SERVER_ERROR);
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
 			
 	}
+	
 	/**
-	 * Fetches issue by issue Id
+	 * This API changes status and/or severity of many issues at once
+	 * 
+	 * @RequestBody transitionDto
+	 * 
+	 * @return {@link ResponseEntity<AffectedCountResponse>}
+	 * 
+	 * @throws InvalidInputException
+	 */
+	@PutMapping("/transition")
+	@PreAuthorize("hasRole('MODERATOR') or hasRole('ADMIN')")
+	public ResponseEntity<AffectedCountResponse> transitionIssues(@RequestBody IssueTransitionDto transitionDto) throws InvalidInputException {
+		
+		// Updates the selected issues
+		int affected = issueService.transitionIssues(transitionDto);
+		
+		return new ResponseEntity<>(new AffectedCountResponse(affected), HttpStatus.OK);
+	}
+	
+	/**
+	 * Fetches issue by issue Id. The response carries the issue version as ETag,
+	 * a matching If-None-Match gets 304 Not Modified without a body.
 	 * 
 	 * @PathVariable issueId
 	 * 
-	 * @return {link {ResponseEntity<Issue>}}
+	 * @return {link {ResponseEntity<IssueViewDto>}}
 	 * 
 	 * @throws Exception
 	 */
 	@GetMapping("/{issueId}")
 	@PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
-	public ResponseEntity<Issue> getIssue(@PathVariable Long issueId) throws InvalidInputException, ResourceNotFoundException{
+	public ResponseEntity<IssueViewDto> getIssue(@PathVariable Long issueId, WebRequest request) throws InvalidInputException, ResourceNotFoundException{
 			
 			// Fetch issue by issue Id
-			Issue issue = issueService.getIssueById(issueId);
+			IssueViewDto issue = issueService.getIssueById(issueId);
+			
+			// Client copy is current, answers 304
+			String eTag = toETag(issue.getVersion());
+			if(request.checkNotModified(eTag)) {
+				return null;
+			}
 			
 			// Returns fetched issue
-			return new ResponseEntity<>(issue, HttpStatus.OK);
+			return ResponseEntity.ok().eTag(eTag).body(issue);
 			
 	}
 	
 	/**
-	 * This API fetches the list of issues
+	 * This API fetches one keyset page of issues, ordered by issue Id
+	 * 
+	 * @RequestParam status
+	 * @RequestParam severity
+	 * @RequestParam responsible
+	 * @RequestParam userId
+	 * @RequestParam cursor
+	 * @RequestParam size
 	 * 
-	 * @return {@link List<Issue>}
+	 * @return {@link ResponseEntity<PageResponse<IssueViewDto>>}
+	 * 
+	 * @throws InvalidInputException
 	 */
 	@GetMapping
 	@PreAuthorize("hasRole('ADMIN')")
-	public List<Issue> getAllIssues(){
+	public ResponseEntity<PageResponse<IssueViewDto>> getAllIssues(
+			@RequestParam(required = false) String status,
+			@RequestParam(required = false) String severity,
+			@RequestParam(required = false) String responsible,
+			@RequestParam(required = false) Long userId,
+			@RequestParam(required = false) Long cursor,
+			@RequestParam(required = false) Integer size) throws InvalidInputException {
+		
+		IssueFilterDto filter = new IssueFilterDto();
+		filter.setStatus(status);
+		filter.setSeverity(severity);
+		filter.setResponsible(responsible);
+		filter.setUserId(userId);
+		
+		// Fetch page of issues
+		return new ResponseEntity<>(issueService.getIssues(filter, cursor, size), HttpStatus.OK);
+	}
+	
+	/**
+	 * This API searches issue title and description, best matches first
+	 * 
+	 * @RequestParam q
+	 * @RequestParam page
+	 * @RequestParam size
+	 * 
+	 * @return {@link ResponseEntity<SearchResponse<IssueViewDto>>}
+	 * 
+	 * @throws InvalidInputException
+	 */
+	@GetMapping("/search")
+	@PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+	public ResponseEntity<SearchResponse<IssueViewDto>> searchIssues(@RequestParam String q,
+			@RequestParam(required = false) Integer page,
+			@RequestParam(required = false) Integer size) throws InvalidInputException {
+		
+		// Searches the issue index
+		return new ResponseEntity<>(issueSearchService.search(q, page, size), HttpStatus.OK);
+	}
+	
+	/**
+	 * This API rebuilds the search index from the issue table
+	 * 
+	 * @return {@link ResponseEntity<AffectedCountResponse>}
+	 */
+	@PostMapping("/search/rebuild")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<AffectedCountResponse> rebuildSearchIndex() {
+		
+		// Reindexes every issue
+		return new ResponseEntity<>(new AffectedCountResponse(issueSearchService.rebuildIndex()), HttpStatus.OK);
+	}
+	
+	/**
+	 * This API archives the due closed issues now instead of waiting for the scheduled run
+	 * 
+	 * @return {@link ResponseEntity<AffectedCountResponse>}
+	 */
+	@PostMapping("/archive")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<AffectedCountResponse> archiveIssues() {
+		
+		// Moves due issues to the archive
+		return new ResponseEntity<>(new AffectedCountResponse(issueArchiveService.archiveIssues()), HttpStatus.OK);
+	}
+	
+	/**
+	 * This API returns issue counts per severity, status and responsible,
+	 * optionally restricted to the given values
+	 * 
+	 * @RequestParam severity
+	 * @RequestParam status
+	 * @RequestParam responsible
+	 * 
+	 * @return {@link ResponseEntity<List<IssueCountDto>>}
+	 * 
+	 * @throws InvalidInputException
+	 */
+	@GetMapping("/stats")
+	@PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+	public ResponseEntity<List<IssueCountDto>> getIssueStats(
+			@RequestParam(required = false) String severity,
+			@RequestParam(required = false) String status,
+			@RequestParam(required = false) String responsible) throws InvalidInputException {
+		
+		// Reads the in-memory counters
+		return new ResponseEntity<>(issueStatsService.getCounts(severity, status, responsible), HttpStatus.OK);
+	}
+	
+	/**
+	 * This API returns the issue changes recorded after the given cursor, so that
+	 * clients can mirror issues without re-fetching the full list
+	 * 
+	 * @RequestParam since
+	 * @RequestParam size
+	 * 
+	 * @return {@link ResponseEntity<ChangeFeedResponse>}
+	 * 
+	 * @throws InvalidInputException
+	 */
+	@GetMapping("/changes")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<ChangeFeedResponse> getIssueChanges(
+			@RequestParam(required = false) Long since,
+			@RequestParam(required = false) Integer size) throws InvalidInputException {
 		
-		// Fetch list of issues
-		return issueService.getAllIssues();
+		// Reads the change log after the cursor
+		return new ResponseEntity<>(issueChangeService.getChanges(since, size), HttpStatus.OK);
 	}
 	
 	/**
-	 * Deletes issue By issue Id
+	 * This API streams every issue as newline-delimited JSON
+	 * 
+	 * @param response
+	 * 
+	 * @throws IOException
+	 */
+	@GetMapping(value = "/export", produces = IConstants.NDJSON_CONTENT_TYPE)
+	@PreAuthorize("hasRole('ADMIN')")
+	public void exportIssues(HttpServletResponse response) throws IOException {
+		
+		response.setContentType(IConstants.NDJSON_CONTENT_TYPE);
+		
+		// Writes issues directly to the response body
+		issueService.exportIssues(response.getOutputStream());
+	}
+	
+	/**
+	 * Deletes issue By issue Id, live or archived, so every issue the GET
+	 * returns can be deleted
 	 * 
 	 * @PathVriable issueId
 	 * 
@@ -137,4 +353,77 @@ public class IssueController {
 			return new ResponseEntity<>(HttpStatus.OK);
 				
 	}
+	
+	/**
+	 * This API deletes every issue matching the filter, in chunks
+	 * 
+	 * @RequestBody filter
+	 * 
+	 * @return {@link ResponseEntity<AffectedCountResponse>}
+	 * 
+	 * @throws InvalidInputException
+	 */
+	@PostMapping("/delete")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<AffectedCountResponse> deleteIssues(@RequestBody IssueFilterDto filter) throws InvalidInputException {
+		
+		// Deletes the matching issues
+		return new ResponseEntity<>(new AffectedCountResponse(issueService.deleteIssues(filter)), HttpStatus.OK);
+	}
+	
+	/**
+	 * Builds the ETag of an issue version
+	 * 
+	 * @param version
+	 * 
+	 * @return String
+	 */
+	private String toETag(Long version) {
+		
+		return "\"" + (version == null ? 0L : version) + "\"";
+	}
+	
+	/**
+	 * Reads the issue versions from an If-Match header, a comma separated list
+	 * of ETags. If-Match compares strongly, so weak ETags and ETags that are not
+	 * an issue version can never match and are left out.
+	 * 
+	 * @param ifMatch
+	 * 
+	 * @return versions, null when the header is absent or "*", empty when no
+	 * listed ETag can match
+	 * 
+	 * @throws InvalidInputException when an entry is not an ETag
+	 */
+	private Set<Long> parseIfMatch(String ifMatch) throws InvalidInputException {
+		
+		if(ifMatch == null || ifMatch.trim().isEmpty() || "*".equals(ifMatch.trim())) {
+			return null;
+		}
+		
+		Set<Long> versions = new LinkedHashSet<>();
+		for(String entry : ifMatch.split(",")) {
+			String value = entry.trim();
+			if(value.isEmpty() || value.startsWith("W/")) {
+				continue;
+			}
+			
+			// Quoted tags that are not a version match nothing, bare versions are accepted too
+			boolean quoted = value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"");
+			if(quoted) {
+				value = value.substring(1, value.length() - 1);
+			}
+			
+			try {
+				versions.add(Long.valueOf(value));
+			}
+			catch(NumberFormatException e) {
+				if(!quoted) {
+					throw new InvalidInputException(IConstants.INVALID_IF_MATCH);
+				}
+			}
+		}
+		
+		return versions;
+	}
 }
@@ -0,0 +1,112 @@
+package com.spring.ims.controllers;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.spring.ims.config.ReplicationLagTracker;
+import com.spring.ims.config.SqlStatementMonitor;
+import com.spring.ims.payload.response.AuthRejectionStatsResponse;
+import com.spring.ims.payload.response.LoginThrottleStatsResponse;
+import com.spring.ims.payload.response.PasswordHashingStatsResponse;
+import com.spring.ims.payload.response.ReplicationStatsResponse;
+import com.spring.ims.payload.response.SqlStatsResponse;
+import com.spring.ims.security.jwt.AuthRejectionMonitor;
+import com.spring.ims.security.services.LoginThrottle;
+import com.spring.ims.security.services.PasswordHashingExecutor;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+public class MetricsController {
+
+	@Autowired
+	private PasswordHashingExecutor passwordHashingExecutor;
+	
+	@Autowired
+	private LoginThrottle loginThrottle;
+	
+	@Autowired
+	private AuthRejectionMonitor authRejectionMonitor;
+	
+	@Autowired
+	private SqlStatementMonitor sqlStatementMonitor;
+	
+	// Only present when a read replica is configured
+	@Autowired
+	private ObjectProvider<ReplicationLagTracker> replicationLagTracker;
+	
+	/**
+	 * This API returns pool usage, queue depth, rejections and latency of password hashing
+	 * 
+	 * @return {@link ResponseEntity<PasswordHashingStatsResponse>}
+	 */
+	@GetMapping("/password-hashing")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<PasswordHashingStatsResponse> getPasswordHashingStats() {
+		
+		return new ResponseEntity<>(passwordHashingExecutor.getStats(), HttpStatus.OK);
+	}
+	
+	/**
+	 * This API returns allowed and throttled signin attempts and the number of tracked buckets
+	 * 
+	 * @return {@link ResponseEntity<LoginThrottleStatsResponse>}
+	 */
+	@GetMapping("/login-throttle")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<LoginThrottleStatsResponse> getLoginThrottleStats() {
+		
+		return new ResponseEntity<>(loginThrottle.getStats(), HttpStatus.OK);
+	}
+	
+	/**
+	 * This API returns rejected tokens and unauthorized requests by reason, and how many log lines were suppressed
+	 * 
+	 * @return {@link ResponseEntity<AuthRejectionStatsResponse>}
+	 */
+	@GetMapping("/auth-rejections")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<AuthRejectionStatsResponse> getAuthRejectionStats() {
+		
+		return new ResponseEntity<>(authRejectionMonitor.getStats(), HttpStatus.OK);
+	}
+	
+	/**
+	 * This API returns the replica lag and how many reads went to the replica or fell back to the primary
+	 * 
+	 * @return {@link ResponseEntity<ReplicationStatsResponse>}
+	 */
+	@GetMapping("/replication")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<ReplicationStatsResponse> getReplicationStats() {
+		
+		ReplicationLagTracker tracker = replicationLagTracker.getIfAvailable();
+		if (tracker == null) {
+			ReplicationStatsResponse disabled = new ReplicationStatsResponse();
+			disabled.setLagMs(-1);
+			return new ResponseEntity<>(disabled, HttpStatus.OK);
+		}
+		
+		return new ResponseEntity<>(tracker.getStats(), HttpStatus.OK);
+	}
+	
+	/**
+	 * This API returns statement counts, latency histograms, row counts and calling endpoints
+	 * of the SQL shapes with the highest total time
+	 * 
+	 * @RequestParam limit
+	 * @return {@link ResponseEntity<SqlStatsResponse>}
+	 */
+	@GetMapping("/sql")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<SqlStatsResponse> getSqlStats(@RequestParam(defaultValue = "20") int limit) {
+		
+		return new ResponseEntity<>(sqlStatementMonitor.getStats(Math.max(0, limit)), HttpStatus.OK);
+	}
+}
@@ -0,0 +1,28 @@
+package com.spring.ims.dto;
+
+import java.util.Date;
+
+import com.spring.ims.enums.ChangeType;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * One change feed entry. {@code position} orders the feed and is the cursor.
+ * {@code issue} holds the current state of the issue, it is null for deletions
+ * and for issues that no longer exist.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class IssueChangeDto {
+	
+	private Long changeId;
+	private Long position;
+	private Long issueId;
+	private ChangeType changeType;
+	private Date changedAt;
+	private IssueViewDto issue;
+	
+}
@@ -0,0 +1,22 @@
+package com.spring.ims.dto;
+
+import com.spring.ims.enums.Severity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of issues sharing the same severity, status and responsible.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class IssueCountDto {
+	
+	private Severity severity;
+	private String status;
+	private String responsible;
+	private long count;
+	
+}
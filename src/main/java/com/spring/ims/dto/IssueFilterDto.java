@@ -0,0 +1,19 @@
+package com.spring.ims.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Optional filters applied when listing issues. A null field means
+ * "do not filter on this column".
+ */
+@Getter
+@Setter
+public class IssueFilterDto {
+	
+	private String status;
+	private String severity;
+	private String responsible;
+	private Long userId;
+	
+}
@@ -0,0 +1,21 @@
+package com.spring.ims.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Bulk change of status and/or severity. The issues are selected either by
+ * {@code ids} or, when no ids are given, by {@code filter}.
+ */
+@Getter
+@Setter
+public class IssueTransitionDto {
+	
+	private List<Long> ids;
+	private IssueFilterDto filter;
+	private String status;
+	private String severity;
+	
+}
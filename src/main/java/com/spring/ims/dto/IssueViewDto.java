@@ -0,0 +1,47 @@
+package com.spring.ims.dto;
+
+import com.spring.ims.enums.Severity;
+import com.spring.ims.models.Issue;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Read model of an issue: the issue columns plus the owner's id and username.
+ * {@code version} is sent as the issue's ETag.
+ * Selected directly by {@code IssueRepository} so the owning {@code User} entity
+ * is never loaded or serialized. Instances are not modified after construction
+ * and can be shared through the issue cache.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class IssueViewDto {
+	
+	private Long id;
+	private String title;
+	private String responsible;
+	private String description;
+	private String status;
+	private Severity severity;
+	private Long userId;
+	private String username;
+	private Long version;
+	
+	/**
+	 * Builds the view of an already loaded issue
+	 * 
+	 * @param issue
+	 * 
+	 * @return IssueViewDto
+	 */
+	public static IssueViewDto from(Issue issue) {
+		
+		Long userId = issue.getUser() == null ? null : issue.getUser().getId();
+		String username = issue.getUser() == null ? null : issue.getUser().getUsername();
+		
+		return new IssueViewDto(issue.getId(), issue.getTitle(), issue.getResponsible(), issue.getDescription(),
+				issue.getStatus(), issue.getSeverity(), userId, username, issue.getVersion());
+	}
+}
@@ -0,0 +1,9 @@
+package com.spring.ims.enums;
+
+public enum ChangeType {
+	
+	CREATED,
+	UPDATED,
+	DELETED,
+	ARCHIVED
+}
@@ -1,10 +1,35 @@
 package com.spring.ims.enums;
 
+import com.spring.ims.IConstants.IConstants;
+import com.spring.ims.exception.InvalidInputException;
+
 public enum Severity {
 	
 	CRITICAL,
 	MAJOR,
 	MEDIUM,
-	LOW
+	LOW;
+	
+	/**
+	 * Parses a severity filter value, case insensitive
+	 * 
+	 * @param severity
+	 * 
+	 * @return Severity, null when the value is null or empty
+	 * 
+	 * @throws InvalidInputException
+	 */
+	public static Severity fromName(String severity) throws InvalidInputException {
+		
+		if(severity == null || severity.isEmpty()) {
+			return null;
+		}
+		
+		try {
+			return Severity.valueOf(severity.toUpperCase());
+		}
+		catch(IllegalArgumentException e) {
+			throw new InvalidInputException(IConstants.INVALID_SEVERITY);
+		}
+	}
 }
-
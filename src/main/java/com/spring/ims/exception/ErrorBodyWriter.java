@@ -0,0 +1,107 @@
+package com.spring.ims.exception;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Serializes error bodies with one shared writer. The constant part of a body,
+ * its status and message, is serialized once and reused, only the per-request
+ * fields are written for each error.
+ */
+public class ErrorBodyWriter {
+
+  // Messages are mostly constants, the bound only guards against unusual ones
+  private static final int MAX_CACHED_PREFIXES = 256;
+
+  private final ObjectWriter writer;
+
+  private final ConcurrentMap<String, byte[]> prefixes = new ConcurrentHashMap<>();
+
+  public ErrorBodyWriter(ObjectMapper objectMapper) {
+    this.writer = objectMapper.writer();
+  }
+
+  /**
+   * Writes the body of an {@link ErrorMessage}
+   */
+  public byte[] errorMessage(int statusCode, String message, Date timestamp, String description) {
+    byte[] prefix = prefixes.get(statusCode + ":" + message);
+    if (prefix == null) {
+      Map<String, Object> fields = new LinkedHashMap<>();
+      fields.put("statusCode", statusCode);
+      fields.put("message", message);
+      prefix = cachePrefix(statusCode + ":" + message, fields);
+    }
+
+    return compose(prefix, "timestamp", timestamp, "description", description);
+  }
+
+  /**
+   * Writes the body of a request rejected by the authentication entry point
+   */
+  public byte[] unauthorized(int status, String message, String path) {
+    byte[] prefix = prefixes.get("unauthorized:" + message);
+    if (prefix == null) {
+      Map<String, Object> fields = new LinkedHashMap<>();
+      fields.put("status", status);
+      fields.put("error", "Unauthorized");
+      fields.put("message", message);
+      prefix = cachePrefix("unauthorized:" + message, fields);
+    }
+
+    return compose(prefix, "path", path, null, null);
+  }
+
+  /**
+   * Serializes the constant fields as an unterminated JSON object
+   */
+  private byte[] cachePrefix(String key, Map<String, Object> fields) {
+    byte[] json = writeValue(fields);
+    byte[] prefix = new byte[json.length];
+    System.arraycopy(json, 0, prefix, 0, json.length - 1);
+    prefix[json.length - 1] = ',';
+
+    if (prefixes.size() < MAX_CACHED_PREFIXES) {
+      prefixes.putIfAbsent(key, prefix);
+    }
+    return prefix;
+  }
+
+  private byte[] compose(byte[] prefix, String name, Object value, String secondName, Object secondValue) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(prefix.length + 96);
+    out.write(prefix, 0, prefix.length);
+    writeField(out, name, value);
+    if (secondName != null) {
+      out.write(',');
+      writeField(out, secondName, secondValue);
+    }
+    out.write('}');
+
+    return out.toByteArray();
+  }
+
+  private void writeField(ByteArrayOutputStream out, String name, Object value) {
+    byte[] nameJson = writeValue(name);
+    out.write(nameJson, 0, nameJson.length);
+    out.write(':');
+    byte[] valueJson = writeValue(value);
+    out.write(valueJson, 0, valueJson.length);
+  }
+
+  private byte[] writeValue(Object value) {
+    try {
+      return writer.writeValueAsBytes(value);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -2,45 +2,102 @@ package com.spring.ims.exception;
 
 import java.util.Date;
 
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.ims.IConstants.IConstants;
+
 @ControllerAdvice
 public class GlobalExceptionHandler {
 	
+	  @Autowired
+	  private ObjectMapper objectMapper;
+	  
+	  // Error bodies are written as bytes, with their status and message serialized once
+	  private ErrorBodyWriter errorBodyWriter;
+	  
+	  @PostConstruct
+	  public void init() {
+	    errorBodyWriter = new ErrorBodyWriter(objectMapper);
+	  }
+	
 	 @ExceptionHandler(ResourceNotFoundException.class)
-	  public ResponseEntity<ErrorMessage> resourceNotFoundException(ResourceNotFoundException ex, WebRequest request) {
-	    ErrorMessage message = new ErrorMessage(
-	        HttpStatus.NOT_FOUND.value(),
-	        new Date(),
-	        ex.getMessage(),
-	        request.getDescription(false));
+	  public ResponseEntity<byte[]> resourceNotFoundException(ResourceNotFoundException ex, WebRequest request) {
 	    
-	    return new ResponseEntity<ErrorMessage>(message, HttpStatus.NOT_FOUND);
+	    return errorResponse(HttpStatus.NOT_FOUND, ex.getMessage(), request, null);
 	  }
 
 	  @ExceptionHandler(InvalidInputException.class)
-	  public ResponseEntity<ErrorMessage> globalExceptionHandler(Exception ex, WebRequest request) {
-	    ErrorMessage message = new ErrorMessage(
-	        HttpStatus.BAD_REQUEST.value(),
-	        new Date(),
-	        ex.getMessage(),
-	        request.getDescription(false));
+	  public ResponseEntity<byte[]> globalExceptionHandler(Exception ex, WebRequest request) {
 	    
-	    return new ResponseEntity<ErrorMessage>(message, HttpStatus.BAD_REQUEST);
+	    return errorResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), request, null);
 	  }
 
 	  @ExceptionHandler({EmailAlreadyExistsException.class, UserNameAlreadyExistsException.class})
-	  public ResponseEntity<ErrorMessage> EmailOrUsernameAlreadyExistsException(Exception ex, WebRequest request) {
-	    ErrorMessage message = new ErrorMessage(
-	        HttpStatus.BAD_REQUEST.value(),
-	        new Date(),
-	        ex.getMessage(),
-	        request.getDescription(false));
+	  public ResponseEntity<byte[]> EmailOrUsernameAlreadyExistsException(Exception ex, WebRequest request) {
+	    
+	    return errorResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), request, null);
+	  }
+
+	  @ExceptionHandler(PreconditionFailedException.class)
+	  public ResponseEntity<byte[]> preconditionFailedException(PreconditionFailedException ex, WebRequest request) {
+	    
+	    return errorResponse(HttpStatus.PRECONDITION_FAILED, ex.getMessage(), request, null);
+	  }
+
+	  @ExceptionHandler(InvalidTokenException.class)
+	  public ResponseEntity<byte[]> invalidTokenException(InvalidTokenException ex, WebRequest request) {
+	    
+	    return errorResponse(HttpStatus.UNAUTHORIZED, ex.getMessage(), request, null);
+	  }
+
+	  // Password hashing queue is full or signin attempts are throttled
+	  @ExceptionHandler(TooManyRequestsException.class)
+	  public ResponseEntity<byte[]> tooManyRequestsException(TooManyRequestsException ex, WebRequest request) {
+	    
+	    return errorResponse(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), request, String.valueOf(ex.getRetryAfterSeconds()));
+	  }
+
+	  @ExceptionHandler(ServiceUnavailableException.class)
+	  public ResponseEntity<byte[]> serviceUnavailableException(ServiceUnavailableException ex, WebRequest request) {
+	    
+	    return errorResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), request, "1");
+	  }
+
+	  // A concurrent update changed the version between read and write
+	  @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+	  public ResponseEntity<byte[]> optimisticLockingFailureException(ObjectOptimisticLockingFailureException ex, WebRequest request) {
+	    
+	    return errorResponse(HttpStatus.PRECONDITION_FAILED, IConstants.ISSUE_VERSION_MISMATCH, request, null);
+	  }
+	  
+	  /**
+	   * Builds an {@link ErrorMessage} response
+	   * 
+	   * @param status
+	   * @param message
+	   * @param request
+	   * @param retryAfter Retry-After header value, null for none
+	   * 
+	   * @return {@link ResponseEntity<byte[]>}
+	   */
+	  private ResponseEntity<byte[]> errorResponse(HttpStatus status, String message, WebRequest request, String retryAfter) {
+	    
+	    ResponseEntity.BodyBuilder response = ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON);
+	    if (retryAfter != null) {
+	      response.header(HttpHeaders.RETRY_AFTER, retryAfter);
+	    }
 	    
-	    return new ResponseEntity<ErrorMessage>(message, HttpStatus.BAD_REQUEST);
+	    return response.body(errorBodyWriter.errorMessage(status.value(), message, new Date(), request.getDescription(false)));
 	  }
-}
\ No newline at end of file
+}
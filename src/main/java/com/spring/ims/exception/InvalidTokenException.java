@@ -0,0 +1,10 @@
+package com.spring.ims.exception;
+
+public class InvalidTokenException extends RuntimeException {
+	
+	private static final long serialVersionUID = 1L;
+
+	  public InvalidTokenException(String msg) {
+	    super(msg);
+	  }
+}
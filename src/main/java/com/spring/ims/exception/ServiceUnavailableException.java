@@ -0,0 +1,10 @@
+package com.spring.ims.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+	
+	private static final long serialVersionUID = 1L;
+
+	  public ServiceUnavailableException(String msg) {
+	    super(msg);
+	  }
+}
@@ -0,0 +1,22 @@
+package com.spring.ims.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+	
+	private static final long serialVersionUID = 1L;
+
+	  // Seconds until a retry can succeed, sent as Retry-After
+	  private final long retryAfterSeconds;
+
+	  public TooManyRequestsException(String msg) {
+	    this(msg, 1);
+	  }
+
+	  public TooManyRequestsException(String msg, long retryAfterSeconds) {
+	    super(msg);
+	    this.retryAfterSeconds = retryAfterSeconds;
+	  }
+
+	  public long getRetryAfterSeconds() {
+	    return retryAfterSeconds;
+	  }
+}
@@ -1,5 +1,7 @@
 package com.spring.ims.models;
 
+import java.util.Date;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
@@ -10,10 +12,18 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.Version;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import com.spring.ims.IConstants.IConstants;
 import com.spring.ims.enums.Severity;
 
 import lombok.AllArgsConstructor;
@@ -29,8 +39,10 @@ import lombok.Setter;
 @Setter
 public class Issue {
 	
+	// Pooled sequence ids let Hibernate batch inserts, IDENTITY forces one round trip per row
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "issue_seq")
+	@SequenceGenerator(name = "issue_seq", sequenceName = "issue_seq", allocationSize = IConstants.ISSUE_BATCH_SIZE)
 	private Long id;
 	
 	@NotBlank
@@ -53,7 +65,19 @@ public class Issue {
 	@Column(name = "severity")
 	private Severity severity;
 	
-	@ManyToOne(fetch = FetchType.EAGER)
+	// Incremented on every update, exposed as ETag and checked against If-Match
+	@Version
+	@ColumnDefault("0")
+	@Column(nullable = false)
+	private Long version;
+	
+	// Set on every write, closed issues are archived once it is old enough
+	@UpdateTimestamp
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "updated_at", nullable = false)
+	private Date updatedAt;
+	
+	@ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 }
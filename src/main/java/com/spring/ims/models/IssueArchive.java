@@ -0,0 +1,60 @@
+package com.spring.ims.models;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import com.spring.ims.enums.Severity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * An issue moved out of the live table by the archival job, with its last
+ * state. Rows are only written by the archive move and never updated.
+ */
+@Entity
+@Table(name = "issue_archive")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class IssueArchive {
+	
+	@Id
+	private Long id;
+	
+	private String title;
+	
+	private String responsible;
+	
+	private String description;
+	
+	private String status;
+	
+	@Enumerated(EnumType.STRING)
+	private Severity severity;
+	
+	@Column(nullable = false)
+	private Long version;
+	
+	@Column(name = "user_id")
+	private Long userId;
+	
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "updated_at", nullable = false)
+	private Date updatedAt;
+	
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "archived_at", nullable = false)
+	private Date archivedAt;
+}
@@ -0,0 +1,57 @@
+package com.spring.ims.models;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import com.spring.ims.IConstants.IConstants;
+import com.spring.ims.enums.ChangeType;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One entry of the issue change log. {@code feedPosition} is the change feed
+ * cursor, it is null until the entry is sequenced after its commit.
+ * {@code issueId} is not a foreign key, entries outlive deleted issues.
+ */
+@Entity
+@Table(name = "issue_change")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class IssueChange {
+	
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "issue_change_seq")
+	@SequenceGenerator(name = "issue_change_seq", sequenceName = "issue_change_seq", allocationSize = IConstants.ISSUE_BATCH_SIZE)
+	private Long id;
+	
+	@Column(name = "issue_id", nullable = false)
+	private Long issueId;
+	
+	@Enumerated(EnumType.STRING)
+	@Column(name = "change_type", length = 10, nullable = false)
+	private ChangeType changeType;
+	
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "changed_at", nullable = false)
+	private Date changedAt;
+	
+	// Only written by the sequencer
+	@Column(name = "feed_position", insertable = false, updatable = false)
+	private Long feedPosition;
+}
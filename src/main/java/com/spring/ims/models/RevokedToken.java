@@ -0,0 +1,35 @@
+package com.spring.ims.models;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A revoked token id. Rows are only needed until the token would have expired.
+ */
+@Entity
+@Table(name = "revoked_token")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class RevokedToken {
+	
+	@Id
+	@Column(length = 36)
+	private String id;
+	
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "expires_at", nullable = false)
+	private Date expiresAt;
+}
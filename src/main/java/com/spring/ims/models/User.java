@@ -8,6 +8,10 @@ import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
 
+import org.hibernate.annotations.ColumnDefault;
+
+import com.spring.ims.IConstants.IConstants;
+
 @Entity
 @Table(name = "users", 
     uniqueConstraints = { 
@@ -15,8 +19,10 @@ import javax.validation.constraints.Size;
       @UniqueConstraint(columnNames = "email") 
     })
 public class User {
+  // Pooled sequence ids let Hibernate batch inserts of provisioned users
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+  @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = IConstants.USER_BATCH_SIZE)
   private Long id;
 
   @NotBlank
@@ -38,6 +44,11 @@ public class User {
         inverseJoinColumns = @JoinColumn(name = "role_id"))
   private Set<Role> roles = new HashSet<>();
 
+  // Embedded in issued tokens, incrementing it invalidates them
+  @ColumnDefault("0")
+  @Column(name = "token_version", nullable = false)
+  private Long tokenVersion = 0L;
+
   public User() {
   }
 
@@ -86,4 +97,12 @@ public class User {
   public void setRoles(Set<Role> roles) {
     this.roles = roles;
   }
+
+  public Long getTokenVersion() {
+    return tokenVersion;
+  }
+
+  public void setTokenVersion(Long tokenVersion) {
+    this.tokenVersion = tokenVersion;
+  }
 }
@@ -0,0 +1,18 @@
+package com.spring.ims.payload.request;
+
+import java.util.Set;
+
+import javax.validation.constraints.NotEmpty;
+
+public class RoleUpdateRequest {
+  @NotEmpty
+  private Set<String> role;
+
+  public Set<String> getRole() {
+    return this.role;
+  }
+
+  public void setRole(Set<String> role) {
+    this.role = role;
+  }
+}
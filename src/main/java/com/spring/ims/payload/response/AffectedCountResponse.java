@@ -0,0 +1,15 @@
+package com.spring.ims.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class AffectedCountResponse {
+
+  private long affected;
+}
@@ -0,0 +1,19 @@
+package com.spring.ims.payload.response;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class AuthRejectionStatsResponse {
+
+  private long totalCount;
+  private long suppressedLogCount;
+  private Map<String, Long> rejections;
+}
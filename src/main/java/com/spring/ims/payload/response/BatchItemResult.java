@@ -0,0 +1,21 @@
+package com.spring.ims.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Outcome of one item of a batch request: the id of the created row, or the
+ * reason it was rejected.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class BatchItemResult {
+
+  private int index;
+  private Long id;
+  private String error;
+}
@@ -0,0 +1,19 @@
+package com.spring.ims.payload.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class BatchResponse {
+
+  private int created;
+  private int failed;
+  private List<BatchItemResult> results;
+}
@@ -0,0 +1,27 @@
+package com.spring.ims.payload.response;
+
+import java.util.List;
+
+import com.spring.ims.dto.IssueChangeDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One page of the issue change feed. {@code nextCursor} is always set and is
+ * passed back as {@code since} on the next poll, {@code hasMore} tells whether
+ * further changes are already waiting. The cursor is a feed position, which
+ * follows commit order, not a change id.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ChangeFeedResponse {
+
+  private List<IssueChangeDto> content;
+  private Long nextCursor;
+  private boolean hasMore;
+}
@@ -12,14 +12,16 @@ import lombok.Setter;
 public class JwtResponse {
 	
   private String token;
+  private String refreshToken;
   private String type = "Bearer";
   private Long id;
   private String username;
   private String email;
   private List<String> roles;
 
-  public JwtResponse(String accessToken, Long id, String username, String email, List<String> roles) {
+  public JwtResponse(String accessToken, String refreshToken, Long id, String username, String email, List<String> roles) {
     this.token = accessToken;
+    this.refreshToken = refreshToken;
     this.id = id;
     this.username = username;
     this.email = email;
@@ -0,0 +1,20 @@
+package com.spring.ims.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class LoginThrottleStatsResponse {
+
+  private long allowedCount;
+  private long throttledByUserCount;
+  private long throttledByIpCount;
+  private long trackedUsers;
+  private long trackedIps;
+  private long evictedBuckets;
+}
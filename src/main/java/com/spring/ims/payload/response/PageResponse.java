@@ -0,0 +1,23 @@
+package com.spring.ims.payload.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One page of a keyset paginated listing. {@code nextCursor} is the id to pass
+ * back as {@code cursor} to fetch the following page, or null on the last page.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class PageResponse<T> {
+
+  private List<T> content;
+  private Long nextCursor;
+  private int size;
+}
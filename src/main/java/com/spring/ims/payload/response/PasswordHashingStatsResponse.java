@@ -0,0 +1,24 @@
+package com.spring.ims.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class PasswordHashingStatsResponse {
+
+  private int poolSize;
+  private int activeCount;
+  private int queueDepth;
+  private int queueCapacity;
+  private long completedCount;
+  private long rejectedCount;
+  private long timedOutCount;
+  private double averageWaitMs;
+  private double averageHashMs;
+  private double maxHashMs;
+}
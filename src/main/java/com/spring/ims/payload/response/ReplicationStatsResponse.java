@@ -0,0 +1,22 @@
+package com.spring.ims.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ReplicationStatsResponse {
+
+  private boolean enabled;
+  private boolean replicaAvailable;
+  private long lagMs;
+  private long maxLagMs;
+  private long replicaReads;
+  private long primaryReads;
+  private long lagFallbacks;
+  private long readYourWritesFallbacks;
+}
@@ -0,0 +1,23 @@
+package com.spring.ims.payload.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One page of ranked search results, best match first.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class SearchResponse<T> {
+
+  private List<T> content;
+  private long totalHits;
+  private int page;
+  private int size;
+}
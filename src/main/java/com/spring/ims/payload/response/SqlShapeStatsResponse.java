@@ -0,0 +1,29 @@
+package com.spring.ims.payload.response;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class SqlShapeStatsResponse {
+
+  private String sql;
+  private long count;
+  private long rows;
+  private long slowCount;
+  private double totalMs;
+  private double meanMs;
+  private double maxMs;
+  private double p50Ms;
+  private double p95Ms;
+  private double p99Ms;
+  private List<Long> histogram;
+  private Map<String, Long> endpoints;
+}
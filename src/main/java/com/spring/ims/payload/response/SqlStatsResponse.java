@@ -0,0 +1,24 @@
+package com.spring.ims.payload.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class SqlStatsResponse {
+
+  private long totalStatements;
+  private long slowStatements;
+  private long suppressedSlowLogs;
+  private long untrackedStatements;
+  private int trackedShapes;
+  private long slowQueryMs;
+  private List<Long> histogramBoundsMs;
+  private List<SqlShapeStatsResponse> shapes;
+}
@@ -0,0 +1,34 @@
+package com.spring.ims.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.spring.ims.dto.IssueViewDto;
+import com.spring.ims.models.IssueArchive;
+
+@Repository
+public interface IssueArchiveRepository extends JpaRepository<IssueArchive, Long>, IssueArchiveRepositoryCustom {
+
+	/**
+	 * Archived issue columns plus the owner's id and username, same shape as
+	 * {@link IssueRepository#findViewById(Long)}.
+	 */
+	@Query("SELECT new com.spring.ims.dto.IssueViewDto(a.id, a.title, a.responsible, a.description,"
+			+ " a.status, a.severity, a.userId, u.username, a.version)"
+			+ " FROM IssueArchive a LEFT JOIN User u ON u.id = a.userId WHERE a.id = :id")
+	Optional<IssueViewDto> findViewById(@Param("id") Long id);
+
+	/**
+	 * Deletes an archived issue in one statement.
+	 * 
+	 * @return number of deleted rows, 0 if the issue is not archived
+	 */
+	@Modifying
+	@Query("DELETE FROM IssueArchive a WHERE a.id = :id")
+	int deleteArchivedById(@Param("id") Long id);
+}
@@ -0,0 +1,23 @@
+package com.spring.ims.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import com.spring.ims.models.Issue;
+
+/**
+ * Archive statements that read back the rows they changed, implemented with
+ * H2 data change delta tables in {@link IssueArchiveRepositoryImpl}.
+ */
+public interface IssueArchiveRepositoryCustom {
+
+	/**
+	 * Moves the given issues into the archive in one statement. Status and age
+	 * are checked again by the DELETE, so an issue reopened since it was
+	 * selected stays live.
+	 * 
+	 * @return the moved issues with id, severity, status and responsible set
+	 */
+	List<Issue> moveFromIssues(Collection<Long> ids, Collection<String> statuses, Date cutoff, Date archivedAt);
+}
@@ -0,0 +1,37 @@
+package com.spring.ims.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import com.spring.ims.models.Issue;
+
+public class IssueArchiveRepositoryImpl implements IssueArchiveRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Override
+	public List<Issue> moveFromIssues(Collection<Long> ids, Collection<String> statuses, Date cutoff, Date archivedAt) {
+		
+		entityManager.flush();
+		
+		// The archive rows are read from the delta table of the INSERT, which reads the deleted ones
+		@SuppressWarnings("unchecked")
+		List<Object[]> rows = entityManager.createNativeQuery("SELECT id, severity, status, responsible FROM FINAL TABLE ("
+						+ "INSERT INTO issue_archive"
+						+ " (id, title, responsible, description, status, severity, version, user_id, updated_at, archived_at)"
+						+ " SELECT id, title, responsible, description, status, severity, version, user_id, updated_at, :archivedAt"
+						+ " FROM OLD TABLE (DELETE FROM issue WHERE id IN (:ids) AND status IN (:statuses) AND updated_at < :cutoff))")
+				.setParameter("ids", ids)
+				.setParameter("statuses", statuses)
+				.setParameter("cutoff", cutoff)
+				.setParameter("archivedAt", archivedAt)
+				.getResultList();
+		
+		return IssueRepositoryImpl.groupings(rows);
+	}
+}
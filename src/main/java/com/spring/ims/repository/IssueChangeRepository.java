@@ -0,0 +1,27 @@
+package com.spring.ims.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.spring.ims.models.IssueChange;
+
+@Repository
+public interface IssueChangeRepository extends JpaRepository<IssueChange, Long> {
+
+  List<IssueChange> findByFeedPositionGreaterThanOrderByFeedPositionAsc(Long feedPosition, Pageable pageable);
+
+  // Held until the end of the sequencing transaction
+  @Query(value = "SELECT id FROM issue_change_feed_lock WHERE id = 1 FOR UPDATE", nativeQuery = true)
+  Integer lockFeed();
+
+  // Only sees committed entries
+  @Modifying
+  @Query(value = "UPDATE issue_change SET feed_position = NEXT VALUE FOR issue_change_feed_seq"
+      + " WHERE feed_position IS NULL", nativeQuery = true)
+  int sequencePending();
+}
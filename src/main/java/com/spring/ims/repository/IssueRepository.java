@@ -1,11 +1,99 @@
 package com.spring.ims.repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.spring.ims.IConstants.IConstants;
+import com.spring.ims.dto.IssueCountDto;
+import com.spring.ims.dto.IssueViewDto;
 import com.spring.ims.models.Issue;
 
 @Repository
-public interface IssueRepository extends JpaRepository<Issue, Long>{
+public interface IssueRepository extends JpaRepository<Issue, Long>, IssueRepositoryCustom {
 
+	/**
+	 * Issue entity with its owner in one statement, for updates that return the
+	 * issue view.
+	 */
+	@EntityGraph(attributePaths = "user")
+	Optional<Issue> findWithUserById(Long id);
+	
+	/**
+	 * Every issue entity with its owner in one statement.
+	 */
+	@EntityGraph(attributePaths = "user")
+	@Query("SELECT i FROM Issue i")
+	List<Issue> findAllWithUser();
+	
+	/**
+	 * Issue columns plus the owner's id and username of a single issue.
+	 */
+	@Query("SELECT new com.spring.ims.dto.IssueViewDto(i.id, i.title, i.responsible, i.description,"
+			+ " i.status, i.severity, u.id, u.username, i.version)"
+			+ " FROM Issue i LEFT JOIN i.user u WHERE i.id = :id")
+	Optional<IssueViewDto> findViewById(@Param("id") Long id);
+	
+	/**
+	 * Issue views of the given ids, in no particular order.
+	 */
+	@Query("SELECT new com.spring.ims.dto.IssueViewDto(i.id, i.title, i.responsible, i.description,"
+			+ " i.status, i.severity, u.id, u.username, i.version)"
+			+ " FROM Issue i LEFT JOIN i.user u WHERE i.id IN :ids")
+	List<IssueViewDto> findViewsByIds(@Param("ids") List<Long> ids);
+	
+	/**
+	 * Ids of up to a page of issues in one of the given statuses, last written
+	 * before {@code cutoff}. Unordered, so the status index range is read only
+	 * until the page is full.
+	 */
+	@Query("SELECT i.id FROM Issue i WHERE i.status IN :statuses AND i.updatedAt < :cutoff")
+	List<Long> findArchivableIds(@Param("statuses") Collection<String> statuses,
+			@Param("cutoff") Date cutoff,
+			Pageable pageable);
+	
+	/**
+	 * Streams every issue with its owner, ordered by id. Rows are pulled from the
+	 * JDBC cursor in chunks of {@link IConstants#EXPORT_FETCH_SIZE}. Must be consumed
+	 * inside a transaction and closed afterwards.
+	 */
+	@QueryHints({
+		@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + IConstants.EXPORT_FETCH_SIZE),
+		@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+		@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "false")
+	})
+	@Query("SELECT i FROM Issue i LEFT JOIN FETCH i.user ORDER BY i.id ASC")
+	Stream<Issue> streamAllWithUser();
+	
+	/**
+	 * Streams the view of every issue, ordered by id. Same cursor settings as
+	 * {@link #streamAllWithUser()}, but nothing is attached to the persistence context.
+	 */
+	@QueryHints({
+		@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + IConstants.EXPORT_FETCH_SIZE),
+		@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "false")
+	})
+	@Query("SELECT new com.spring.ims.dto.IssueViewDto(i.id, i.title, i.responsible, i.description,"
+			+ " i.status, i.severity, u.id, u.username, i.version)"
+			+ " FROM Issue i LEFT JOIN i.user u ORDER BY i.id ASC")
+	Stream<IssueViewDto> streamAllViews();
+	
+	/**
+	 * Number of issues per severity, status and responsible.
+	 */
+	@Query("SELECT new com.spring.ims.dto.IssueCountDto(i.severity, i.status, i.responsible, COUNT(i))"
+			+ " FROM Issue i GROUP BY i.severity, i.status, i.responsible")
+	List<IssueCountDto> countBySeverityStatusResponsible();
 }
@@ -0,0 +1,65 @@
+package com.spring.ims.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+
+import com.spring.ims.dto.IssueViewDto;
+import com.spring.ims.enums.Severity;
+import com.spring.ims.models.Issue;
+
+/**
+ * Issue queries whose statement shape depends on which arguments are set,
+ * implemented with the Criteria API in {@link IssueRepositoryImpl}.
+ */
+public interface IssueRepositoryCustom {
+
+	/**
+	 * Sets status and/or severity of the given issues in one UPDATE statement.
+	 * A null new value leaves that column unchanged.
+	 * 
+	 * @return number of updated rows
+	 */
+	int transitionByIds(List<Long> ids, String newStatus, Severity newSeverity);
+	
+	/**
+	 * Up to {@code limit} issues matching the filter with an id greater than
+	 * {@code afterId}, in id order, locked for update until the end of the
+	 * transaction. Only id, severity, status and responsible are set. Null
+	 * filter values are ignored.
+	 */
+	List<Issue> lockPageByFilter(Long afterId, String status, Severity severity, String responsible,
+			Long userId, int limit);
+	
+	/**
+	 * The given issues that exist, locked for update until the end of the
+	 * transaction. Only id, severity, status and responsible are set.
+	 */
+	List<Issue> lockGroupingsByIds(Collection<Long> ids);
+	
+	/**
+	 * Deletes the issue in one statement, reading the deleted row from H2's
+	 * delta table of the DELETE.
+	 * 
+	 * @return the deleted issue with id, severity, status and responsible set,
+	 * empty if there was none
+	 */
+	Optional<Issue> deleteByIdReturning(Long id);
+	
+	/**
+	 * Deletes the given issues in one statement, see {@link #deleteByIdReturning(Long)}.
+	 * 
+	 * @return the deleted issues with id, severity, status and responsible set
+	 */
+	List<Issue> deleteByIdsReturning(Collection<Long> ids);
+	
+	/**
+	 * Keyset page of issue views with an id greater than {@code afterId}, ordered by id.
+	 * Null filter values are left out of the statement, so the filter columns' indexes
+	 * can be used. The page size is taken from {@code pageable}.
+	 */
+	List<IssueViewDto> findViewPageAfter(Long afterId, String status, Severity severity, String responsible,
+			Long userId, Pageable pageable);
+}
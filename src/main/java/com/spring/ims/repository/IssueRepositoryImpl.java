@@ -0,0 +1,239 @@
+package com.spring.ims.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.domain.Pageable;
+
+import com.spring.ims.dto.IssueViewDto;
+import com.spring.ims.enums.Severity;
+import com.spring.ims.models.Issue;
+import com.spring.ims.models.User;
+
+public class IssueRepositoryImpl implements IssueRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Override
+	public int transitionByIds(List<Long> ids, String newStatus, Severity newSeverity) {
+		
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaUpdate<Issue> update = transitionUpdate(cb, newStatus, newSeverity);
+		Root<Issue> issue = update.getRoot();
+		
+		update.where(issue.get("id").in(ids));
+		
+		return execute(update);
+	}
+	
+	@Override
+	public List<Issue> lockPageByFilter(Long afterId, String status, Severity severity, String responsible,
+			Long userId, int limit) {
+		
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Issue> issue = query.from(Issue.class);
+		
+		List<Predicate> predicates = new ArrayList<>();
+		predicates.add(cb.greaterThan(issue.<Long>get("id"), afterId));
+		for(Predicate predicate : filterPredicates(cb, issue, status, severity, responsible, userId)) {
+			predicates.add(predicate);
+		}
+		
+		query.multiselect(issue.get("id"), issue.get("severity"), issue.get("status"), issue.get("responsible"))
+				.where(predicates.toArray(new Predicate[0]))
+				.orderBy(cb.asc(issue.get("id")));
+		
+		return lockGroupings(query, limit);
+	}
+	
+	@Override
+	public List<Issue> lockGroupingsByIds(Collection<Long> ids) {
+		
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Issue> issue = query.from(Issue.class);
+		
+		query.multiselect(issue.get("id"), issue.get("severity"), issue.get("status"), issue.get("responsible"))
+				.where(issue.get("id").in(ids));
+		
+		return lockGroupings(query, ids.size());
+	}
+	
+	@Override
+	public Optional<Issue> deleteByIdReturning(Long id) {
+		
+		List<Issue> deleted = deleteReturning("id = :id", "id", id);
+		
+		return deleted.isEmpty() ? Optional.empty() : Optional.of(deleted.get(0));
+	}
+	
+	@Override
+	public List<Issue> deleteByIdsReturning(Collection<Long> ids) {
+		
+		return deleteReturning("id IN (:ids)", "ids", ids);
+	}
+	
+	@Override
+	public List<IssueViewDto> findViewPageAfter(Long afterId, String status, Severity severity, String responsible,
+			Long userId, Pageable pageable) {
+		
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<IssueViewDto> query = cb.createQuery(IssueViewDto.class);
+		Root<Issue> issue = query.from(Issue.class);
+		Join<Issue, User> user = issue.join("user", JoinType.LEFT);
+		
+		List<Predicate> predicates = new ArrayList<>();
+		predicates.add(cb.greaterThan(issue.<Long>get("id"), afterId));
+		for(Predicate predicate : filterPredicates(cb, issue, status, severity, responsible, userId)) {
+			predicates.add(predicate);
+		}
+		
+		query.select(cb.construct(IssueViewDto.class,
+						issue.get("id"), issue.get("title"), issue.get("responsible"), issue.get("description"),
+						issue.get("status"), issue.get("severity"), user.get("id"), user.get("username"),
+						issue.get("version")))
+				.where(predicates.toArray(new Predicate[0]))
+				.orderBy(cb.asc(issue.get("id")));
+		
+		return entityManager.createQuery(query)
+				.setMaxResults(pageable.getPageSize())
+				.getResultList();
+	}
+	
+	/**
+	 * Runs an (id, severity, status, responsible) query locking the selected rows,
+	 * and builds detached issues from them
+	 */
+	private List<Issue> lockGroupings(CriteriaQuery<Tuple> query, int limit) {
+		
+		// Keeps the rows from changing between this select and the bulk statement that follows
+		List<Tuple> rows = entityManager.createQuery(query)
+				.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+				.setMaxResults(limit)
+				.getResultList();
+		
+		List<Issue> issues = new ArrayList<>(rows.size());
+		for(Tuple row : rows) {
+			Issue locked = new Issue();
+			locked.setId(row.get(0, Long.class));
+			locked.setSeverity(row.get(1, Severity.class));
+			locked.setStatus(row.get(2, String.class));
+			locked.setResponsible(row.get(3, String.class));
+			issues.add(locked);
+		}
+		
+		return issues;
+	}
+	
+	/**
+	 * Builds the SET part of a transition, only for the values that change,
+	 * bumps the version and sets the update time
+	 */
+	private CriteriaUpdate<Issue> transitionUpdate(CriteriaBuilder cb, String newStatus, Severity newSeverity) {
+		
+		CriteriaUpdate<Issue> update = cb.createCriteriaUpdate(Issue.class);
+		Root<Issue> issue = update.from(Issue.class);
+		
+		if(newStatus != null) {
+			update.set(issue.<String>get("status"), newStatus);
+		}
+		if(newSeverity != null) {
+			update.set(issue.<Severity>get("severity"), newSeverity);
+		}
+		
+		// Changes the ETag of every updated issue
+		update.set(issue.<Long>get("version"), cb.sum(issue.<Long>get("version"), 1L));
+		update.set(issue.<Date>get("updatedAt"), new Date());
+		
+		return update;
+	}
+	
+	/**
+	 * Builds one equality predicate for every filter value that is set
+	 */
+	private Predicate[] filterPredicates(CriteriaBuilder cb, Root<Issue> issue, String status, Severity severity,
+			String responsible, Long userId) {
+		
+		List<Predicate> predicates = new ArrayList<>();
+		
+		if(status != null) {
+			predicates.add(cb.equal(issue.get("status"), status));
+		}
+		if(severity != null) {
+			predicates.add(cb.equal(issue.get("severity"), severity));
+		}
+		if(responsible != null) {
+			predicates.add(cb.equal(issue.get("responsible"), responsible));
+		}
+		if(userId != null) {
+			predicates.add(cb.equal(issue.get("user").get("id"), userId));
+		}
+		
+		return predicates.toArray(new Predicate[0]);
+	}
+	
+	/**
+	 * Deletes the matching issues and builds detached issues from the deleted
+	 * rows, with the columns the statistics group by
+	 */
+	private List<Issue> deleteReturning(String condition, String parameter, Object value) {
+		
+		entityManager.flush();
+		
+		@SuppressWarnings("unchecked")
+		List<Object[]> rows = entityManager.createNativeQuery("SELECT id, severity, status, responsible"
+						+ " FROM OLD TABLE (DELETE FROM issue WHERE " + condition + ")")
+				.setParameter(parameter, value)
+				.getResultList();
+		
+		return groupings(rows);
+	}
+	
+	/**
+	 * Builds detached issues from (id, severity, status, responsible) rows
+	 */
+	static List<Issue> groupings(List<Object[]> rows) {
+		
+		List<Issue> issues = new ArrayList<>(rows.size());
+		for(Object[] row : rows) {
+			Issue issue = new Issue();
+			issue.setId(((Number) row[0]).longValue());
+			issue.setSeverity(row[1] == null ? null : Severity.valueOf((String) row[1]));
+			issue.setStatus((String) row[2]);
+			issue.setResponsible((String) row[3]);
+			issues.add(issue);
+		}
+		
+		return issues;
+	}
+	
+	/**
+	 * Runs a bulk statement. Pending changes are flushed first and the persistence
+	 * context is cleared afterwards, since loaded issues no longer match the table.
+	 */
+	private int execute(CriteriaUpdate<Issue> update) {
+		
+		entityManager.flush();
+		int updated = entityManager.createQuery(update).executeUpdate();
+		entityManager.clear();
+		
+		return updated;
+	}
+}
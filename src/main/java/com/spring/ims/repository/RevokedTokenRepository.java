@@ -0,0 +1,25 @@
+package com.spring.ims.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.spring.ims.models.RevokedToken;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+  @Query("SELECT t.id FROM RevokedToken t WHERE t.expiresAt > :now")
+  List<String> findActiveIds(@Param("now") Date now);
+
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM RevokedToken t WHERE t.expiresAt <= :now")
+  int deleteExpired(@Param("now") Date now);
+}
@@ -1,8 +1,14 @@
 package com.spring.ims.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.spring.ims.models.User;
@@ -12,7 +18,37 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
   Optional<User> findByUsername(String username);
 
+  /**
+   * User with its roles in one statement, for building user details.
+   */
+  @EntityGraph(attributePaths = "roles")
+  Optional<User> findWithRolesByUsername(String username);
+
+  /**
+   * User with its roles in one statement, for refreshing tokens.
+   */
+  @EntityGraph(attributePaths = "roles")
+  Optional<User> findWithRolesById(Long id);
+
   Boolean existsByUsername(String username);
 
   Boolean existsByEmail(String email);
+
+  @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+  List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+  @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+  List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+  @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+  Optional<Long> findTokenVersionById(@Param("id") Long id);
+
+  /**
+   * Increments the token version in the row itself, so concurrent increments
+   * are not lost. Pending changes are flushed first and the persistence
+   * context is cleared, since loaded users keep the old version.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :id")
+  int incrementTokenVersion(@Param("id") Long id);
 }
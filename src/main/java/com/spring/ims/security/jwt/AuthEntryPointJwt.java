@@ -1,43 +1,50 @@
 package com.spring.ims.security.jwt;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.ims.exception.ErrorBodyWriter;
 
 @Component
 public class AuthEntryPointJwt implements AuthenticationEntryPoint {
 
-  private static final Logger logger = LoggerFactory.getLogger(AuthEntryPointJwt.class);
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private AuthRejectionMonitor rejectionMonitor;
+
+  // Shared by all requests, the status and message part of each body is serialized once
+  private ErrorBodyWriter errorBodyWriter;
+
+  @PostConstruct
+  public void init() {
+    errorBodyWriter = new ErrorBodyWriter(objectMapper);
+  }
 
   @Override
   public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException)
       throws IOException, ServletException {
-    logger.error("Unauthorized error: {}", authException.getMessage());
+    rejectionMonitor.record(AuthRejectionMonitor.Reason.UNAUTHORIZED, authException.getMessage());
+
+    byte[] body = errorBodyWriter.unauthorized(HttpServletResponse.SC_UNAUTHORIZED, authException.getMessage(),
+        request.getServletPath());
 
     response.setContentType(MediaType.APPLICATION_JSON_VALUE);
     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-
-    final Map<String, Object> body = new HashMap<>();
-    body.put("status", HttpServletResponse.SC_UNAUTHORIZED);
-    body.put("error", "Unauthorized");
-    body.put("message", authException.getMessage());
-    body.put("path", request.getServletPath());
-
-    final ObjectMapper mapper = new ObjectMapper();
-    mapper.writeValue(response.getOutputStream(), body);
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
   }
 
 }
@@ -0,0 +1,101 @@
+package com.spring.ims.security.jwt;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.spring.ims.payload.response.AuthRejectionStatsResponse;
+
+/**
+ * Counts rejected tokens and unauthorized requests by reason. Every rejection
+ * is counted, but at most one per reason is logged per interval, together with
+ * the number of rejections suppressed since the previous log line.
+ */
+@Component
+public class AuthRejectionMonitor {
+
+  private static final Logger logger = LoggerFactory.getLogger(AuthRejectionMonitor.class);
+
+  public enum Reason {
+    INVALID_SIGNATURE,
+    MALFORMED_TOKEN,
+    EXPIRED_TOKEN,
+    UNSUPPORTED_TOKEN,
+    EMPTY_TOKEN,
+    REPEATED_INVALID_TOKEN,
+    REFRESH_AS_ACCESS_TOKEN,
+    REVOKED_TOKEN,
+    OUTDATED_TOKEN_VERSION,
+    AUTHENTICATION_ERROR,
+    UNAUTHORIZED
+  }
+
+  private static final Reason[] REASONS = Reason.values();
+
+  @Value("${spring.app.authRejectionLogIntervalMs:10000}")
+  private long logIntervalMs;
+
+  private final LongAdder[] counts = new LongAdder[REASONS.length];
+  private final LongAdder[] suppressed = new LongAdder[REASONS.length];
+  private final AtomicLong[] nextLogAt = new AtomicLong[REASONS.length];
+
+  public AuthRejectionMonitor() {
+    for (int i = 0; i < REASONS.length; i++) {
+      counts[i] = new LongAdder();
+      suppressed[i] = new LongAdder();
+      nextLogAt[i] = new AtomicLong();
+    }
+  }
+
+  public void record(Reason reason, String detail) {
+    record(reason, detail, null);
+  }
+
+  /**
+   * Counts the rejection and logs it if no rejection of the same reason was
+   * logged during the current interval. The stack trace of {@code error} is
+   * only logged with the sampled line.
+   */
+  public void record(Reason reason, String detail, Throwable error) {
+    int i = reason.ordinal();
+    counts[i].increment();
+
+    long now = System.currentTimeMillis();
+    long next = nextLogAt[i].get();
+    if (now >= next && nextLogAt[i].compareAndSet(next, now + logIntervalMs)) {
+      long skipped = suppressed[i].sumThenReset();
+      if (error != null) {
+        logger.warn("Authentication rejected ({}): {}, {} similar suppressed", reason, detail, skipped, error);
+      } else {
+        logger.warn("Authentication rejected ({}): {}, {} similar suppressed", reason, detail, skipped);
+      }
+    } else {
+      suppressed[i].increment();
+      logger.debug("Authentication rejected ({}): {}", reason, detail);
+    }
+  }
+
+  public long getCount(Reason reason) {
+    return counts[reason.ordinal()].sum();
+  }
+
+  public AuthRejectionStatsResponse getStats() {
+    Map<String, Long> rejections = new LinkedHashMap<>();
+    long total = 0;
+    long suppressedTotal = 0;
+    for (int i = 0; i < REASONS.length; i++) {
+      long count = counts[i].sum();
+      rejections.put(REASONS[i].name(), count);
+      total += count;
+      suppressedTotal += suppressed[i].sum();
+    }
+
+    return new AuthRejectionStatsResponse(total, suppressedTotal, rejections);
+  }
+}
@@ -7,9 +7,8 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,8 +16,13 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.spring.ims.security.jwt.AuthRejectionMonitor.Reason;
+import com.spring.ims.security.services.TokenRevocationService;
+import com.spring.ims.security.services.UserDetailsImpl;
 import com.spring.ims.security.services.UserDetailsServiceImpl;
 
+import io.jsonwebtoken.Claims;
+
 public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private JwtUtils jwtUtils;
@@ -26,33 +30,89 @@ public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
-  private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
+  @Autowired
+  private TokenRevocationService tokenRevocationService;
+
+  // Builds the principal from the token claims instead of loading the user
+  @Value("${spring.app.jwtClaimsAuth:true}")
+  private boolean claimsAuth;
+
+  // Rejects claims-based tokens whose user version has changed since they were issued
+  @Value("${spring.app.jwtCheckTokenVersion:true}")
+  private boolean checkTokenVersion;
+
+  @Autowired
+  private AuthRejectionMonitor rejectionMonitor;
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-        UsernamePasswordAuthenticationToken authentication =
-            new UsernamePasswordAuthenticationToken(
-                userDetails,
-                null,
-                userDetails.getAuthorities());
-        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+      Claims claims = jwt == null ? null : jwtUtils.getClaimsFromJwtToken(jwt);
+      if (claims != null && isUsableAccessToken(claims)) {
+        UserDetails userDetails = loadUserDetails(claims);
+
+        if (userDetails != null) {
+          UsernamePasswordAuthenticationToken authentication =
+              new UsernamePasswordAuthenticationToken(
+                  userDetails,
+                  null,
+                  userDetails.getAuthorities());
+          authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+          SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
       }
     } catch (Exception e) {
-      logger.error("Cannot set user authentication: {}", e);
+      rejectionMonitor.record(Reason.AUTHENTICATION_ERROR, "Cannot set user authentication: " + e.getMessage(), e);
     }
 
     filterChain.doFilter(request, response);
   }
 
+  /**
+   * Refresh tokens are only accepted by the refresh endpoint. Revocation is an
+   * in-memory Bloom filter check, the database is only asked on a filter hit.
+   */
+  private boolean isUsableAccessToken(Claims claims) {
+
+    if (jwtUtils.isRefreshToken(claims)) {
+      rejectionMonitor.record(Reason.REFRESH_AS_ACCESS_TOKEN, claims.getSubject());
+      return false;
+    }
+
+    if (claims.getId() != null && tokenRevocationService.isRevoked(claims.getId())) {
+      rejectionMonitor.record(Reason.REVOKED_TOKEN, claims.getSubject());
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Resolves the principal of a verified token. Tokens issued before the user
+   * claims were added fall back to loading the user.
+   * 
+   * @return the principal, or null if the token has been invalidated
+   */
+  private UserDetails loadUserDetails(Claims claims) {
+
+    UserDetailsImpl userDetails = claimsAuth ? jwtUtils.getUserDetailsFromClaims(claims) : null;
+
+    if (userDetails == null) {
+      return userDetailsService.loadUserWithoutPassword(claims.getSubject());
+    }
+
+    if (checkTokenVersion
+        && !userDetailsService.isTokenVersionCurrent(userDetails.getId(), userDetails.getTokenVersion())) {
+      rejectionMonitor.record(Reason.OUTDATED_TOKEN_VERSION, userDetails.getUsername());
+      return null;
+    }
+
+    return userDetails;
+  }
+
   private String parseJwt(HttpServletRequest request) {
     String headerAuth = request.getHeader("Authorization");
 
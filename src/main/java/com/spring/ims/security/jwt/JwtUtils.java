@@ -1,20 +1,44 @@
 package com.spring.ims.security.jwt;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.spring.ims.security.jwt.AuthRejectionMonitor.Reason;
 import com.spring.ims.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
 
 @Component
 public class JwtUtils {
-  private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
+  public static final String CLAIM_USER_ID = "uid";
+  public static final String CLAIM_EMAIL = "email";
+  public static final String CLAIM_ROLES = "roles";
+  public static final String CLAIM_TOKEN_VERSION = "ver";
+  public static final String CLAIM_TOKEN_TYPE = "type";
+
+  public static final String TOKEN_TYPE_ACCESS = "access";
+  public static final String TOKEN_TYPE_REFRESH = "refresh";
 
   @Value("${spring.app.jwtSecret}")
   private String jwtSecret;
@@ -22,38 +46,202 @@ public class JwtUtils {
   @Value("${spring.app.jwtExpirationMs}")
   private int jwtExpirationMs;
 
+  @Value("${spring.app.jwtRefreshExpirationMs}")
+  private long jwtRefreshExpirationMs;
+
+  @Value("${spring.app.jwtClaimsCacheSize}")
+  private long claimsCacheSize;
+
+  @Autowired
+  private AuthRejectionMonitor rejectionMonitor;
+
+  private byte[] signingKey;
+
+  // Configured once and only read afterwards, so it is shared by all threads
+  private JwtParser jwtParser;
+
+  // Claims of already verified tokens by token hash, each kept until the token expires
+  private Cache<String, Claims> verifiedTokens;
+
+  // Hashes of recently rejected tokens, so a replayed bad token is refused without parsing
+  private Cache<String, Boolean> rejectedTokens;
+
+  @PostConstruct
+  public void init() {
+    signingKey = TextCodec.BASE64.decode(jwtSecret);
+    jwtParser = Jwts.parser().setSigningKey(signingKey);
+    verifiedTokens = Caffeine.newBuilder()
+        .maximumSize(claimsCacheSize)
+        .expireAfter(new Expiry<String, Claims>() {
+          @Override
+          public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+          }
+
+          @Override
+          public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+
+          @Override
+          public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .build();
+    rejectedTokens = Caffeine.newBuilder()
+        .maximumSize(claimsCacheSize)
+        .expireAfterWrite(1, TimeUnit.MINUTES)
+        .build();
+  }
+
   public String generateJwtToken(Authentication authentication) {
 
-    UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+    return generateAccessToken((UserDetailsImpl) authentication.getPrincipal());
+  }
+
+  /**
+   * Issues a short-lived signed token carrying everything needed to rebuild the
+   * principal, so requests can be authenticated without loading the user
+   */
+  public String generateAccessToken(UserDetailsImpl userPrincipal) {
+
+    List<String> roles = new ArrayList<>();
+    for (GrantedAuthority authority : userPrincipal.getAuthorities()) {
+      roles.add(authority.getAuthority());
+    }
 
     return Jwts.builder()
+        .setId(UUID.randomUUID().toString())
         .setSubject((userPrincipal.getUsername()))
+        .claim(CLAIM_TOKEN_TYPE, TOKEN_TYPE_ACCESS)
+        .claim(CLAIM_USER_ID, userPrincipal.getId())
+        .claim(CLAIM_EMAIL, userPrincipal.getEmail())
+        .claim(CLAIM_ROLES, roles)
+        .claim(CLAIM_TOKEN_VERSION, userPrincipal.getTokenVersion())
         .setIssuedAt(new Date())
         .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(SignatureAlgorithm.HS512, jwtSecret)
+        .signWith(SignatureAlgorithm.HS512, signingKey)
+        .compact();
+  }
+
+  /**
+   * Issues a long-lived signed token that can only be exchanged for new access
+   * tokens. It carries no roles, they are read again on every refresh.
+   */
+  public String generateRefreshToken(UserDetailsImpl userPrincipal) {
+
+    return Jwts.builder()
+        .setId(UUID.randomUUID().toString())
+        .setSubject((userPrincipal.getUsername()))
+        .claim(CLAIM_TOKEN_TYPE, TOKEN_TYPE_REFRESH)
+        .claim(CLAIM_USER_ID, userPrincipal.getId())
+        .claim(CLAIM_TOKEN_VERSION, userPrincipal.getTokenVersion())
+        .setIssuedAt(new Date())
+        .setExpiration(new Date((new Date()).getTime() + jwtRefreshExpirationMs))
+        .signWith(SignatureAlgorithm.HS512, signingKey)
         .compact();
   }
 
+  public boolean isRefreshToken(Claims claims) {
+    return TOKEN_TYPE_REFRESH.equals(claims.get(CLAIM_TOKEN_TYPE, String.class));
+  }
+
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+    Claims claims = getClaimsFromJwtToken(token);
+    return claims == null ? null : claims.getSubject();
   }
 
   public boolean validateJwtToken(String authToken) {
+    return getClaimsFromJwtToken(authToken) != null;
+  }
+
+  /**
+   * Verifies the token and returns its claims. A token that was already verified
+   * is served from the cache until its expiry, skipping the signature check and
+   * JSON parse. The returned claims are shared and must not be modified. A
+   * rejected token is remembered for a minute and refused again without parsing.
+   * Rejections are counted, and only sampled ones are logged.
+   * 
+   * @return the verified claims, or null if the token is invalid
+   */
+  public Claims getClaimsFromJwtToken(String authToken) {
+    if (authToken == null || authToken.isEmpty()) {
+      return null;
+    }
+
+    String tokenHash = hash(authToken);
+    Claims claims = verifiedTokens.getIfPresent(tokenHash);
+    if (claims != null) {
+      return claims;
+    }
+    if (rejectedTokens.getIfPresent(tokenHash) != null) {
+      rejectionMonitor.record(Reason.REPEATED_INVALID_TOKEN, "previously rejected token");
+      return null;
+    }
+
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      claims = jwtParser.parseClaimsJws(authToken).getBody();
+
+      // Tokens without an expiry are verified on every use
+      if (claims.getExpiration() != null) {
+        verifiedTokens.put(tokenHash, claims);
+      }
+
+      return claims;
     } catch (SignatureException e) {
-      logger.error("Invalid JWT signature: {}", e.getMessage());
+      rejectionMonitor.record(Reason.INVALID_SIGNATURE, e.getMessage());
     } catch (MalformedJwtException e) {
-      logger.error("Invalid JWT token: {}", e.getMessage());
+      rejectionMonitor.record(Reason.MALFORMED_TOKEN, e.getMessage());
     } catch (ExpiredJwtException e) {
-      logger.error("JWT token is expired: {}", e.getMessage());
+      rejectionMonitor.record(Reason.EXPIRED_TOKEN, e.getMessage());
     } catch (UnsupportedJwtException e) {
-      logger.error("JWT token is unsupported: {}", e.getMessage());
+      rejectionMonitor.record(Reason.UNSUPPORTED_TOKEN, e.getMessage());
     } catch (IllegalArgumentException e) {
-      logger.error("JWT claims string is empty: {}", e.getMessage());
+      rejectionMonitor.record(Reason.EMPTY_TOKEN, e.getMessage());
+    }
+
+    rejectedTokens.put(tokenHash, Boolean.TRUE);
+    return null;
+  }
+
+  /**
+   * Builds the principal from verified claims
+   * 
+   * @return the principal, or null for tokens issued without the user claims
+   */
+  public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+
+    Number userId = claims.get(CLAIM_USER_ID, Number.class);
+    Collection<?> roles = claims.get(CLAIM_ROLES, Collection.class);
+
+    if (userId == null || roles == null) {
+      return null;
+    }
+
+    List<GrantedAuthority> authorities = new ArrayList<>(roles.size());
+    for (Object role : roles) {
+      authorities.add(new SimpleGrantedAuthority(role.toString()));
     }
 
-    return false;
+    Number tokenVersion = claims.get(CLAIM_TOKEN_VERSION, Number.class);
+
+    return new UserDetailsImpl(
+        userId.longValue(),
+        claims.getSubject(),
+        claims.get(CLAIM_EMAIL, String.class),
+        null,
+        authorities,
+        tokenVersion == null ? null : tokenVersion.longValue());
+  }
+
+  private static String hash(String token) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
   }
 }
@@ -1,5 +1,6 @@
 package com.spring.ims.security.services;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -7,26 +8,43 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.spring.ims.IConstants.IConstants;
+import com.spring.ims.config.CacheConfig;
 import com.spring.ims.exception.EmailAlreadyExistsException;
+import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.exception.InvalidTokenException;
+import com.spring.ims.exception.ResourceNotFoundException;
+import com.spring.ims.exception.TooManyRequestsException;
 import com.spring.ims.exception.UserNameAlreadyExistsException;
 import com.spring.ims.models.ERole;
 import com.spring.ims.models.Role;
 import com.spring.ims.models.User;
 import com.spring.ims.payload.request.LoginRequest;
 import com.spring.ims.payload.request.SignupRequest;
-import com.spring.ims.repository.RoleRepository;
+import com.spring.ims.payload.response.BatchItemResult;
+import com.spring.ims.payload.response.BatchResponse;
 import com.spring.ims.repository.UserRepository;
 import com.spring.ims.security.jwt.JwtUtils;
 
+import io.jsonwebtoken.Claims;
+
 @Service
 public class AuthenticationService {
     
@@ -37,7 +55,7 @@ public class AuthenticationService {
 	private UserRepository userRepository;
 
 	@Autowired
-	private RoleRepository roleRepository;
+	private RoleRegistry roleRegistry;
 
 	@Autowired
 	private PasswordEncoder encoder;
@@ -45,43 +63,112 @@ public class AuthenticationService {
 	@Autowired
 	private JwtUtils jwtUtils;
 	
+	@Autowired
+	private UserDetailsServiceImpl userDetailsService;
+	
+	@Autowired
+	private PasswordHashingExecutor passwordHashingExecutor;
+	
+	@Autowired
+	private LoginThrottle loginThrottle;
+	
+	@Autowired
+	private TokenRevocationService tokenRevocationService;
+	
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	
+	@Autowired
+	private Validator validator;
+	
 	/**
 	 * This method authenticates the user and generates the JWT Token
 	 * 
 	 * @param loginRequest
+	 * @param clientIp
 	 * 
 	 * @return {@link  ResponseEntity<?>}
+	 * 
+	 * @throws TooManyRequestsException
 	 */
-	public Map<String, Object> authenticateUser(LoginRequest loginRequest) {
+	public Map<String, Object> authenticateUser(LoginRequest loginRequest, String clientIp) throws TooManyRequestsException {
+		
+		// Rejects throttled attempts before any password check
+		loginThrottle.acquire(loginRequest.getUsername(), clientIp);
 		
-		// Calls internally the authentication provider to authenticate the request
-		Authentication authentication = authenticationManager.authenticate(
-				new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+		// Calls internally the authentication provider to authenticate the request,
+		// the password check runs on the bounded hashing pool
+		Authentication authentication = passwordHashingExecutor.execute(() -> authenticationManager.authenticate(
+				new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())));
 		
 		// Sets security context details
 		SecurityContextHolder.getContext().setAuthentication(authentication);
 		
-		// Generates JWT token
-		String jwt = jwtUtils.generateJwtToken(authentication);
-
 		UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
 		
-		// Gets the list of roles for the current user
-		List<String> roles = userDetails.getAuthorities().stream().map(item -> item.getAuthority())
-				.collect(Collectors.toList());
-		
-		// Set values to map
-		Map<String, Object> map = new HashMap<>();
-		map.put("jwt", jwt);
-		map.put("id", userDetails.getId());
-		map.put("name", userDetails.getUsername());
-		map.put("email", userDetails.getEmail());
-		map.put("roles", roles);
+		// Generates a short-lived access token and a refresh token
+		String jwt = jwtUtils.generateAccessToken(userDetails);
+		String refreshToken = jwtUtils.generateRefreshToken(userDetails);
 
-		return map;
+		return toTokenMap(jwt, refreshToken, userDetails);
 
 	}
 	
+	/**
+	 * Issues a new access token for a refresh token. Costs a signature check and
+	 * one indexed lookup of the user with its roles, no password hashing.
+	 * 
+	 * @param refreshToken
+	 * 
+	 * @return {@link Map<String, Object>}
+	 * 
+	 * @throws InvalidTokenException
+	 */
+	public Map<String, Object> refreshAccessToken(String refreshToken) throws InvalidTokenException {
+		
+		// Verifies the refresh token
+		Claims claims = jwtUtils.getClaimsFromJwtToken(refreshToken);
+		if (claims == null || !jwtUtils.isRefreshToken(claims)
+				|| (claims.getId() != null && tokenRevocationService.isRevoked(claims.getId()))) {
+			throw new InvalidTokenException(IConstants.INVALID_REFRESH_TOKEN);
+		}
+		
+		Number userId = claims.get(JwtUtils.CLAIM_USER_ID, Number.class);
+		Number tokenVersion = claims.get(JwtUtils.CLAIM_TOKEN_VERSION, Number.class);
+		if (userId == null || tokenVersion == null) {
+			throw new InvalidTokenException(IConstants.INVALID_REFRESH_TOKEN);
+		}
+		
+		// Fetches the user with current roles, tokens of an older version are rejected
+		User user = userRepository.findWithRolesById(userId.longValue())
+				.orElseThrow(() -> new InvalidTokenException(IConstants.INVALID_REFRESH_TOKEN));
+		if (user.getTokenVersion() == null || user.getTokenVersion() != tokenVersion.longValue()) {
+			throw new InvalidTokenException(IConstants.INVALID_REFRESH_TOKEN);
+		}
+		
+		UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+		
+		return toTokenMap(jwtUtils.generateAccessToken(userDetails), refreshToken, userDetails);
+	}
+	
+	/**
+	 * Revokes the given access and refresh tokens until they expire. Invalid or
+	 * missing tokens are ignored.
+	 * 
+	 * @param accessToken
+	 * @param refreshToken
+	 */
+	public void signout(String accessToken, String refreshToken) {
+		
+		for (String token : new String[] { accessToken, refreshToken }) {
+			
+			Claims claims = token == null ? null : jwtUtils.getClaimsFromJwtToken(token);
+			if (claims != null && claims.getId() != null && claims.getExpiration() != null) {
+				tokenRevocationService.revoke(claims.getId(), claims.getExpiration());
+			}
+		}
+	}
+	
 	/**
 	 * This method is used to create new User
 	 * 
@@ -89,62 +176,334 @@ public class AuthenticationService {
 	 * 
 	 * @return {@link ResponseEntity<?> }
 	 */
+	@CacheEvict(cacheNames = CacheConfig.USER_DETAILS_CACHE, key = "#signupRequest.username")
 	public User registerUser(SignupRequest signupRequest) {
 		
-		// Checks if username already exists
-		if (userRepository.existsByUsername(signupRequest.getUsername())) {
+		// Create new user's account
+		User user = new User(signupRequest.getUsername(), signupRequest.getEmail(),
+				passwordHashingExecutor.execute(() -> encoder.encode(signupRequest.getPassword())));
 
-			throw new UserNameAlreadyExistsException(IConstants.USERNAME_ALREADY_EXISTS);
+		user.setRoles(resolveRoles(signupRequest.getRole()));
+		
+		// Saves the new user data in DB, the unique constraints reject duplicates
+		try {
+			return userRepository.save(user);
+		}
+		catch (DataIntegrityViolationException e) {
+			throw duplicateUserException(signupRequest.getUsername(), signupRequest.getEmail(), e);
+		}
+	
+	}
+	
+	/**
+	 * Creates a list of users in one request. Every item is validated like a
+	 * signup and checked against the batch and the existing users, then the
+	 * passwords of the accepted items are hashed in parallel and the users are
+	 * inserted in JDBC batches of {@link IConstants#USER_BATCH_SIZE}. Rejected
+	 * items are reported in the response and do not stop the rest of the batch.
+	 * 
+	 * @param signupRequests
+	 * 
+	 * @return {@link BatchResponse}
+	 * 
+	 * @throws InvalidInputException
+	 */
+	public BatchResponse provisionUsers(List<SignupRequest> signupRequests) throws InvalidInputException {
+		
+		// Checks the batch itself
+		if (signupRequests == null || signupRequests.isEmpty()) {
+			throw new InvalidInputException(IConstants.REQUEST_NULL_OR_EMPTY);
+		}
+		if (signupRequests.size() > IConstants.MAX_USER_BATCH) {
+			throw new InvalidInputException(IConstants.USER_BATCH_TOO_LARGE);
 		}
 		
-		// Checks if email already exists
-		if (userRepository.existsByEmail(signupRequest.getEmail())) {
-
-			throw new EmailAlreadyExistsException(IConstants.EMAIL_ALREADY_EXISTS);
+		List<BatchItemResult> results = new ArrayList<>(signupRequests.size());
+		List<SignupRequest> accepted = new ArrayList<>(signupRequests.size());
+		List<BatchItemResult> acceptedResults = new ArrayList<>(signupRequests.size());
+		Set<String> usernames = new HashSet<>();
+		Set<String> emails = new HashSet<>();
+		
+		// Validates every item and rejects duplicates inside the batch
+		for (int index = 0; index < signupRequests.size(); index++) {
+			
+			SignupRequest signupRequest = signupRequests.get(index);
+			BatchItemResult result = new BatchItemResult(index, null, null);
+			results.add(result);
+			
+			if (signupRequest == null) {
+				result.setError(IConstants.REQUEST_NULL_OR_EMPTY);
+				continue;
+			}
+			
+			Set<ConstraintViolation<SignupRequest>> violations = validator.validate(signupRequest);
+			if (!violations.isEmpty()) {
+				ConstraintViolation<SignupRequest> violation = violations.iterator().next();
+				result.setError(violation.getPropertyPath() + " " + violation.getMessage());
+				continue;
+			}
+			
+			if (!usernames.add(signupRequest.getUsername())) {
+				result.setError(IConstants.USERNAME_ALREADY_EXISTS);
+				continue;
+			}
+			if (!emails.add(signupRequest.getEmail())) {
+				result.setError(IConstants.EMAIL_ALREADY_EXISTS);
+				continue;
+			}
+			
+			accepted.add(signupRequest);
+			acceptedResults.add(result);
 		}
-
-		// Create new user's account
-		User user = new User(signupRequest.getUsername(), signupRequest.getEmail(),
-				encoder.encode(signupRequest.getPassword()));
-
-		Set<String> strRoles = signupRequest.getRole();
+		
+		// Rejects items that clash with existing users, before any hashing
+		Set<String> existingUsernames = findExisting(usernames, true);
+		Set<String> existingEmails = findExisting(emails, false);
+		
+		List<SignupRequest> pendingRequests = new ArrayList<>(accepted.size());
+		List<BatchItemResult> pendingResults = new ArrayList<>(accepted.size());
+		for (int i = 0; i < accepted.size(); i++) {
+			
+			SignupRequest signupRequest = accepted.get(i);
+			if (existingUsernames.contains(signupRequest.getUsername())) {
+				acceptedResults.get(i).setError(IConstants.USERNAME_ALREADY_EXISTS);
+			} else if (existingEmails.contains(signupRequest.getEmail())) {
+				acceptedResults.get(i).setError(IConstants.EMAIL_ALREADY_EXISTS);
+			} else {
+				pendingRequests.add(signupRequest);
+				pendingResults.add(acceptedResults.get(i));
+			}
+		}
+		
+		// Hashes the passwords in parallel
+		List<String> passwords = passwordHashingExecutor.executeAll(pendingRequests,
+				signupRequest -> encoder.encode(signupRequest.getPassword()));
+		
+		List<User> users = new ArrayList<>(pendingRequests.size());
+		for (int i = 0; i < pendingRequests.size(); i++) {
+			
+			SignupRequest signupRequest = pendingRequests.get(i);
+			User user = new User(signupRequest.getUsername(), signupRequest.getEmail(), passwords.get(i));
+			user.setRoles(resolveRoles(signupRequest.getRole()));
+			users.add(user);
+		}
+		
+		// Inserts the users and their role links chunk by chunk
+		int created = 0;
+		for (int from = 0; from < users.size(); from += IConstants.USER_BATCH_SIZE) {
+			
+			int to = Math.min(from + IConstants.USER_BATCH_SIZE, users.size());
+			created += insertChunk(users.subList(from, to), pendingResults.subList(from, to));
+		}
+		
+		return new BatchResponse(created, signupRequests.size() - created, results);
+	}
+	
+	/**
+	 * Replaces the roles of a user. The user's token version is incremented in
+	 * the same transaction so that tokens carrying the old roles stop working,
+	 * and the cached user details are evicted once the change is committed.
+	 * 
+	 * @param userId
+	 * @param strRoles
+	 * 
+	 * @return {@link User}
+	 * 
+	 * @throws ResourceNotFoundException
+	 */
+	@Transactional
+	public User updateUserRoles(Long userId, Set<String> strRoles) throws ResourceNotFoundException {
+		
+		// Fetches the user
+		User user = userRepository.findById(userId)
+				.orElseThrow(() -> new ResourceNotFoundException(IConstants.USER_NOT_FOUND));
+		
+		// Saves the roles, then increments the version in the row
+		user.setRoles(resolveRoles(strRoles));
+		userRepository.incrementTokenVersion(userId);
+		
+		// Drops the cached details, a load before the commit would cache the old roles
+		String username = user.getUsername();
+		afterCommit(() -> userDetailsService.evictUser(username));
+		
+		return userRepository.findWithRolesById(userId)
+				.orElseThrow(() -> new ResourceNotFoundException(IConstants.USER_NOT_FOUND));
+	}
+	
+	/**
+	 * Runs the action after the current transaction commits, right away outside
+	 * of a transaction
+	 */
+	private void afterCommit(Runnable action) {
+		
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+	
+	/**
+	 * Maps requested role names to roles, USER when none are given
+	 * 
+	 * @param strRoles
+	 * 
+	 * @return {@link Set<Role>}
+	 */
+	private Set<Role> resolveRoles(Set<String> strRoles) {
+		
 		Set<Role> roles = new HashSet<>();
 
 		if (strRoles == null) {
 			
-			// Fetches USER role from DB
-			Role userRole = roleRepository.findByName(ERole.ROLE_USER)
-					.orElseThrow(() -> new RuntimeException(IConstants.ROLE_NOT_FOUND));
-			roles.add(userRole);
+			// Takes USER role from the registry
+			roles.add(roleRegistry.get(ERole.ROLE_USER));
 		} else {
 			
 			// Sets role for the new user
 			strRoles.forEach(role -> {
 				switch (role) {
 				case "admin":
-					Role adminRole = roleRepository.findByName(ERole.ROLE_ADMIN)
-							.orElseThrow(() -> new RuntimeException(IConstants.ROLE_NOT_FOUND));
-					roles.add(adminRole);
+					roles.add(roleRegistry.get(ERole.ROLE_ADMIN));
 
 					break;
 				case "mod":
-					Role modRole = roleRepository.findByName(ERole.ROLE_MODERATOR)
-							.orElseThrow(() -> new RuntimeException(IConstants.ROLE_NOT_FOUND));
-					roles.add(modRole);
+					roles.add(roleRegistry.get(ERole.ROLE_MODERATOR));
 
 					break;
 				default:
-					Role userRole = roleRepository.findByName(ERole.ROLE_USER)
-							.orElseThrow(() -> new RuntimeException(IConstants.ROLE_NOT_FOUND));
-					roles.add(userRole);
+					roles.add(roleRegistry.get(ERole.ROLE_USER));
 				}
 			});
 		}
 
-		user.setRoles(roles);
+		return roles;
+	}
+	
+	/**
+	 * Inserts a chunk of users as one JDBC batch in its own transaction. When a
+	 * user created concurrently makes the batch fail, the chunk is inserted again
+	 * row by row so that only the clashing rows are rejected.
+	 * 
+	 * @param users
+	 * @param chunkResults
+	 * 
+	 * @return number of inserted users
+	 */
+	private int insertChunk(List<User> users, List<BatchItemResult> chunkResults) {
 		
-		// Saves the new user data in DB
-		return userRepository.save(user);
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				userRepository.saveAll(users);
+				userRepository.flush();
+			});
+			
+			for (int i = 0; i < users.size(); i++) {
+				chunkResults.get(i).setId(users.get(i).getId());
+			}
+			
+			return users.size();
+		}
+		catch (DataIntegrityViolationException e) {
+			
+			int created = 0;
+			for (int i = 0; i < users.size(); i++) {
+				
+				// Ids and collections bound to the rolled back batch are dropped
+				User user = users.get(i);
+				user.setId(null);
+				user.setRoles(new HashSet<>(user.getRoles()));
+				try {
+					transactionTemplate.executeWithoutResult(status -> userRepository.saveAndFlush(user));
+					chunkResults.get(i).setId(user.getId());
+					created++;
+				}
+				catch (DataIntegrityViolationException rowException) {
+					chunkResults.get(i).setError(
+							duplicateUserException(user.getUsername(), user.getEmail(), rowException).getMessage());
+				}
+			}
+			
+			return created;
+		}
+	}
+	
+	/**
+	 * Looks up which of the given usernames or emails are already taken, in
+	 * chunks of {@link IConstants#IN_CLAUSE_SIZE}
+	 * 
+	 * @param values
+	 * @param usernames true to look up usernames, false for emails
+	 * 
+	 * @return {@link Set<String>}
+	 */
+	private Set<String> findExisting(Set<String> values, boolean usernames) {
+		
+		Set<String> existing = new HashSet<>();
+		List<String> list = new ArrayList<>(values);
+		
+		for (int from = 0; from < list.size(); from += IConstants.IN_CLAUSE_SIZE) {
+			
+			List<String> chunk = list.subList(from, Math.min(from + IConstants.IN_CLAUSE_SIZE, list.size()));
+			existing.addAll(usernames ? userRepository.findExistingUsernames(chunk)
+					: userRepository.findExistingEmails(chunk));
+		}
+		
+		return existing;
+	}
+	
+	/**
+	 * Maps a unique constraint violation on insert to the matching exception. Only
+	 * this failure path looks the user up again.
+	 * 
+	 * @param username
+	 * @param email
+	 * @param e
+	 * 
+	 * @return {@link RuntimeException}
+	 */
+	private RuntimeException duplicateUserException(String username, String email, DataIntegrityViolationException e) {
+		
+		if (userRepository.existsByUsername(username)) {
+			return new UserNameAlreadyExistsException(IConstants.USERNAME_ALREADY_EXISTS);
+		}
+		if (userRepository.existsByEmail(email)) {
+			return new EmailAlreadyExistsException(IConstants.EMAIL_ALREADY_EXISTS);
+		}
+		
+		return e;
+	}
 	
+	/**
+	 * Builds the signin response of a user
+	 * 
+	 * @param jwt
+	 * @param refreshToken
+	 * @param userDetails
+	 * 
+	 * @return {@link Map<String, Object>}
+	 */
+	private Map<String, Object> toTokenMap(String jwt, String refreshToken, UserDetailsImpl userDetails) {
+		
+		// Gets the list of roles for the current user
+		List<String> roles = userDetails.getAuthorities().stream().map(item -> item.getAuthority())
+				.collect(Collectors.toList());
+		
+		// Set values to map
+		Map<String, Object> map = new HashMap<>();
+		map.put("jwt", jwt);
+		map.put("refreshToken", refreshToken);
+		map.put("id", userDetails.getId());
+		map.put("name", userDetails.getUsername());
+		map.put("email", userDetails.getEmail());
+		map.put("roles", roles);
+
+		return map;
 	}
 }
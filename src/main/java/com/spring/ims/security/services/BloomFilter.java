@@ -0,0 +1,72 @@
+package com.spring.ims.security.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, thread-safe Bloom filter of strings. {@link #mightContain} never
+ * returns false for an added value and returns true for other values with
+ * roughly the configured false positive probability.
+ */
+public class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+    long n = Math.max(1, expectedInsertions);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+
+    this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+    this.bitCount = bits.length() * 64L;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+  }
+
+  public void put(String value) {
+    long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+    long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL);
+
+    for (int i = 0; i < hashCount; i++) {
+      long index = Math.floorMod(hash1 + i * hash2, bitCount);
+      int word = (int) (index >>> 6);
+      long mask = 1L << index;
+
+      long current;
+      do {
+        current = bits.get(word);
+      } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  public boolean mightContain(String value) {
+    long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+    long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL);
+
+    for (int i = 0; i < hashCount; i++) {
+      long index = Math.floorMod(hash1 + i * hash2, bitCount);
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  // 64-bit FNV-1a with a seed, finished with the SplitMix64 mixer
+  private static long hash(String value, long seed) {
+    long hash = 0xCBF29CE484222325L ^ seed;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001B3L;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB53FE1A85EC3L;
+    hash ^= hash >>> 33;
+
+    return hash;
+  }
+}
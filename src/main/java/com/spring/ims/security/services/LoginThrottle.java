@@ -0,0 +1,176 @@
+package com.spring.ims.security.services;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.spring.ims.IConstants.IConstants;
+import com.spring.ims.exception.TooManyRequestsException;
+import com.spring.ims.payload.response.LoginThrottleStatsResponse;
+
+/**
+ * Token-bucket limits on signin attempts per username and per client IP,
+ * checked before any password verification so that throttled attempts cost no
+ * bcrypt work. Buckets live in size-bounded caches and are dropped once idle
+ * long enough to have refilled. Bucket updates are guarded by a fixed set of
+ * striped locks instead of one lock per bucket.
+ */
+@Component
+public class LoginThrottle {
+
+  private static final int LOCK_STRIPES = 64;
+
+  @Value("${spring.app.loginThrottleUserCapacity}")
+  private int userCapacity;
+
+  @Value("${spring.app.loginThrottleUserRefillPerMinute}")
+  private int userRefillPerMinute;
+
+  @Value("${spring.app.loginThrottleIpCapacity}")
+  private int ipCapacity;
+
+  @Value("${spring.app.loginThrottleIpRefillPerMinute}")
+  private int ipRefillPerMinute;
+
+  @Value("${spring.app.loginThrottleMaxKeys}")
+  private long maxKeys;
+
+  private final Object[] locks = new Object[LOCK_STRIPES];
+
+  private Cache<String, Bucket> userBuckets;
+  private Cache<String, Bucket> ipBuckets;
+
+  private final LongAdder allowed = new LongAdder();
+  private final LongAdder throttledByUser = new LongAdder();
+  private final LongAdder throttledByIp = new LongAdder();
+  private final LongAdder evicted = new LongAdder();
+
+  @PostConstruct
+  public void init() {
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new Object();
+    }
+
+    userBuckets = newBuckets(userCapacity, userRefillPerMinute);
+    ipBuckets = newBuckets(ipCapacity, ipRefillPerMinute);
+  }
+
+  /**
+   * Takes one token from the bucket of the client IP and one from the bucket of
+   * the username. An attempt rejected by the username bucket gives the IP token
+   * back, so guesses against a locked user do not use up the address.
+   * 
+   * @throws TooManyRequestsException when either bucket is empty
+   */
+  public void acquire(String username, String clientIp) {
+    long now = System.nanoTime();
+
+    if (clientIp != null) {
+      long waitNanos = tryAcquire(ipBuckets, clientIp, ipCapacity, ipRefillPerMinute, now);
+      if (waitNanos > 0) {
+        throttledByIp.increment();
+        throw new TooManyRequestsException(IConstants.LOGIN_THROTTLED, toRetryAfterSeconds(waitNanos));
+      }
+    }
+
+    if (username != null) {
+      long waitNanos = tryAcquire(userBuckets, username.toLowerCase(Locale.ROOT), userCapacity, userRefillPerMinute, now);
+      if (waitNanos > 0) {
+        if (clientIp != null) {
+          refund(ipBuckets, clientIp, ipCapacity);
+        }
+        throttledByUser.increment();
+        throw new TooManyRequestsException(IConstants.LOGIN_THROTTLED, toRetryAfterSeconds(waitNanos));
+      }
+    }
+
+    allowed.increment();
+  }
+
+  public LoginThrottleStatsResponse getStats() {
+    return new LoginThrottleStatsResponse(
+        allowed.sum(),
+        throttledByUser.sum(),
+        throttledByIp.sum(),
+        userBuckets.estimatedSize(),
+        ipBuckets.estimatedSize(),
+        evicted.sum());
+  }
+
+  /**
+   * @return 0 when a token was taken, otherwise the nanos until the next token
+   */
+  private long tryAcquire(Cache<String, Bucket> buckets, String key, int capacity, int refillPerMinute, long now) {
+    Bucket bucket = buckets.getIfPresent(key);
+    if (bucket == null) {
+      bucket = buckets.get(key, k -> new Bucket(capacity, now));
+    }
+    double refillPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+
+    synchronized (locks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES]) {
+      bucket.tokens = Math.min(capacity, bucket.tokens + Math.max(0, now - bucket.refilledAt) * refillPerNano);
+      bucket.refilledAt = Math.max(bucket.refilledAt, now);
+
+      if (bucket.tokens >= 1) {
+        bucket.tokens -= 1;
+        return 0;
+      }
+
+      return (long) Math.ceil((1 - bucket.tokens) / refillPerNano);
+    }
+  }
+
+  /**
+   * Gives back a token taken by {@link #tryAcquire}
+   */
+  private void refund(Cache<String, Bucket> buckets, String key, int capacity) {
+    Bucket bucket = buckets.getIfPresent(key);
+    if (bucket == null) {
+      return;
+    }
+
+    synchronized (locks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES]) {
+      bucket.tokens = Math.min(capacity, bucket.tokens + 1);
+    }
+  }
+
+  private Cache<String, Bucket> newBuckets(int capacity, int refillPerMinute) {
+    // A bucket idle for a full refill is the same as a new one
+    long idleMinutes = Math.max(1, (long) Math.ceil(capacity / (double) refillPerMinute));
+
+    return Caffeine.newBuilder()
+        .maximumSize(maxKeys)
+        .expireAfterAccess(idleMinutes, TimeUnit.MINUTES)
+        // Evicts on the calling thread, the listener only counts
+        .executor(Runnable::run)
+        .removalListener((String key, Bucket bucket, RemovalCause cause) -> {
+          if (cause.wasEvicted()) {
+            evicted.increment();
+          }
+        })
+        .build();
+  }
+
+  private static long toRetryAfterSeconds(long waitNanos) {
+    return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+  }
+
+  private static final class Bucket {
+
+    private double tokens;
+    private long refilledAt;
+
+    private Bucket(int capacity, long now) {
+      this.tokens = capacity;
+      this.refilledAt = now;
+    }
+  }
+}
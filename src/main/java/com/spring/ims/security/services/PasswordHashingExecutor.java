@@ -0,0 +1,194 @@
+package com.spring.ims.security.services;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.spring.ims.IConstants.IConstants;
+import com.spring.ims.exception.ServiceUnavailableException;
+import com.spring.ims.exception.TooManyRequestsException;
+import com.spring.ims.payload.response.PasswordHashingStatsResponse;
+
+/**
+ * Runs password hashing and verification on a small dedicated pool with a
+ * bounded queue, so that a burst of signins cannot occupy every request thread.
+ * Work that does not fit in the queue is rejected immediately, work that waits
+ * longer than the timeout is abandoned.
+ * <p>
+ * Bulk work such as user provisioning runs on a separate work-stealing pool
+ * sized to the cores, so it does not compete with signins for the queue.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+  @Value("${spring.app.passwordHashThreads}")
+  private int threads;
+
+  @Value("${spring.app.passwordHashQueueSize}")
+  private int queueSize;
+
+  @Value("${spring.app.passwordHashTimeoutMs}")
+  private long timeoutMs;
+
+  // 0 uses one thread per core
+  @Value("${spring.app.bulkHashParallelism:0}")
+  private int bulkParallelism;
+
+  private ThreadPoolExecutor executor;
+
+  private ForkJoinPool bulkPool;
+
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder timedOut = new LongAdder();
+  private final LongAdder hashCount = new LongAdder();
+  private final LongAdder totalWaitNanos = new LongAdder();
+  private final LongAdder totalHashNanos = new LongAdder();
+  private final AtomicLong maxHashNanos = new AtomicLong();
+
+  @PostConstruct
+  public void start() {
+    AtomicInteger threadNumber = new AtomicInteger();
+    ThreadFactory threadFactory = runnable -> {
+      Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+
+    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueSize), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+
+    int parallelism = bulkParallelism > 0 ? bulkParallelism : Runtime.getRuntime().availableProcessors();
+    AtomicInteger bulkThreadNumber = new AtomicInteger();
+    bulkPool = new ForkJoinPool(parallelism, pool -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("password-hash-bulk-" + bulkThreadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }, null, false);
+  }
+
+  @PreDestroy
+  public void stop() {
+    executor.shutdownNow();
+    bulkPool.shutdownNow();
+  }
+
+  /**
+   * Runs the task on the hashing pool and waits for its result. Runtime
+   * exceptions of the task, such as bad credentials, are rethrown unchanged.
+   * 
+   * @throws TooManyRequestsException when the queue is full
+   * @throws ServiceUnavailableException when the result is not ready in time
+   */
+  public <T> T execute(Callable<T> task) {
+    long submittedAt = System.nanoTime();
+
+    Future<T> future;
+    try {
+      future = executor.submit(() -> {
+        long startedAt = System.nanoTime();
+        totalWaitNanos.add(startedAt - submittedAt);
+        try {
+          return task.call();
+        } finally {
+          recordHash(System.nanoTime() - startedAt);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new TooManyRequestsException(IConstants.LOGIN_BUSY);
+    }
+
+    try {
+      return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      timedOut.increment();
+      throw new ServiceUnavailableException(IConstants.LOGIN_UNAVAILABLE);
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException(IConstants.LOGIN_UNAVAILABLE);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Applies the task to every item in parallel on the bulk pool and returns the
+   * results in item order. Runtime exceptions of the task are rethrown unchanged.
+   */
+  public <T, R> List<R> executeAll(List<T> items, Function<T, R> task) {
+    try {
+      return bulkPool.submit(() -> items.parallelStream().map(item -> {
+        long startedAt = System.nanoTime();
+        try {
+          return task.apply(item);
+        } finally {
+          recordHash(System.nanoTime() - startedAt);
+        }
+      }).collect(Collectors.toList())).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException(IConstants.LOGIN_UNAVAILABLE);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  public PasswordHashingStatsResponse getStats() {
+    long count = hashCount.sum();
+
+    return new PasswordHashingStatsResponse(
+        executor.getPoolSize(),
+        executor.getActiveCount(),
+        executor.getQueue().size(),
+        queueSize,
+        executor.getCompletedTaskCount(),
+        rejected.sum(),
+        timedOut.sum(),
+        count == 0 ? 0 : totalWaitNanos.sum() / 1e6 / count,
+        count == 0 ? 0 : totalHashNanos.sum() / 1e6 / count,
+        maxHashNanos.get() / 1e6);
+  }
+
+  private void recordHash(long nanos) {
+    hashCount.increment();
+    totalHashNanos.add(nanos);
+    maxHashNanos.accumulateAndGet(nanos, Math::max);
+  }
+}
@@ -0,0 +1,57 @@
+package com.spring.ims.security.services;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.spring.ims.IConstants.IConstants;
+import com.spring.ims.models.ERole;
+import com.spring.ims.models.Role;
+import com.spring.ims.repository.RoleRepository;
+
+/**
+ * The roles table, loaded once into an immutable map. Roles only change when
+ * rows are added by hand, so a missing role triggers a single reload before
+ * it is reported.
+ */
+@Component
+public class RoleRegistry {
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  private volatile Map<ERole, Role> roles = Collections.emptyMap();
+
+  @PostConstruct
+  public synchronized void load() {
+    Map<ERole, Role> loaded = new EnumMap<>(ERole.class);
+    for (Role role : roleRepository.findAll()) {
+      loaded.put(role.getName(), role);
+    }
+
+    roles = Collections.unmodifiableMap(loaded);
+  }
+
+  /**
+   * @throws RuntimeException when the role is not in the roles table
+   */
+  public Role get(ERole name) {
+    Role role = roles.get(name);
+
+    if (role == null) {
+      load();
+      role = roles.get(name);
+    }
+
+    if (role == null) {
+      throw new RuntimeException(IConstants.ROLE_NOT_FOUND);
+    }
+
+    return role;
+  }
+}
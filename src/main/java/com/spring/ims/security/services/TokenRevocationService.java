@@ -0,0 +1,102 @@
+package com.spring.ims.security.services;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.ims.config.ReplicaRoutingDataSource;
+import com.spring.ims.models.RevokedToken;
+import com.spring.ims.repository.RevokedTokenRepository;
+
+/**
+ * Revoked token ids, stored in the revoked_token table and mirrored in an
+ * in-memory Bloom filter. Tokens that are not in the filter are known to be
+ * valid without touching the database; only filter hits, which are revoked
+ * tokens and rare false positives, are confirmed with a primary key lookup.
+ * The filter is rebuilt periodically, which also picks up revocations made by
+ * other instances and drops expired ids. Both read the primary, a lagging
+ * replica would miss recent revocations.
+ */
+@Service
+public class TokenRevocationService {
+
+  private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+  private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+  @Autowired
+  private RevokedTokenRepository revokedTokenRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  // Read-only transactions routed to the primary
+  private TransactionTemplate primaryReads;
+
+  @Value("${spring.app.revocationExpectedTokens}")
+  private long expectedTokens;
+
+  private volatile BloomFilter revokedIds;
+
+  /**
+   * Loads the filter before the first request is authenticated
+   */
+  @PostConstruct
+  public void init() {
+    primaryReads = new TransactionTemplate(transactionManager);
+    primaryReads.setReadOnly(true);
+    reload();
+  }
+
+  /**
+   * Removes expired ids from the table and rebuilds the filter from the rest
+   */
+  @Scheduled(fixedDelayString = "${spring.app.revocationReloadMs}", initialDelayString = "${spring.app.revocationReloadMs}")
+  public synchronized void reload() {
+    Date now = new Date();
+    int purged = revokedTokenRepository.deleteExpired(now);
+    List<String> ids = onPrimary(() -> revokedTokenRepository.findActiveIds(now));
+
+    BloomFilter filter = new BloomFilter(Math.max(expectedTokens, 2L * ids.size()), FALSE_POSITIVE_PROBABILITY);
+    for (String id : ids) {
+      filter.put(id);
+    }
+    revokedIds = filter;
+
+    logger.debug("Loaded {} revoked token ids, purged {} expired", ids.size(), purged);
+  }
+
+  /**
+   * Revokes a token id until the token's own expiry. Adding to the filter waits
+   * for a running reload, so the id cannot be lost by the filter swap.
+   */
+  public void revoke(String tokenId, Date expiresAt) {
+    revokedTokenRepository.save(new RevokedToken(tokenId, expiresAt));
+
+    synchronized (this) {
+      revokedIds.put(tokenId);
+    }
+  }
+
+  public boolean isRevoked(String tokenId) {
+    return revokedIds.mightContain(tokenId) && onPrimary(() -> revokedTokenRepository.existsById(tokenId));
+  }
+
+  private <T> T onPrimary(Supplier<T> read) {
+    return primaryReads.execute(status -> {
+      ReplicaRoutingDataSource.usePrimary();
+      return read.get();
+    });
+  }
+}
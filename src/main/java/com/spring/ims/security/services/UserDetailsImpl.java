@@ -1,6 +1,7 @@
 package com.spring.ims.security.services;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -26,13 +27,22 @@ public class UserDetailsImpl implements UserDetails {
 
   private Collection<? extends GrantedAuthority> authorities;
 
+  @JsonIgnore
+  private Long tokenVersion;
+
   public UserDetailsImpl(Long id, String username, String email, String password,
       Collection<? extends GrantedAuthority> authorities) {
+    this(id, username, email, password, authorities, 0L);
+  }
+
+  public UserDetailsImpl(Long id, String username, String email, String password,
+      Collection<? extends GrantedAuthority> authorities, Long tokenVersion) {
     this.id = id;
     this.username = username;
     this.email = email;
     this.password = password;
-    this.authorities = authorities;
+    this.authorities = Collections.unmodifiableCollection(authorities);
+    this.tokenVersion = tokenVersion;
   }
 
 public UserDetailsImpl() {
@@ -50,7 +60,18 @@ public static UserDetailsImpl build(User user) {
         user.getUsername(), 
         user.getEmail(),
         user.getPassword(), 
-        authorities);
+        authorities,
+        user.getTokenVersion());
+  }
+
+  /**
+   * Same as {@link #build(User)} without the password hash, for details that
+   * are kept beyond the request, such as cached ones
+   */
+  public static UserDetailsImpl buildWithoutPassword(User user) {
+    UserDetailsImpl userDetails = build(user);
+    userDetails.password = null;
+    return userDetails;
   }
 
   @Override
@@ -66,6 +87,10 @@ public static UserDetailsImpl build(User user) {
     return email;
   }
 
+  public Long getTokenVersion() {
+    return tokenVersion;
+  }
+
   @Override
   public String getPassword() {
     return password;
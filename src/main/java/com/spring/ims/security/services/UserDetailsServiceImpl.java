@@ -1,12 +1,16 @@
 package com.spring.ims.security.services;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.spring.ims.config.CacheConfig;
+import com.spring.ims.config.ReplicaRoutingDataSource;
 import com.spring.ims.models.User;
 import com.spring.ims.repository.UserRepository;
 
@@ -15,13 +19,53 @@ public class UserDetailsServiceImpl implements UserDetailsService {
   @Autowired
   UserRepository userRepository;
 
+  /**
+   * Loads the user with its roles and password hash, for checking a signin.
+   * Not cached, so hashes only stay in memory for the request that checks them.
+   * <p>
+   * User lookups and token version checks read the primary, so a lagging
+   * replica cannot hand out revoked roles or accept outdated tokens.
+   */
   @Override
-  @Transactional
+  @Transactional(readOnly = true)
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-    User user = userRepository.findByUsername(username)
-        .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
+    return UserDetailsImpl.build(findUser(username));
+  }
 
-    return UserDetailsImpl.build(user);
+  /**
+   * Loads the user with its roles but without the password hash, for requests
+   * authenticated by token. Results are immutable and served from the user
+   * details cache until they expire or the user is evicted.
+   */
+  @Cacheable(cacheNames = CacheConfig.USER_DETAILS_CACHE)
+  @Transactional(readOnly = true)
+  public UserDetailsImpl loadUserWithoutPassword(String username) throws UsernameNotFoundException {
+    return UserDetailsImpl.buildWithoutPassword(findUser(username));
+  }
+
+  /**
+   * Drops the cached details of a user whose data or roles have changed
+   */
+  @CacheEvict(cacheNames = CacheConfig.USER_DETAILS_CACHE)
+  public void evictUser(String username) {
+  }
+
+  /**
+   * Checks a token's user version against the database with a single-column
+   * primary key lookup. Fails for deleted users.
+   */
+  @Transactional(readOnly = true)
+  public boolean isTokenVersionCurrent(Long userId, Long tokenVersion) {
+    ReplicaRoutingDataSource.usePrimary();
+    return tokenVersion != null && userRepository.findTokenVersionById(userId)
+        .map(tokenVersion::equals)
+        .orElse(false);
+  }
+
+  private User findUser(String username) {
+    ReplicaRoutingDataSource.usePrimary();
+    return userRepository.findWithRolesByUsername(username)
+        .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
   }
 
 }
@@ -0,0 +1,147 @@
+package com.spring.ims.serviceImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.ims.enums.ChangeType;
+import com.spring.ims.models.Issue;
+import com.spring.ims.repository.IssueArchiveRepository;
+import com.spring.ims.repository.IssueRepository;
+import com.spring.ims.services.IssueArchiveService;
+import com.spring.ims.services.IssueChangeService;
+import com.spring.ims.services.IssueSearchService;
+import com.spring.ims.services.IssueStatsService;
+
+/**
+ * Moves issues in a terminal status that have not been written for the
+ * configured age from the issue table into issue_archive, so live queries and
+ * indexes only cover open work. Each chunk is moved in its own transaction,
+ * which bounds lock time and undo size however many issues are due.
+ * Archived issues are still returned by id, see
+ * {@code IssueServiceImpl#getIssueById}.
+ */
+@Service
+public class IssueArchiveServiceImpl implements IssueArchiveService {
+
+	private static final Logger logger = LoggerFactory.getLogger(IssueArchiveServiceImpl.class);
+	
+	@Autowired
+	private IssueRepository issueRepository;
+	
+	@Autowired
+	private IssueArchiveRepository issueArchiveRepository;
+	
+	@Autowired
+	private IssueChangeService issueChangeService;
+	
+	@Autowired
+	private IssueSearchService issueSearchService;
+	
+	@Autowired
+	private IssueStatsService issueStatsService;
+	
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	
+	@Value("${spring.app.archiveStatuses}")
+	private List<String> terminalStatuses;
+	
+	@Value("${spring.app.archiveAfterDays}")
+	private long archiveAfterDays;
+	
+	@Value("${spring.app.archiveChunkSize}")
+	private int chunkSize;
+	
+	@Scheduled(fixedDelayString = "${spring.app.archiveIntervalMs}", initialDelayString = "${spring.app.archiveIntervalMs}")
+	public void scheduledArchive() {
+		
+		archiveIssues();
+	}
+	
+	/**
+	 * Archives every due issue, one chunk per transaction. Each moved issue gets
+	 * an ARCHIVED change entry and leaves the search index and the statistics.
+	 * 
+	 * @return number of archived issues
+	 */
+	@Override
+	public synchronized long archiveIssues() {
+		
+		Date archivedAt = new Date();
+		Date cutoff = new Date(archivedAt.getTime() - TimeUnit.DAYS.toMillis(archiveAfterDays));
+		
+		long archived = 0;
+		ArchivedChunk chunk;
+		do {
+			chunk = transactionTemplate.execute(status -> archiveChunk(cutoff, archivedAt));
+			
+			if(!chunk.moved.isEmpty()) {
+				issueSearchService.removeIssues(chunk.moved);
+				archived += chunk.moved.size();
+			}
+			
+			// Selected issues that stayed live do not end the run
+		} while(chunk.selected == chunkSize);
+		
+		if(archived > 0) {
+			logger.info("Archived {} issues last written before {}", archived, cutoff);
+		}
+		
+		return archived;
+	}
+	
+	/**
+	 * Selects up to a chunk of due issues and moves them
+	 * 
+	 * @param cutoff
+	 * @param archivedAt
+	 * 
+	 * @return number of selected issues and ids of the moved ones
+	 */
+	private ArchivedChunk archiveChunk(Date cutoff, Date archivedAt) {
+		
+		List<Long> ids = issueRepository.findArchivableIds(terminalStatuses, cutoff, PageRequest.of(0, chunkSize));
+		if(ids.isEmpty()) {
+			return new ArchivedChunk(0, Collections.emptyList());
+		}
+		
+		// Issues written since the select are left out by the move
+		List<Long> moved = new ArrayList<>(ids.size());
+		for(Issue issue : issueArchiveRepository.moveFromIssues(ids, terminalStatuses, cutoff, archivedAt)) {
+			moved.add(issue.getId());
+			
+			// Archived issues no longer count as live
+			issueStatsService.issueRemoved(issue);
+		}
+		
+		issueChangeService.recordChanges(moved, ChangeType.ARCHIVED);
+		
+		return new ArchivedChunk(ids.size(), moved);
+	}
+	
+	/**
+	 * Outcome of one chunk
+	 */
+	private static final class ArchivedChunk {
+		
+		private final int selected;
+		private final List<Long> moved;
+		
+		ArchivedChunk(int selected, List<Long> moved) {
+			this.selected = selected;
+			this.moved = moved;
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package com.spring.ims.serviceImpl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.spring.ims.IConstants.IConstants;
+import com.spring.ims.dto.IssueChangeDto;
+import com.spring.ims.dto.IssueViewDto;
+import com.spring.ims.enums.ChangeType;
+import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.models.IssueChange;
+import com.spring.ims.payload.response.ChangeFeedResponse;
+import com.spring.ims.repository.IssueChangeRepository;
+import com.spring.ims.repository.IssueRepository;
+import com.spring.ims.services.IssueChangeService;
+
+/**
+ * Issue change log. {@code IssueServiceImpl} records one entry per created,
+ * updated or deleted issue inside the writing transaction, the archival job
+ * one per archived issue, and clients poll the log by feed position to mirror
+ * the issue table incrementally.
+ * <p>
+ * Entry ids are taken from a pooled sequence when the entry is persisted, so
+ * an entry with a lower id can commit after one with a higher id and a poller
+ * reading by id would skip it. Positions are therefore handed out after commit
+ * by {@link #sequenceChanges()}, one run at a time across instances, and every
+ * run commits its positions together. A position is only visible once all
+ * lower positions are, so polling with {@code since} never misses an entry.
+ * Entries appear in the feed up to one sequencing interval after their commit.
+ */
+@Service
+public class IssueChangeServiceImpl implements IssueChangeService {
+
+	@Autowired
+	private IssueChangeRepository issueChangeRepository;
+	
+	@Autowired
+	private IssueRepository issueRepository;
+	
+	/**
+	 * Records a change of one issue
+	 * 
+	 * @param issueId
+	 * @param changeType
+	 */
+	@Override
+	public void recordChange(Long issueId, ChangeType changeType) {
+		
+		issueChangeRepository.save(new IssueChange(null, issueId, changeType, new Date(), null));
+	}
+	
+	/**
+	 * Records the same change for many issues. The entries are only persisted,
+	 * they are written with the caller's next flush as one JDBC batch.
+	 * 
+	 * @param issueIds
+	 * @param changeType
+	 */
+	@Override
+	public void recordChanges(List<Long> issueIds, ChangeType changeType) {
+		
+		Date now = new Date();
+		List<IssueChange> changes = new ArrayList<>(issueIds.size());
+		
+		for(Long issueId : issueIds) {
+			changes.add(new IssueChange(null, issueId, changeType, now, null));
+		}
+		
+		issueChangeRepository.saveAll(changes);
+	}
+	
+	/**
+	 * Gives the committed entries without a position the next feed positions.
+	 * The lock row keeps a second run from committing higher positions while
+	 * this one is still open.
+	 * 
+	 * @return number of sequenced entries
+	 */
+	@Override
+	@Transactional
+	@Scheduled(fixedDelayString = "${spring.app.changeFeedSequenceMs}", initialDelayString = "${spring.app.changeFeedSequenceMs}")
+	public int sequenceChanges() {
+		
+		issueChangeRepository.lockFeed();
+		
+		return issueChangeRepository.sequencePending();
+	}
+	
+	/**
+	 * Fetches the changes sequenced after the given cursor, oldest first, each with
+	 * the current state of its issue. Deleted and archived issues are returned as
+	 * tombstones without issue data.
+	 * 
+	 * @param since feed position of the last entry already seen, null to start from the beginning
+	 * @param size
+	 * 
+	 * @return {@link ChangeFeedResponse}
+	 * 
+	 * @throws InvalidInputException
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public ChangeFeedResponse getChanges(Long since, Integer size) throws InvalidInputException {
+		
+		int pageSize = size == null ? IConstants.DEFAULT_PAGE_SIZE : size;
+		
+		// Checks the requested page size
+		if(pageSize < 1 || pageSize > IConstants.MAX_PAGE_SIZE) {
+			throw new InvalidInputException(IConstants.INVALID_PAGE_SIZE);
+		}
+		
+		long cursor = since == null ? 0L : since;
+		
+		// Fetches one extra entry to know whether more changes are waiting
+		List<IssueChange> changes = issueChangeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(cursor,
+				PageRequest.of(0, pageSize + 1));
+		
+		boolean hasMore = changes.size() > pageSize;
+		if(hasMore) {
+			changes = changes.subList(0, pageSize);
+		}
+		
+		// Loads the current state of all changed issues with one query
+		List<Long> issueIds = new ArrayList<>();
+		for(IssueChange change : changes) {
+			if(!isRemoval(change.getChangeType())) {
+				issueIds.add(change.getIssueId());
+			}
+		}
+		
+		Map<Long, IssueViewDto> views = new HashMap<>();
+		if(!issueIds.isEmpty()) {
+			for(IssueViewDto view : issueRepository.findViewsByIds(issueIds)) {
+				views.put(view.getId(), view);
+			}
+		}
+		
+		List<IssueChangeDto> content = new ArrayList<>(changes.size());
+		for(IssueChange change : changes) {
+			content.add(new IssueChangeDto(change.getId(), change.getFeedPosition(), change.getIssueId(), change.getChangeType(),
+					change.getChangedAt(), isRemoval(change.getChangeType()) ? null : views.get(change.getIssueId())));
+		}
+		
+		Long nextCursor = changes.isEmpty() ? cursor : changes.get(changes.size() - 1).getFeedPosition();
+		
+		return new ChangeFeedResponse(content, nextCursor, hasMore);
+	}
+	
+	/**
+	 * Checks whether the change took the issue out of the issue table
+	 * 
+	 * @param changeType
+	 * 
+	 * @return boolean
+	 */
+	private boolean isRemoval(ChangeType changeType) {
+		
+		return changeType == ChangeType.DELETED || changeType == ChangeType.ARCHIVED;
+	}
+}
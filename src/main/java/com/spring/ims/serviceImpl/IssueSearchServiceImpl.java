@@ -0,0 +1,417 @@
+package com.spring.ims.serviceImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.spring.ims.IConstants.IConstants;
+import com.spring.ims.config.ReplicaRoutingDataSource;
+import com.spring.ims.dto.IssueViewDto;
+import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.models.Issue;
+import com.spring.ims.payload.response.SearchResponse;
+import com.spring.ims.repository.IssueRepository;
+import com.spring.ims.services.IssueSearchService;
+
+/**
+ * Full-text search over issue title and description, backed by an embedded
+ * Lucene index. The index only holds issue ids and the analyzed text; results
+ * are loaded from the database, so an issue missing from the table is never
+ * returned even if the index still refers to it. Writes are applied after
+ * the database transaction commits and are visible to searches right away,
+ * the index itself is committed on a schedule and on shutdown.
+ * <p>
+ * A rebuild must not interleave with these writes, or an entry could be
+ * added twice, outlive its issue, or be seen half built. Writers hold
+ * {@link #rebuildLock} shared from just before their commit until their
+ * change is applied, and a rebuild holds it exclusively while it reads the
+ * issues and replaces the index, like the statistics rebuild.
+ */
+@Service
+public class IssueSearchServiceImpl implements IssueSearchService {
+
+	private static final Logger logger = LoggerFactory.getLogger(IssueSearchServiceImpl.class);
+	
+	private static final String FIELD_ID = "id";
+	private static final String FIELD_TITLE = "title";
+	private static final String FIELD_DESCRIPTION = "description";
+	
+	// Title matches rank above description matches
+	private static final Map<String, Float> SEARCH_FIELDS;
+	static {
+		Map<String, Float> fields = new HashMap<>();
+		fields.put(FIELD_TITLE, 2.0f);
+		fields.put(FIELD_DESCRIPTION, 1.0f);
+		SEARCH_FIELDS = Collections.unmodifiableMap(fields);
+	}
+	
+	@Autowired
+	private IssueRepository issueRepository;
+	
+	@Value("${spring.app.searchIndexPath}")
+	private String indexPath;
+	
+	private final Analyzer analyzer = new StandardAnalyzer();
+	
+	private Directory directory;
+	
+	private IndexWriter writer;
+	
+	private SearcherManager searcherManager;
+	
+	private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+	
+	/**
+	 * Opens the index, creating it on first start
+	 * 
+	 * @throws IOException
+	 */
+	@PostConstruct
+	public void open() throws IOException {
+		
+		directory = FSDirectory.open(Paths.get(indexPath));
+		
+		IndexWriterConfig config = new IndexWriterConfig(analyzer);
+		config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+		
+		writer = new IndexWriter(directory, config);
+		searcherManager = new SearcherManager(writer, null);
+	}
+	
+	/**
+	 * Commits pending changes and releases the index
+	 * 
+	 * @throws IOException
+	 */
+	@PreDestroy
+	public void close() throws IOException {
+		
+		searcherManager.close();
+		writer.close();
+		directory.close();
+	}
+	
+	/**
+	 * Adds or replaces the index entry of an issue once the current transaction commits
+	 * 
+	 * @param issue
+	 */
+	@Override
+	public void indexIssue(Issue issue) {
+		
+		indexIssues(Collections.singletonList(issue));
+	}
+	
+	/**
+	 * Adds or replaces the index entries of several issues once the current
+	 * transaction commits. The entries are built right away, from the issues
+	 * as they are now.
+	 * 
+	 * @param issues
+	 */
+	@Override
+	public void indexIssues(List<Issue> issues) {
+		
+		List<Document> documents = new ArrayList<>(issues.size());
+		for(Issue issue : issues) {
+			documents.add(createDocument(issue.getId(), issue.getTitle(), issue.getDescription()));
+		}
+		
+		afterCommit(() -> {
+			try {
+				for(Document document : documents) {
+					writer.updateDocument(new Term(FIELD_ID, document.get(FIELD_ID)), document);
+				}
+				searcherManager.maybeRefresh();
+			}
+			catch(IOException e) {
+				// The database write stands, the index can be rebuilt
+				logger.error("Cannot index issues: {}", e.getMessage());
+			}
+		});
+	}
+	
+	/**
+	 * Removes an issue from the index once the current transaction commits
+	 * 
+	 * @param issueId
+	 */
+	@Override
+	public void removeIssue(Long issueId) {
+		
+		removeIssues(Collections.singletonList(issueId));
+	}
+	
+	/**
+	 * Removes several issues from the index once the current transaction commits
+	 * 
+	 * @param issueIds
+	 */
+	@Override
+	public void removeIssues(List<Long> issueIds) {
+		
+		Term[] terms = new Term[issueIds.size()];
+		for(int i = 0; i < terms.length; i++) {
+			terms[i] = new Term(FIELD_ID, issueIds.get(i).toString());
+		}
+		
+		afterCommit(() -> {
+			try {
+				writer.deleteDocuments(terms);
+				searcherManager.maybeRefresh();
+			}
+			catch(IOException e) {
+				logger.error("Cannot remove issues from index: {}", e.getMessage());
+			}
+		});
+	}
+	
+	/**
+	 * Makes the index changes since the last commit durable. Searches see
+	 * changes as soon as they are applied, the commit only bounds what is
+	 * reindexed after a crash; {@link #close()} commits the rest.
+	 */
+	@Scheduled(fixedDelayString = "${spring.app.searchCommitIntervalMs}", initialDelayString = "${spring.app.searchCommitIntervalMs}")
+	public void commitIndex() {
+		
+		try {
+			if(writer.hasUncommittedChanges()) {
+				writer.commit();
+			}
+		}
+		catch(IOException e) {
+			logger.error("Cannot commit issue index: {}", e.getMessage());
+		}
+	}
+	
+	/**
+	 * Searches title and description. Terms are combined with AND, quotes,
+	 * prefix* and -exclusion are supported. {@code totalHits} is exact up to
+	 * 1000 matches and a lower bound above that.
+	 * 
+	 * @param query
+	 * @param page zero based page number
+	 * @param size
+	 * 
+	 * @return {@link SearchResponse<IssueViewDto>}
+	 * 
+	 * @throws InvalidInputException
+	 */
+	@Override
+	public SearchResponse<IssueViewDto> search(String query, Integer page, Integer size) throws InvalidInputException {
+		
+		int pageNumber = page == null ? 0 : page;
+		int pageSize = size == null ? IConstants.DEFAULT_PAGE_SIZE : size;
+		
+		// Performs empty and range checks
+		if(query == null || query.trim().isEmpty()) {
+			throw new InvalidInputException(IConstants.SEARCH_QUERY_NULL_OR_EMPTY);
+		}
+		if(pageNumber < 0) {
+			throw new InvalidInputException(IConstants.INVALID_PAGE);
+		}
+		if(pageSize < 1 || pageSize > IConstants.MAX_PAGE_SIZE || (long) (pageNumber + 1) * pageSize > IConstants.MAX_SEARCH_WINDOW) {
+			throw new InvalidInputException(IConstants.INVALID_PAGE_SIZE);
+		}
+		
+		SimpleQueryParser parser = new SimpleQueryParser(analyzer, SEARCH_FIELDS);
+		parser.setDefaultOperator(BooleanClause.Occur.MUST);
+		Query luceneQuery = parser.parse(query);
+		
+		// Query made only of stop words
+		if(luceneQuery == null) {
+			return new SearchResponse<>(Collections.emptyList(), 0, pageNumber, 0);
+		}
+		
+		List<Long> ids = new ArrayList<>(pageSize);
+		long totalHits;
+		
+		try {
+			IndexSearcher searcher = searcherManager.acquire();
+			try {
+				TopDocs topDocs = searcher.search(luceneQuery, (pageNumber + 1) * pageSize);
+				totalHits = topDocs.totalHits.value;
+				
+				ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+				for(int i = pageNumber * pageSize; i < scoreDocs.length; i++) {
+					ids.add(Long.valueOf(searcher.doc(scoreDocs[i].doc).get(FIELD_ID)));
+				}
+			}
+			finally {
+				searcherManager.release(searcher);
+			}
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		if(ids.isEmpty()) {
+			return new SearchResponse<>(Collections.emptyList(), totalHits, pageNumber, 0);
+		}
+		
+		// Loads the matching issues and restores the rank order
+		Map<Long, IssueViewDto> issuesById = new HashMap<>();
+		for(IssueViewDto issue : issueRepository.findViewsByIds(ids)) {
+			issuesById.put(issue.getId(), issue);
+		}
+		
+		List<IssueViewDto> issues = new ArrayList<>(ids.size());
+		for(Long id : ids) {
+			IssueViewDto issue = issuesById.get(id);
+			if(issue != null) {
+				issues.add(issue);
+			}
+		}
+		
+		return new SearchResponse<>(issues, totalHits, pageNumber, issues.size());
+	}
+	
+	/**
+	 * Drops the index and indexes every issue again from the primary. Writes
+	 * wait before their commit until the new index is in place.
+	 * 
+	 * @return number of indexed issues
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public long rebuildIndex() {
+		
+		long count = 0;
+		
+		// Taken before the first statement, so the stream sees every write applied so far
+		rebuildLock.writeLock().lock();
+		ReplicaRoutingDataSource.usePrimary();
+		try (Stream<IssueViewDto> issues = issueRepository.streamAllViews()) {
+			
+			writer.deleteAll();
+			
+			Iterator<IssueViewDto> iterator = issues.iterator();
+			while(iterator.hasNext()) {
+				IssueViewDto issue = iterator.next();
+				writer.addDocument(createDocument(issue.getId(), issue.getTitle(), issue.getDescription()));
+				count++;
+			}
+			
+			commit();
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		finally {
+			rebuildLock.writeLock().unlock();
+		}
+		
+		logger.info("Rebuilt issue index with {} issues", count);
+		
+		return count;
+	}
+	
+	/**
+	 * Builds the index entry of an issue, only the id is stored
+	 */
+	private Document createDocument(Long id, String title, String description) {
+		
+		Document document = new Document();
+		document.add(new StringField(FIELD_ID, id.toString(), Field.Store.YES));
+		
+		if(title != null) {
+			document.add(new TextField(FIELD_TITLE, title, Field.Store.NO));
+		}
+		if(description != null) {
+			document.add(new TextField(FIELD_DESCRIPTION, description, Field.Store.NO));
+		}
+		
+		return document;
+	}
+	
+	/**
+	 * Makes index changes durable and visible to new searches
+	 */
+	private void commit() throws IOException {
+		
+		writer.commit();
+		searcherManager.maybeRefresh();
+	}
+	
+	/**
+	 * Runs the index change after the current transaction commits, so rolled
+	 * back writes never reach the index. Runs it right away outside of a
+	 * transaction. Either way no rebuild runs between the commit and the change.
+	 */
+	private void afterCommit(Runnable change) {
+		
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			rebuildLock.readLock().lock();
+			try {
+				change.run();
+			}
+			finally {
+				rebuildLock.readLock().unlock();
+			}
+			return;
+		}
+		
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			
+			private boolean locked;
+			
+			@Override
+			public void beforeCommit(boolean readOnly) {
+				rebuildLock.readLock().lock();
+				locked = true;
+			}
+			
+			@Override
+			public void afterCommit() {
+				change.run();
+			}
+			
+			@Override
+			public void afterCompletion(int status) {
+				if(locked) {
+					rebuildLock.readLock().unlock();
+				}
+			}
+		});
+	}
+}
@@ -1,24 +1,58 @@
 package com.spring.ims.serviceImpl;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
 import com.spring.ims.IConstants.IConstants;
+import com.spring.ims.config.CacheConfig;
+import com.spring.ims.config.ReplicaRoutingDataSource;
 import com.spring.ims.dto.IssueDto;
+import com.spring.ims.dto.IssueFilterDto;
+import com.spring.ims.dto.IssueTransitionDto;
+import com.spring.ims.dto.IssueViewDto;
+import com.spring.ims.enums.ChangeType;
 import com.spring.ims.enums.Severity;
 import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.exception.PreconditionFailedException;
 import com.spring.ims.exception.ResourceNotFoundException;
 import com.spring.ims.models.Issue;
 import com.spring.ims.models.User;
+import com.spring.ims.payload.response.BatchItemResult;
+import com.spring.ims.payload.response.BatchResponse;
+import com.spring.ims.payload.response.PageResponse;
+import com.spring.ims.repository.IssueArchiveRepository;
 import com.spring.ims.repository.IssueRepository;
 import com.spring.ims.repository.UserRepository;
 import com.spring.ims.security.services.UserDetailsImpl;
+import com.spring.ims.services.IssueChangeService;
+import com.spring.ims.services.IssueSearchService;
 import com.spring.ims.services.IssueService;
+import com.spring.ims.services.IssueStatsService;
 
 @Service
 public class IssueServiceImpl implements IssueService {
@@ -26,9 +60,32 @@ public class IssueServiceImpl implements IssueService {
 	@Autowired
 	private IssueRepository issueRepository;
 
+	@Autowired
+	private IssueArchiveRepository issueArchiveRepository;
+
 	@Autowired
 	private UserRepository userRepository;
 	
+	@Autowired
+	private IssueSearchService issueSearchService;
+	
+	@Autowired
+	private IssueStatsService issueStatsService;
+	
+	@Autowired
+	private IssueChangeService issueChangeService;
+	
+	@Autowired
+	private Validator validator;
+	
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	
 	
 	/**
 	 * Add new issue to the DB
@@ -41,55 +98,116 @@ public class IssueServiceImpl implements IssueService {
 	 * 
 	 */
 	@Override
+	@Transactional
 	public Issue addIssue(IssueDto issueDto) throws InvalidInputException {
 		
 		// Performs empty and null checks
-		if(issueDto == null) {
+		validateIssueDto(issueDto);
+		
+		Issue issue = new Issue();
+		issue.setUser(getCurrentUser());
+		
+		// Saves issue data to the DB
+		Issue savedIssue = issueRepository.save(setIssueValue(issueDto, issue));
+		issueChangeService.recordChange(savedIssue.getId(), ChangeType.CREATED);
+		
+		issueSearchService.indexIssue(savedIssue);
+		issueStatsService.issueAdded(savedIssue);
+		
+		return savedIssue;
+	}
+	
+	
+	/**
+	 * Adds a list of issues owned by the current user. Every item is validated
+	 * first, the owner is looked up once and valid issues are inserted in JDBC
+	 * batches of {@link IConstants#ISSUE_BATCH_SIZE}. Invalid items are reported
+	 * in the response and do not stop the rest of the batch.
+	 * 
+	 * @param issueDtos
+	 * 
+	 * @return {@link BatchResponse}
+	 * 
+	 * @throws InvalidInputException
+	 */
+	@Override
+	@Transactional
+	public BatchResponse addIssues(List<IssueDto> issueDtos) throws InvalidInputException {
+		
+		// Checks the batch itself
+		if(issueDtos == null || issueDtos.isEmpty()) {
 			throw new InvalidInputException(IConstants.REQUEST_NULL_OR_EMPTY);
 		}
-		if(!validateString(issueDto.getTitle())) {
-			throw new InvalidInputException(IConstants.TITLE_NULL_OR_EMPTY);
-		}
-		if(!validateString(issueDto.getDescription())) {
-			throw new InvalidInputException(IConstants.DESCRIPTION_NULL_OR_EMPTY);
-		}
-		if(!validateString(issueDto.getStatus())) {
-			throw new InvalidInputException(IConstants.STATUS_NULL_OR_EMPTY);
-		}
-		if(!validateString(issueDto.getResponsible())) {
-			throw new InvalidInputException(IConstants.RESPONSIBLE_NULL_OR_EMPTY);
+		if(issueDtos.size() > IConstants.MAX_ISSUE_BATCH) {
+			throw new InvalidInputException(IConstants.BATCH_TOO_LARGE);
 		}
 		
-		Issue issue = new Issue();
-
-		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-		String username = ((UserDetailsImpl) auth.getPrincipal()).getUsername();
-		Optional<User> userOpt = userRepository.findByUsername(username);
-
-		if(!userOpt.isPresent()){
-
-			throw new ResourceNotFoundException(IConstants.USER_NOT_FOUND);
+		User user = getCurrentUser();
+		
+		List<BatchItemResult> results = new ArrayList<>(issueDtos.size());
+		List<Issue> pending = new ArrayList<>(IConstants.ISSUE_BATCH_SIZE);
+		List<BatchItemResult> pendingResults = new ArrayList<>(IConstants.ISSUE_BATCH_SIZE);
+		int created = 0;
+		
+		for(int index = 0; index < issueDtos.size(); index++) {
+			
+			IssueDto issueDto = issueDtos.get(index);
+			BatchItemResult result = new BatchItemResult(index, null, null);
+			results.add(result);
+			
+			// Validates the item without failing the batch
+			Issue issue;
+			try {
+				validateIssueDto(issueDto);
+				issue = new Issue();
+				issue.setUser(user);
+				setIssueValue(issueDto, issue);
+			}
+			catch(InvalidInputException e) {
+				result.setError(e.getMessage());
+				continue;
+			}
+			
+			Set<ConstraintViolation<Issue>> violations = validator.validate(issue);
+			if(!violations.isEmpty()) {
+				ConstraintViolation<Issue> violation = violations.iterator().next();
+				result.setError(violation.getPropertyPath() + " " + violation.getMessage());
+				continue;
+			}
+			
+			entityManager.persist(issue);
+			pending.add(issue);
+			pendingResults.add(result);
+			
+			if(pending.size() == IConstants.ISSUE_BATCH_SIZE) {
+				created += flushBatch(pending, pendingResults);
+			}
 		}
-
-		issue.setUser(userOpt.get());
 		
-		// Saves issue data to the DB
-		return issueRepository.save(setIssueValue(issueDto, issue));	
+		created += flushBatch(pending, pendingResults);
+		
+		return new BatchResponse(created, issueDtos.size() - created, results);
 	}
 	
-	
 	/**
-	 * This API updates an existing issue.
+	 * This API updates an existing issue. When {@code expectedVersions} is given the
+	 * update only happens if the issue still has one of those versions. The UPDATE statement
+	 * itself is always version checked, so a concurrent change between read and
+	 * write fails instead of being overwritten.
 	 * 
 	 * @PathVariabe issueId
 	 * @RequestBody issueDto
+	 * @param expectedVersions versions listed in If-Match, null to skip the check
 	 * 
 	 * @return {@link ResponseEntity<Issue>}
 	 * 
 	 * @throws InvalidInputException
+	 * @throws PreconditionFailedException
 	 */
 	@Override
-	public Issue updateIssue(Long issueId, IssueDto issueDto) throws InvalidInputException, ResourceNotFoundException{
+	@Transactional
+	@CacheEvict(cacheNames = CacheConfig.ISSUE_CACHE, key = "#issueId")
+	public Issue updateIssue(Long issueId, IssueDto issueDto, Set<Long> expectedVersions) throws InvalidInputException, ResourceNotFoundException, PreconditionFailedException{
 		
 		// Checks whether issue Id is empty or null.
 		if (issueId == null) {
@@ -97,33 +215,151 @@ public class IssueServiceImpl implements IssueService {
 		}
 		
 		// Performs empty and null checks
-		if (issueDto == null) {
+		validateIssueDto(issueDto);
+		
+		// Fetches issue by Issue Id, with the owner that the returned view needs
+		Optional<Issue> optionalIssue = issueRepository.findWithUserById(issueId);
+
+		if (!optionalIssue.isPresent()) {
+			throw new ResourceNotFoundException(IConstants.ISSUE_NOT_FOUND);
+		}
+		
+		Issue issue = optionalIssue.get();
+		
+		// Checks that the issue still has one of the client's versions
+		if (expectedVersions != null && !expectedVersions.contains(issue.getVersion())) {
+			throw new PreconditionFailedException(IConstants.ISSUE_VERSION_MISMATCH);
+		}
+		
+		// Keeps the previous grouping for the statistics
+		Severity oldSeverity = issue.getSeverity();
+		String oldStatus = issue.getStatus();
+		String oldResponsible = issue.getResponsible();
+		
+		// Saves updated issue data to the DB
+		Issue savedIssue = issueRepository.save(setIssueValue(issueDto, issue));
+		issueChangeService.recordChange(issueId, ChangeType.UPDATED);
+		
+		issueSearchService.indexIssue(savedIssue);
+		issueStatsService.issueChanged(oldSeverity, oldStatus, oldResponsible, savedIssue);
+		
+		return savedIssue;
+
+	}
+	
+	/**
+	 * Changes status and/or severity of many issues, selected either by id or by
+	 * filter. Listed ids are updated in one transaction, with one UPDATE
+	 * statement per {@link IConstants#IN_CLAUSE_SIZE} issues. Filter matches are
+	 * locked and updated in id order, {@link IConstants#BULK_CHUNK_SIZE} per
+	 * transaction, so row locks are held only for one chunk however many issues
+	 * match; a failure leaves the chunks before it applied. Every updated issue
+	 * gets a change log entry.
+	 * 
+	 * @param transitionDto
+	 * 
+	 * @return number of updated issues
+	 * 
+	 * @throws InvalidInputException
+	 */
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.ISSUE_CACHE, allEntries = true)
+	public int transitionIssues(IssueTransitionDto transitionDto) throws InvalidInputException {
+		
+		// Checks that there is something to set
+		if(transitionDto == null) {
 			throw new InvalidInputException(IConstants.REQUEST_NULL_OR_EMPTY);
 		}
-		if (!validateString(issueDto.getTitle())) {
-			throw new InvalidInputException(IConstants.TITLE_NULL_OR_EMPTY);
+		if(!validateString(transitionDto.getStatus()) && !validateString(transitionDto.getSeverity())) {
+			throw new InvalidInputException(IConstants.TRANSITION_TARGET_REQUIRED);
 		}
-		if (!validateString(issueDto.getDescription())) {
-			throw new InvalidInputException(IConstants.DESCRIPTION_NULL_OR_EMPTY);
+		
+		String newStatus = emptyToNull(transitionDto.getStatus());
+		Severity newSeverity = Severity.fromName(transitionDto.getSeverity());
+		
+		int updated = 0;
+		
+		// Updates the listed issues
+		if(transitionDto.getIds() != null && !transitionDto.getIds().isEmpty()) {
+			
+			List<Long> ids = transitionDto.getIds();
+			if(ids.size() > IConstants.MAX_ISSUE_BATCH) {
+				throw new InvalidInputException(IConstants.BATCH_TOO_LARGE);
+			}
+			
+			updated = transactionTemplate.execute(transaction -> {
+				int count = 0;
+				for(int from = 0; from < ids.size(); from += IConstants.IN_CLAUSE_SIZE) {
+					
+					List<Long> chunk = ids.subList(from, Math.min(from + IConstants.IN_CLAUSE_SIZE, ids.size()));
+					
+					// The previous groups are read under lock, so they are the ones the update changes
+					List<Issue> before = issueRepository.lockGroupingsByIds(chunk);
+					
+					// Each bulk update flushes the change entries of the previous chunk
+					count += issueRepository.transitionByIds(chunk, newStatus, newSeverity);
+					issueChangeService.recordChanges(chunk, ChangeType.UPDATED);
+					issueStatsService.issuesTransitioned(before, newStatus, newSeverity);
+				}
+				return count;
+			});
 		}
-		if (!validateString(issueDto.getStatus())) {
-			throw new InvalidInputException(IConstants.STATUS_NULL_OR_EMPTY);
+		else {
+			
+			// Otherwise updates the issues matching the filter, which must not be empty
+			IssueFilterDto filter = transitionDto.getFilter();
+			if(filter == null || (!validateString(filter.getStatus()) && !validateString(filter.getSeverity())
+					&& !validateString(filter.getResponsible()) && filter.getUserId() == null)) {
+				throw new InvalidInputException(IConstants.TRANSITION_SCOPE_REQUIRED);
+			}
+			
+			String status = emptyToNull(filter.getStatus());
+			Severity severity = Severity.fromName(filter.getSeverity());
+			String responsible = emptyToNull(filter.getResponsible());
+			
+			long afterId = 0L;
+			List<Issue> chunk;
+			do {
+				long from = afterId;
+				chunk = transactionTemplate.execute(transaction -> transitionChunk(from, status, severity, responsible,
+						filter.getUserId(), newStatus, newSeverity));
+				
+				// Issues that still match after the update are not visited again
+				if(!chunk.isEmpty()) {
+					afterId = chunk.get(chunk.size() - 1).getId();
+					updated += chunk.size();
+				}
+			} while(chunk.size() == IConstants.BULK_CHUNK_SIZE);
 		}
-		if (!validateString(issueDto.getResponsible())) {
-			throw new InvalidInputException(IConstants.RESPONSIBLE_NULL_OR_EMPTY);
+		
+		return updated;
+	}
+	
+	/**
+	 * Locks the next chunk of issues matching the filter, updates them with one
+	 * statement, logs the changes and moves them between statistics groups
+	 * 
+	 * @return the locked issues, all of which were updated
+	 */
+	private List<Issue> transitionChunk(long afterId, String status, Severity severity, String responsible,
+			Long userId, String newStatus, Severity newSeverity) {
+		
+		List<Issue> chunk = issueRepository.lockPageByFilter(afterId, status, severity, responsible, userId,
+				IConstants.BULK_CHUNK_SIZE);
+		if(chunk.isEmpty()) {
+			return chunk;
 		}
 		
-		// Fetches issue by Issue Id
-		Optional<Issue> optionalIssue = issueRepository.findById(issueId);
-
-		if (!optionalIssue.isPresent()) {
-			throw new ResourceNotFoundException(IConstants.ISSUE_NOT_FOUND);
+		List<Long> ids = new ArrayList<>(chunk.size());
+		for(Issue issue : chunk) {
+			ids.add(issue.getId());
 		}
 		
+		issueRepository.transitionByIds(ids, newStatus, newSeverity);
+		issueChangeService.recordChanges(ids, ChangeType.UPDATED);
+		issueStatsService.issuesTransitioned(chunk, newStatus, newSeverity);
 		
-		// Saves updated issue data to the DB
-		return issueRepository.save(setIssueValue(issueDto, optionalIssue.get()));
-
+		return chunk;
 	}
 	
 	/**
@@ -133,32 +369,134 @@ public class IssueServiceImpl implements IssueService {
 	 * 
 	 */
 	@Override
+	@Transactional(readOnly = true)
 	public List<Issue> getAllIssues() {
 		
-		// Fetches list of issues
-		return issueRepository.findAll();
+		// Fetches list of issues with their owners
+		return issueRepository.findAllWithUser();
+	}
+	
+	/**
+	 * Fetches one keyset page of issues matching the given filter
+	 * 
+	 * @param filter
+	 * @param cursor id of the last issue of the previous page, null for the first page
+	 * @param size
+	 * 
+	 * @return {@link PageResponse<IssueViewDto>}
+	 * 
+	 * @throws InvalidInputException
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public PageResponse<IssueViewDto> getIssues(IssueFilterDto filter, Long cursor, Integer size) throws InvalidInputException {
+		
+		int pageSize = size == null ? IConstants.DEFAULT_PAGE_SIZE : size;
+		
+		// Checks the requested page size
+		if(pageSize < 1 || pageSize > IConstants.MAX_PAGE_SIZE) {
+			throw new InvalidInputException(IConstants.INVALID_PAGE_SIZE);
+		}
+		
+		if(filter == null) {
+			filter = new IssueFilterDto();
+		}
+		
+		// Fetches one extra row to know whether another page exists
+		List<IssueViewDto> issues = issueRepository.findViewPageAfter(
+				cursor == null ? 0L : cursor,
+				emptyToNull(filter.getStatus()),
+				Severity.fromName(filter.getSeverity()),
+				emptyToNull(filter.getResponsible()),
+				filter.getUserId(),
+				PageRequest.of(0, pageSize + 1));
+		
+		Long nextCursor = null;
+		if(issues.size() > pageSize) {
+			issues = issues.subList(0, pageSize);
+			nextCursor = issues.get(pageSize - 1).getId();
+		}
+		
+		return new PageResponse<>(issues, nextCursor, issues.size());
+	}
+	
+	/**
+	 * Writes every issue as newline-delimited JSON, one object per line.
+	 * Rows are read through a database cursor and the persistence context is
+	 * cleared every {@link IConstants#EXPORT_FETCH_SIZE} rows, so memory use does
+	 * not grow with the number of issues.
+	 * 
+	 * @param out
+	 * 
+	 * @return number of exported issues
+	 * 
+	 * @throws IOException
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public long exportIssues(OutputStream out) throws IOException {
+		
+		long count = 0;
+		
+		JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+		
+		try (Stream<Issue> issues = issueRepository.streamAllWithUser()) {
+			
+			Iterator<Issue> iterator = issues.iterator();
+			while(iterator.hasNext()) {
+				
+				writeIssue(generator, iterator.next());
+				
+				// Detaches written rows and pushes them to the client
+				if(++count % IConstants.EXPORT_FETCH_SIZE == 0) {
+					entityManager.clear();
+					generator.flush();
+				}
+			}
+		}
+		
+		if(count > 0) {
+			generator.writeRaw('\n');
+		}
+		generator.close();
+		
+		return count;
 	}
 	
 	/**
-	 * Fetches issue by issue Id
+	 * Fetches issue by issue Id, from the archive if it is no longer live.
+	 * Results are served from the issue cache until they expire, are evicted,
+	 * or the issue is updated or deleted. Loads read the primary, so a lagging
+	 * replica cannot put an outdated issue back into the cache.
 	 * 
 	 * @PathVariable issueId
 	 * 
-	 * @return {link {ResponseEntity<Issue>}}
+	 * @return {@link IssueViewDto}
 	 * 
 	 * @throws Exception
 	 * 
 	 */
 	@Override
-	public Issue getIssueById(Long issueId) throws InvalidInputException, ResourceNotFoundException {
+	@Cacheable(cacheNames = CacheConfig.ISSUE_CACHE)
+	@Transactional(readOnly = true)
+	public IssueViewDto getIssueById(Long issueId) throws InvalidInputException, ResourceNotFoundException {
 		
 		// Checks whether issue Id is empty or null.
 		if(issueId == null) {
 			throw new InvalidInputException(IConstants.ISSUE_ID_NULL_OR_EMPTY);
 		}
 		
+		ReplicaRoutingDataSource.usePrimary();
+		
 		// Fetches issue by Issue Id
-		Optional<Issue> optionalIssue = issueRepository.findById(issueId);
+		Optional<IssueViewDto> optionalIssue = issueRepository.findViewById(issueId);
+		
+		// Falls back to archived issues
+		if(!optionalIssue.isPresent()) {
+			optionalIssue = issueArchiveRepository.findViewById(issueId);
+		}
 		
 		// Checks whether issue is present or not
 		if(!optionalIssue.isPresent()) {
@@ -170,7 +508,10 @@ public class IssueServiceImpl implements IssueService {
 	}
 	
 	/**
-	 * Deletes issue By issue Id
+	 * Deletes issue By issue Id with a single DELETE statement, which also
+	 * returns the grouping the statistics need. Like {@link #getIssueById(Long)}
+	 * it falls back to the archive, so an issue that can be fetched can also be
+	 * deleted.
 	 * 
 	 * @PathVriable issueId
 	 * 
@@ -179,15 +520,198 @@ public class IssueServiceImpl implements IssueService {
 	 * @throws Exception
 	 */
 	@Override
-	public void deleteIssueById(Long issueId) throws InvalidInputException{
+	@Transactional
+	@CacheEvict(cacheNames = CacheConfig.ISSUE_CACHE, key = "#issueId")
+	public void deleteIssueById(Long issueId) throws InvalidInputException, ResourceNotFoundException{
 		
 		// Checks whether issue Id is empty or null
 		if(issueId == null) {
 			throw new InvalidInputException(IConstants.ISSUE_ID_NULL_OR_EMPTY);
 		}
 		
-		// Deletes issue by Issue Id
-		issueRepository.deleteById(issueId);
+		// Deletes issue, no row means it is archived or did not exist
+		Optional<Issue> deletedIssue = issueRepository.deleteByIdReturning(issueId);
+		
+		if(!deletedIssue.isPresent()) {
+			
+			// Archived issues already left the index and the statistics
+			if(issueArchiveRepository.deleteArchivedById(issueId) == 0) {
+				throw new ResourceNotFoundException(IConstants.ISSUE_NOT_FOUND);
+			}
+			
+			issueChangeService.recordChange(issueId, ChangeType.DELETED);
+			return;
+		}
+		
+		// Leaves a tombstone in the change log
+		issueChangeService.recordChange(issueId, ChangeType.DELETED);
+		
+		// Applied once the delete commits, like the chunks of deleteIssues
+		issueSearchService.removeIssue(issueId);
+		issueStatsService.issueRemoved(deletedIssue.get());
+	}
+	
+	/**
+	 * Deletes every issue matching the filter, which must not be empty. Issues
+	 * are deleted in chunks of {@link IConstants#BULK_CHUNK_SIZE}, each in its
+	 * own transaction, so row locks are held only for one chunk however many
+	 * issues match. Every deleted issue gets a DELETED change entry and leaves
+	 * the search index and the statistics.
+	 * 
+	 * @param filter
+	 * 
+	 * @return number of deleted issues
+	 * 
+	 * @throws InvalidInputException
+	 */
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.ISSUE_CACHE, allEntries = true)
+	public long deleteIssues(IssueFilterDto filter) throws InvalidInputException {
+		
+		// Checks that the filter restricts the deletion
+		if(filter == null || (!validateString(filter.getStatus()) && !validateString(filter.getSeverity())
+				&& !validateString(filter.getResponsible()) && filter.getUserId() == null)) {
+			throw new InvalidInputException(IConstants.DELETE_FILTER_REQUIRED);
+		}
+		
+		String status = emptyToNull(filter.getStatus());
+		Severity severity = Severity.fromName(filter.getSeverity());
+		String responsible = emptyToNull(filter.getResponsible());
+		
+		long deleted = 0;
+		long afterId = 0L;
+		List<Issue> chunk;
+		do {
+			long from = afterId;
+			chunk = transactionTemplate.execute(transaction ->
+					deleteChunk(from, status, severity, responsible, filter.getUserId()));
+			
+			// Committed, so the index and counters follow
+			if(!chunk.isEmpty()) {
+				List<Long> ids = new ArrayList<>(chunk.size());
+				for(Issue issue : chunk) {
+					ids.add(issue.getId());
+					afterId = Math.max(afterId, issue.getId());
+					issueStatsService.issueRemoved(issue);
+				}
+				issueSearchService.removeIssues(ids);
+				deleted += chunk.size();
+			}
+		} while(chunk.size() == IConstants.BULK_CHUNK_SIZE);
+		
+		return deleted;
+	}
+	
+	/**
+	 * Locks up to a chunk of matching issues and deletes them
+	 * 
+	 * @return the deleted issues with their grouping
+	 */
+	private List<Issue> deleteChunk(long afterId, String status, Severity severity, String responsible, Long userId) {
+		
+		List<Long> ids = new ArrayList<>(IConstants.BULK_CHUNK_SIZE);
+		for(Issue issue : issueRepository.lockPageByFilter(afterId, status, severity, responsible, userId,
+				IConstants.BULK_CHUNK_SIZE)) {
+			ids.add(issue.getId());
+		}
+		if(ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+		
+		List<Issue> chunk = issueRepository.deleteByIdsReturning(ids);
+		
+		List<Long> deletedIds = new ArrayList<>(chunk.size());
+		for(Issue issue : chunk) {
+			deletedIds.add(issue.getId());
+		}
+		issueChangeService.recordChanges(deletedIds, ChangeType.DELETED);
+		
+		return chunk;
+	}
+	
+	/**
+	 * Sends the pending inserts as one JDBC batch, records the generated ids,
+	 * indexes and detaches the inserted issues
+	 * 
+	 * @param pending
+	 * @param pendingResults
+	 * 
+	 * @return number of inserted issues
+	 */
+	private int flushBatch(List<Issue> pending, List<BatchItemResult> pendingResults) {
+		
+		if(pending.isEmpty()) {
+			return 0;
+		}
+		
+		// Ids are assigned on persist, so the change entries join the same flush
+		List<Long> ids = new ArrayList<>(pending.size());
+		for(int i = 0; i < pending.size(); i++) {
+			ids.add(pending.get(i).getId());
+			pendingResults.get(i).setId(pending.get(i).getId());
+		}
+		issueChangeService.recordChanges(ids, ChangeType.CREATED);
+		
+		entityManager.flush();
+		
+		issueSearchService.indexIssues(pending);
+		for(Issue issue : pending) {
+			issueStatsService.issueAdded(issue);
+		}
+		
+		int count = pending.size();
+		pending.clear();
+		pendingResults.clear();
+		entityManager.clear();
+		
+		return count;
+	}
+	
+	/**
+	 * Fetches the user of the current request
+	 * 
+	 * @return User
+	 * 
+	 * @throws ResourceNotFoundException
+	 */
+	private User getCurrentUser() throws ResourceNotFoundException {
+		
+		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+		String username = ((UserDetailsImpl) auth.getPrincipal()).getUsername();
+		Optional<User> userOpt = userRepository.findByUsername(username);
+
+		if(!userOpt.isPresent()){
+
+			throw new ResourceNotFoundException(IConstants.USER_NOT_FOUND);
+		}
+		
+		return userOpt.get();
+	}
+	
+	/**
+	 * Performs empty and null checks on an issue request
+	 * 
+	 * @param issueDto
+	 * 
+	 * @throws InvalidInputException
+	 */
+	private void validateIssueDto(IssueDto issueDto) throws InvalidInputException {
+		
+		if(issueDto == null) {
+			throw new InvalidInputException(IConstants.REQUEST_NULL_OR_EMPTY);
+		}
+		if(!validateString(issueDto.getTitle())) {
+			throw new InvalidInputException(IConstants.TITLE_NULL_OR_EMPTY);
+		}
+		if(!validateString(issueDto.getDescription())) {
+			throw new InvalidInputException(IConstants.DESCRIPTION_NULL_OR_EMPTY);
+		}
+		if(!validateString(issueDto.getStatus())) {
+			throw new InvalidInputException(IConstants.STATUS_NULL_OR_EMPTY);
+		}
+		if(!validateString(issueDto.getResponsible())) {
+			throw new InvalidInputException(IConstants.RESPONSIBLE_NULL_OR_EMPTY);
+		}
 	}
 	
 	/**
@@ -202,6 +726,45 @@ public class IssueServiceImpl implements IssueService {
 		return (text != null && !text.isEmpty());
 	}
 	
+	/**
+	 * Writes a single issue as a flat JSON object with the owner's id and username
+	 * 
+	 * @param generator
+	 * @param issue
+	 * 
+	 * @throws IOException
+	 */
+	private void writeIssue(JsonGenerator generator, Issue issue) throws IOException {
+		
+		generator.writeStartObject();
+		generator.writeNumberField("id", issue.getId());
+		generator.writeStringField("title", issue.getTitle());
+		generator.writeStringField("responsible", issue.getResponsible());
+		generator.writeStringField("description", issue.getDescription());
+		generator.writeStringField("status", issue.getStatus());
+		generator.writeStringField("severity", issue.getSeverity() == null ? null : issue.getSeverity().name());
+		
+		User user = issue.getUser();
+		if(user != null) {
+			generator.writeNumberField("userId", user.getId());
+			generator.writeStringField("username", user.getUsername());
+		}
+		
+		generator.writeEndObject();
+	}
+	
+	/**
+	 * Returns null for an empty string so that it is ignored as a filter
+	 * 
+	 * @param text
+	 * 
+	 * @return String
+	 */
+	private String emptyToNull(String text) {
+		
+		return validateString(text) ? text : null;
+	}
+	
 	/**
 	 * Sets issue Info
 	 * 
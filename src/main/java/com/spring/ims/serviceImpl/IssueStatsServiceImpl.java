@@ -0,0 +1,288 @@
+package com.spring.ims.serviceImpl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.spring.ims.dto.IssueCountDto;
+import com.spring.ims.enums.Severity;
+import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.models.Issue;
+import com.spring.ims.repository.IssueRepository;
+import com.spring.ims.services.IssueStatsService;
+
+/**
+ * In-memory issue counters per severity, status and responsible. The table is
+ * loaded with one GROUP BY query at startup and then kept up to date by
+ * {@code IssueServiceImpl} after each committed write, so reads never touch the
+ * database.
+ * Counters are per application instance.
+ * <p>
+ * A rebuild must not lose a write that commits while its query runs, nor count
+ * one twice. Writers hold {@link #rebuildLock} shared from just before their
+ * commit until their change is applied, and a rebuild holds it exclusively
+ * around its query. So every write is either committed and applied before the
+ * query, or commits and is applied to the new table after it.
+ */
+@Service
+public class IssueStatsServiceImpl implements IssueStatsService {
+
+	private static final Logger logger = LoggerFactory.getLogger(IssueStatsServiceImpl.class);
+	
+	@Autowired
+	private IssueRepository issueRepository;
+	
+	private volatile Map<StatsKey, LongAdder> counts = new ConcurrentHashMap<>();
+	
+	private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+	
+	/**
+	 * Loads the counters once the application has started
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		
+		rebuild();
+	}
+	
+	/**
+	 * Counts a new issue once the current transaction commits
+	 * 
+	 * @param issue
+	 */
+	@Override
+	public void issueAdded(Issue issue) {
+		
+		StatsKey key = new StatsKey(issue.getSeverity(), issue.getStatus(), issue.getResponsible());
+		
+		afterCommit(() -> add(key, 1));
+	}
+	
+	/**
+	 * Moves an updated issue from its previous group to its current one once
+	 * the current transaction commits
+	 * 
+	 * @param oldSeverity
+	 * @param oldStatus
+	 * @param oldResponsible
+	 * @param issue
+	 */
+	@Override
+	public void issueChanged(Severity oldSeverity, String oldStatus, String oldResponsible, Issue issue) {
+		
+		StatsKey oldKey = new StatsKey(oldSeverity, oldStatus, oldResponsible);
+		StatsKey newKey = new StatsKey(issue.getSeverity(), issue.getStatus(), issue.getResponsible());
+		
+		if(!oldKey.equals(newKey)) {
+			afterCommit(() -> {
+				add(oldKey, -1);
+				add(newKey, 1);
+			});
+		}
+	}
+	
+	/**
+	 * Uncounts a deleted issue once the current transaction commits
+	 * 
+	 * @param issue
+	 */
+	@Override
+	public void issueRemoved(Issue issue) {
+		
+		StatsKey key = new StatsKey(issue.getSeverity(), issue.getStatus(), issue.getResponsible());
+		
+		afterCommit(() -> add(key, -1));
+	}
+	
+	/**
+	 * Moves issues updated by one bulk transition to their new groups once the
+	 * current transaction commits. A null new value leaves that column unchanged.
+	 * 
+	 * @param before the updated issues as they were before the transition
+	 * @param newStatus
+	 * @param newSeverity
+	 */
+	@Override
+	public void issuesTransitioned(List<Issue> before, String newStatus, Severity newSeverity) {
+		
+		// Sums the changes per group, so the chunk is applied in one step
+		Map<StatsKey, Long> deltas = new HashMap<>();
+		for(Issue issue : before) {
+			
+			StatsKey oldKey = new StatsKey(issue.getSeverity(), issue.getStatus(), issue.getResponsible());
+			StatsKey newKey = new StatsKey(newSeverity == null ? issue.getSeverity() : newSeverity,
+					newStatus == null ? issue.getStatus() : newStatus, issue.getResponsible());
+			
+			if(!oldKey.equals(newKey)) {
+				deltas.merge(oldKey, -1L, Long::sum);
+				deltas.merge(newKey, 1L, Long::sum);
+			}
+		}
+		
+		if(!deltas.isEmpty()) {
+			afterCommit(() -> deltas.forEach(this::add));
+		}
+	}
+	
+	/**
+	 * Reloads every counter from the issue table. Used at startup. Writers wait
+	 * for the query to finish before they commit.
+	 */
+	@Override
+	public void rebuild() {
+		
+		Map<StatsKey, LongAdder> loaded = new ConcurrentHashMap<>();
+		
+		rebuildLock.writeLock().lock();
+		try {
+			for(IssueCountDto row : issueRepository.countBySeverityStatusResponsible()) {
+				LongAdder adder = new LongAdder();
+				adder.add(row.getCount());
+				loaded.put(new StatsKey(row.getSeverity(), row.getStatus(), row.getResponsible()), adder);
+			}
+			
+			counts = loaded;
+		}
+		finally {
+			rebuildLock.writeLock().unlock();
+		}
+		
+		logger.info("Loaded issue statistics for {} groups", loaded.size());
+	}
+	
+	/**
+	 * Returns the non-empty groups matching the given values. Null or empty
+	 * arguments match every value.
+	 * 
+	 * @param severity
+	 * @param status
+	 * @param responsible
+	 * 
+	 * @return {@link List<IssueCountDto>}
+	 * 
+	 * @throws InvalidInputException
+	 */
+	@Override
+	public List<IssueCountDto> getCounts(String severity, String status, String responsible) throws InvalidInputException {
+		
+		Severity severityFilter = Severity.fromName(severity);
+		String statusFilter = status == null || status.isEmpty() ? null : status;
+		String responsibleFilter = responsible == null || responsible.isEmpty() ? null : responsible;
+		
+		List<IssueCountDto> result = new ArrayList<>();
+		
+		for(Map.Entry<StatsKey, LongAdder> entry : counts.entrySet()) {
+			
+			StatsKey key = entry.getKey();
+			if((severityFilter != null && severityFilter != key.severity)
+					|| (statusFilter != null && !statusFilter.equals(key.status))
+					|| (responsibleFilter != null && !responsibleFilter.equals(key.responsible))) {
+				continue;
+			}
+			
+			long count = entry.getValue().sum();
+			if(count > 0) {
+				result.add(new IssueCountDto(key.severity, key.status, key.responsible, count));
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Applies a counter change after the current transaction commits, so a
+	 * rolled back write leaves the counters as they were. Applies it right away
+	 * outside of a transaction. Either way no rebuild runs between the commit
+	 * and the change.
+	 */
+	private void afterCommit(Runnable change) {
+		
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			rebuildLock.readLock().lock();
+			try {
+				change.run();
+			}
+			finally {
+				rebuildLock.readLock().unlock();
+			}
+			return;
+		}
+		
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			
+			private boolean locked;
+			
+			@Override
+			public void beforeCommit(boolean readOnly) {
+				rebuildLock.readLock().lock();
+				locked = true;
+			}
+			
+			@Override
+			public void afterCommit() {
+				change.run();
+			}
+			
+			@Override
+			public void afterCompletion(int status) {
+				if(locked) {
+					rebuildLock.readLock().unlock();
+				}
+			}
+		});
+	}
+	
+	private void add(StatsKey key, long delta) {
+		
+		counts.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+	}
+	
+	/**
+	 * Group of issues sharing severity, status and responsible
+	 */
+	private static final class StatsKey {
+		
+		private final Severity severity;
+		private final String status;
+		private final String responsible;
+		private final int hash;
+		
+		StatsKey(Severity severity, String status, String responsible) {
+			this.severity = severity;
+			this.status = status;
+			this.responsible = responsible;
+			this.hash = Objects.hash(severity, status, responsible);
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (!(o instanceof StatsKey))
+				return false;
+			StatsKey key = (StatsKey) o;
+			return severity == key.severity && Objects.equals(status, key.status)
+					&& Objects.equals(responsible, key.responsible);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
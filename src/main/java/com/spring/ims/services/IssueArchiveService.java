@@ -0,0 +1,6 @@
+package com.spring.ims.services;
+
+public interface IssueArchiveService {
+
+	public long archiveIssues();
+}
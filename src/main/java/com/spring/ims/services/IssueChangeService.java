@@ -0,0 +1,18 @@
+package com.spring.ims.services;
+
+import java.util.List;
+
+import com.spring.ims.enums.ChangeType;
+import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.payload.response.ChangeFeedResponse;
+
+public interface IssueChangeService {
+
+	public void recordChange(Long issueId, ChangeType changeType);
+	
+	public void recordChanges(List<Long> issueIds, ChangeType changeType);
+	
+	public int sequenceChanges();
+	
+	public ChangeFeedResponse getChanges(Long since, Integer size) throws InvalidInputException;
+}
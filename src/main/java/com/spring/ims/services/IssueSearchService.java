@@ -0,0 +1,23 @@
+package com.spring.ims.services;
+
+import java.util.List;
+
+import com.spring.ims.dto.IssueViewDto;
+import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.models.Issue;
+import com.spring.ims.payload.response.SearchResponse;
+
+public interface IssueSearchService {
+
+	public void indexIssue(Issue issue);
+	
+	public void indexIssues(List<Issue> issues);
+	
+	public void removeIssue(Long issueId);
+	
+	public void removeIssues(List<Long> issueIds);
+	
+	public SearchResponse<IssueViewDto> search(String query, Integer page, Integer size) throws InvalidInputException;
+	
+	public long rebuildIndex();
+}
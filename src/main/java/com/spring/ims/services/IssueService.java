@@ -1,23 +1,42 @@
 package com.spring.ims.services;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.stereotype.Service;
 
 import com.spring.ims.dto.IssueDto;
+import com.spring.ims.dto.IssueFilterDto;
+import com.spring.ims.dto.IssueTransitionDto;
+import com.spring.ims.dto.IssueViewDto;
 import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.exception.PreconditionFailedException;
 import com.spring.ims.exception.ResourceNotFoundException;
 import com.spring.ims.models.Issue;
+import com.spring.ims.payload.response.BatchResponse;
+import com.spring.ims.payload.response.PageResponse;
 
 @Service
 public interface IssueService {
 
     public Issue addIssue(IssueDto issueDto) throws InvalidInputException;
+    
+    public BatchResponse addIssues(List<IssueDto> issueDtos) throws InvalidInputException;
 	
-	public Issue updateIssue(Long issueId, IssueDto issueDto) throws InvalidInputException, ResourceNotFoundException;
+	public Issue updateIssue(Long issueId, IssueDto issueDto, Set<Long> expectedVersions) throws InvalidInputException, ResourceNotFoundException, PreconditionFailedException;
+	
+	public int transitionIssues(IssueTransitionDto transitionDto) throws InvalidInputException;
 	
 	public List<Issue> getAllIssues();
 	
-	public Issue getIssueById(Long issueId) throws ResourceNotFoundException;
+	public PageResponse<IssueViewDto> getIssues(IssueFilterDto filter, Long cursor, Integer size) throws InvalidInputException;
+	
+	public long exportIssues(OutputStream out) throws IOException;
+	
+	public IssueViewDto getIssueById(Long issueId) throws ResourceNotFoundException;
+	
+	public void deleteIssueById(Long issueId) throws InvalidInputException, ResourceNotFoundException;
 	
-	public void deleteIssueById(Long issueId) throws InvalidInputException;
+	public long deleteIssues(IssueFilterDto filter) throws InvalidInputException;
 }
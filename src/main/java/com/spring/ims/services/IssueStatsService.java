@@ -0,0 +1,22 @@
+package com.spring.ims.services;
+
+import java.util.List;
+
+import com.spring.ims.dto.IssueCountDto;
+import com.spring.ims.enums.Severity;
+import com.spring.ims.models.Issue;
+
+public interface IssueStatsService {
+
+	public void issueAdded(Issue issue);
+	
+	public void issueChanged(Severity oldSeverity, String oldStatus, String oldResponsible, Issue issue);
+	
+	public void issueRemoved(Issue issue);
+	
+	public void issuesTransitioned(List<Issue> before, String newStatus, Severity newSeverity);
+	
+	public void rebuild();
+	
+	public List<IssueCountDto> getCounts(String severity, String status, String responsible);
+}
@@ -0,0 +1,32 @@
+-- Tables, columns and sequences added on top of the original schema. Databases
+-- that ran with automatic DDL in between may already have some of them, so
+-- every step only adds what is missing.
+
+-- Issue, user and change log ids come from pooled sequences so inserts can be
+-- batched, the identity columns no longer generate them
+ALTER TABLE issue ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY;
+
+CREATE SEQUENCE IF NOT EXISTS issue_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS issue_change_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+
+-- Optimistic version of each issue, exposed as ETag
+ALTER TABLE issue ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+-- Embedded in issued tokens, incrementing it invalidates them
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version BIGINT DEFAULT 0 NOT NULL;
+
+CREATE TABLE IF NOT EXISTS issue_change (
+    id BIGINT NOT NULL,
+    issue_id BIGINT NOT NULL,
+    change_type VARCHAR(10) NOT NULL,
+    changed_at TIMESTAMP NOT NULL,
+    CONSTRAINT pk_issue_change PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS revoked_token (
+    id VARCHAR(36) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    CONSTRAINT pk_revoked_token PRIMARY KEY (id)
+);
@@ -0,0 +1,6 @@
+-- Existing rows got their ids from identity columns or earlier sequence blocks.
+-- Hibernate's pooled optimizer treats a fetched value as the top of a block of
+-- 50 ids, so each sequence restarts a full block above the highest id in use.
+ALTER SEQUENCE issue_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 51 FROM issue);
+ALTER SEQUENCE users_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 51 FROM users);
+ALTER SEQUENCE issue_change_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 51 FROM issue_change);
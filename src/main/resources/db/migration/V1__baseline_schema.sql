@@ -0,0 +1,39 @@
+-- Schema of the application before the migrations, as Hibernate generated it.
+-- Existing databases are baselined at this version and receive every later
+-- migration, fresh ones are created from here.
+
+CREATE TABLE roles (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    name VARCHAR(20),
+    CONSTRAINT pk_roles PRIMARY KEY (id)
+);
+
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    username VARCHAR(20),
+    email VARCHAR(50),
+    password VARCHAR(120),
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    role_id INTEGER NOT NULL,
+    CONSTRAINT pk_user_roles PRIMARY KEY (user_id, role_id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+CREATE TABLE issue (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    title VARCHAR(50),
+    responsible VARCHAR(50),
+    description VARCHAR(200),
+    status VARCHAR(50),
+    severity VARCHAR(255),
+    user_id BIGINT,
+    CONSTRAINT pk_issue PRIMARY KEY (id),
+    CONSTRAINT fk_issue_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
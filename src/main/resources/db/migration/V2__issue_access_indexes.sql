@@ -0,0 +1,12 @@
+-- Keyset pages filter on one column and walk ids in order, so each filter
+-- column is paired with id and the page is read straight off the index.
+-- The owner filter uses the index H2 keeps for the user_id foreign key.
+CREATE INDEX idx_issue_status_id ON issue (status, id);
+CREATE INDEX idx_issue_severity_id ON issue (severity, id);
+CREATE INDEX idx_issue_responsible_id ON issue (responsible, id);
+
+-- Covers the statistics grouping without touching the table
+CREATE INDEX idx_issue_severity_status_responsible ON issue (severity, status, responsible);
+
+-- Active revoked ids are loaded and expired ones purged by expiry
+CREATE INDEX idx_revoked_token_expires_at ON revoked_token (expires_at);
@@ -0,0 +1,8 @@
+-- Stamped on the primary and read back from the replica to measure replication lag.
+-- Only used when a replica is configured. Databases that ran with a replica before
+-- the migrations already have it.
+CREATE TABLE IF NOT EXISTS replication_heartbeat (
+    id INT NOT NULL,
+    written_at BIGINT NOT NULL,
+    CONSTRAINT pk_replication_heartbeat PRIMARY KEY (id)
+);
@@ -0,0 +1,21 @@
+-- Last write time of each issue, existing issues start their age now
+ALTER TABLE issue ADD COLUMN updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
+
+-- Finds terminal issues past the archive age without scanning live ones
+CREATE INDEX idx_issue_status_updated_at ON issue (status, updated_at);
+
+-- Issues moved out of the live table. user_id is not a foreign key, history
+-- is kept as it was.
+CREATE TABLE issue_archive (
+    id BIGINT NOT NULL,
+    title VARCHAR(50),
+    responsible VARCHAR(50),
+    description VARCHAR(200),
+    status VARCHAR(50),
+    severity VARCHAR(255),
+    version BIGINT NOT NULL,
+    user_id BIGINT,
+    updated_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+    CONSTRAINT pk_issue_archive PRIMARY KEY (id)
+);
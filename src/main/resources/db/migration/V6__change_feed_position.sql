@@ -0,0 +1,17 @@
+-- Order of the change feed. Entry ids come from a pooled sequence when the entry is
+-- persisted, so a later id can commit first. Positions are handed out after commit
+-- by one sequencer at a time, see IssueChangeServiceImpl#sequenceChanges.
+-- Existing entries keep their id as position, so cursors already handed out stay valid.
+ALTER TABLE issue_change ADD COLUMN feed_position BIGINT;
+UPDATE issue_change SET feed_position = id;
+CREATE INDEX idx_issue_change_feed_position ON issue_change (feed_position);
+
+CREATE SEQUENCE issue_change_feed_seq START WITH 1;
+ALTER SEQUENCE issue_change_feed_seq RESTART WITH (SELECT COALESCE(MAX(feed_position), 0) + 1 FROM issue_change);
+
+-- Row locked by the sequencer, so runs on several instances do not interleave
+CREATE TABLE issue_change_feed_lock (
+    id INT NOT NULL,
+    CONSTRAINT pk_issue_change_feed_lock PRIMARY KEY (id)
+);
+INSERT INTO issue_change_feed_lock (id) VALUES (1);
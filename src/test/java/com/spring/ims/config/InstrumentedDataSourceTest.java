@@ -0,0 +1,81 @@
+package com.spring.ims.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.spring.ims.payload.response.SqlShapeStatsResponse;
+
+public class InstrumentedDataSourceTest {
+
+    private SqlStatementMonitor monitor;
+
+    private InstrumentedDataSource dataSource;
+
+    @BeforeEach
+    public void setUp() {
+        monitor = new SqlStatementMonitor();
+        ReflectionTestUtils.setField(monitor, "slowQueryMs", 1000L);
+        ReflectionTestUtils.setField(monitor, "slowLogIntervalMs", 60000L);
+        ReflectionTestUtils.setField(monitor, "maxShapes", 100);
+        ReflectionTestUtils.setField(monitor, "maxEndpointsPerShape", 10);
+        monitor.init();
+
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:instrumented" + System.nanoTime());
+        dataSource = new InstrumentedDataSource(h2, monitor);
+    }
+
+    @Test
+    public void statementsAndRowsAreRecordedTest() throws SQLException {
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE item (id INT PRIMARY KEY, name VARCHAR(20))");
+            }
+
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO item VALUES (?, ?)")) {
+                for (int i = 0; i < 5; i++) {
+                    insert.setInt(1, i);
+                    insert.setString(2, "item" + i);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+
+            try (PreparedStatement select = connection.prepareStatement("SELECT name FROM item WHERE id < ?")) {
+                select.setInt(1, 3);
+                try (ResultSet resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        // Reads every row
+                    }
+                }
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM item WHERE id = 4");
+            }
+        }
+
+        Map<String, SqlShapeStatsResponse> shapes = new HashMap<>();
+        for (SqlShapeStatsResponse shape : monitor.getStats(10).getShapes()) {
+            shapes.put(shape.getSql(), shape);
+        }
+
+        assertEquals(4L, monitor.getStats(10).getTotalStatements());
+        assertEquals(5L, shapes.get("INSERT INTO item VALUES (?, ?)").getRows());
+        assertEquals(3L, shapes.get("SELECT name FROM item WHERE id < ?").getRows());
+        assertEquals(1L, shapes.get("DELETE FROM item WHERE id = ?").getRows());
+    }
+}
@@ -0,0 +1,339 @@
+package com.spring.ims.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.ims.dto.IssueViewDto;
+import com.spring.ims.models.User;
+import com.spring.ims.repository.UserRepository;
+import com.spring.ims.security.services.UserDetailsServiceImpl;
+import com.spring.ims.services.IssueService;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Runs the routing datasource against two in-memory H2 databases, copying the
+ * primary into the replica by hand instead of on a schedule.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "spring.app.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "spring.app.replica.snapshotMs=0",
+        "spring.app.replica.heartbeatMs=3600000",
+        "spring.app.replica.maxLagMs=10000",
+        "spring.app.searchIndexPath=target/replica-routing-index",
+        "spring.jpa.show-sql=false"
+})
+@DirtiesContext
+public class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    @Autowired
+    private ReplicationLagTracker lagTracker;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SqlStatementMonitor sqlStatementMonitor;
+
+    @Autowired
+    private IssueService issueService;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private H2SnapshotReplicator replicator;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        replicator = replicator(2000);
+
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        primary.execute("CREATE TABLE IF NOT EXISTS replica_probe (id INT PRIMARY KEY, label VARCHAR(50))");
+        primary.update("MERGE INTO replica_probe KEY (id) VALUES (1, 'primary')");
+
+        // Copy the primary, then mark the copy so reads show which database served them
+        replicator.replicate();
+        lagTracker.heartbeat();
+        onReplica("UPDATE replica_probe SET label = 'replica' WHERE id = 1");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void readOnlyTransactionUsesReplicaTest() {
+
+        assertEquals("replica", readLabel());
+        assertEquals("primary", writeTransaction().execute(status -> label()));
+    }
+
+    @Test
+    public void readYourWritesTest() {
+
+        authenticate("writer");
+        writeTransaction().executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE replica_probe SET label = 'written' WHERE id = 1"));
+
+        // The writer's last commit is newer than the replica, so their reads go to the primary
+        assertEquals("written", readLabel());
+
+        authenticate("reader");
+        assertEquals("replica", readLabel());
+    }
+
+    @Test
+    public void laggingReplicaFallsBackToPrimaryTest() {
+
+        long fallbacks = lagTracker.getStats().getLagFallbacks();
+
+        // The newest heartbeat on the replica is a minute old
+        onReplica("UPDATE replication_heartbeat SET written_at = written_at - 60000 WHERE id = 1");
+        lagTracker.refresh();
+
+        assertEquals("primary", readLabel());
+        assertEquals(fallbacks + 1, lagTracker.getStats().getLagFallbacks());
+    }
+
+    @Test
+    public void unavailableReplicaFallsBackToPrimaryTest() {
+
+        lagTracker.setReplicaAvailable(false);
+        try {
+            assertEquals("primary", readLabel());
+        } finally {
+            lagTracker.setReplicaAvailable(true);
+        }
+    }
+
+    @Test
+    public void routedStatementsAreTimedTest() {
+
+        long before = sqlStatementMonitor.getStats(0).getTotalStatements();
+
+        // The monitor wraps the routing datasource, so replica reads are timed as well
+        assertTrue(dataSource instanceof InstrumentedDataSource);
+        assertEquals("replica", readLabel());
+        assertEquals(before + 1, sqlStatementMonitor.getStats(0).getTotalStatements());
+    }
+
+    @Test
+    public void evictedIssueIsReloadedFromPrimaryTest() {
+
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        primary.update("MERGE INTO issue (id, title, status, version) KEY (id) VALUES (900, 'Old title', 'Open', 0)");
+        replicator.replicate();
+        lagTracker.heartbeat();
+
+        // The writer updates the issue and evicts it, the replica has not caught up yet
+        primary.update("UPDATE issue SET title = 'New title', version = 1 WHERE id = 900");
+        cacheManager.getCache(CacheConfig.ISSUE_CACHE).evict(900L);
+
+        // Another user's read fills the cache from the primary
+        authenticate("reader");
+        assertEquals("New title", issueService.getIssueById(900L).getTitle());
+        IssueViewDto cached = cacheManager.getCache(CacheConfig.ISSUE_CACHE).get(900L, IssueViewDto.class);
+        assertEquals(1L, cached.getVersion());
+
+        // Other reads of that user still go to the lagging replica
+        assertEquals("Old title", readOnlyTransaction().execute(status ->
+                jdbcTemplate.queryForObject("SELECT title FROM issue WHERE id = 900", String.class)));
+    }
+
+    @Test
+    public void userChecksReadThePrimaryTest() {
+
+        User user = userRepository.findByUsername("lagging").orElseGet(() ->
+                userRepository.save(new User("lagging", "lagging@test.com", "hash")));
+        replicator.replicate();
+        lagTracker.heartbeat();
+
+        // The token version is incremented on the primary only
+        new JdbcTemplate(primaryDataSource).update("UPDATE users SET token_version = 5 WHERE id = ?", user.getId());
+        userDetailsService.evictUser("lagging");
+
+        authenticate("reader");
+        assertTrue(userDetailsService.isTokenVersionCurrent(user.getId(), 5L));
+        assertEquals(5L, userDetailsService.loadUserWithoutPassword("lagging").getTokenVersion());
+    }
+
+    @Test
+    public void reloadWaitsForReplicaReadsTest() throws Exception {
+
+        CompletableFuture<Void> snapshot;
+        try (Connection reading = replicaDataSource.getConnection()) {
+
+            // A read is running on the replica, the reload waits for it
+            snapshot = CompletableFuture.runAsync(replicator::replicate);
+            Thread.sleep(200);
+            assertFalse(snapshot.isDone());
+            assertEquals("primary", readLabel());
+            assertEquals("replica", probeLabel(reading));
+        }
+
+        // Once the read is done the replica is reloaded and used again
+        snapshot.get(5, TimeUnit.SECONDS);
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "")) {
+            assertEquals("primary", probeLabel(replica));
+        }
+        assertTrue(lagTracker.getStats().isReplicaAvailable());
+    }
+
+    @Test
+    public void noReplicaConnectionDuringReloadTest() throws Exception {
+
+        // A reload holds the replica lock while the read was already routed to the replica
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> reload = CompletableFuture.runAsync(() -> {
+            lagTracker.getReplicaLock().writeLock().lock();
+            try {
+                locked.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lagTracker.getReplicaLock().writeLock().unlock();
+            }
+        });
+        locked.await(5, TimeUnit.SECONDS);
+
+        assertTrue(lagTracker.getStats().isReplicaAvailable());
+        assertEquals("primary", readLabel());
+
+        release.countDown();
+        reload.get(5, TimeUnit.SECONDS);
+        assertEquals("replica", readLabel());
+    }
+
+    @Test
+    public void readsDuringReloadTest() throws Exception {
+
+        // Snapshots are reloaded over and over while reads run
+        AtomicBoolean reloading = new AtomicBoolean(true);
+        CompletableFuture<Void> reloads = CompletableFuture.runAsync(() -> {
+            while (reloading.get()) {
+                replicator.replicate();
+                lagTracker.heartbeat();
+            }
+        });
+
+        // Every read finds the table, on whichever database served it
+        try {
+            for (int i = 0; i < 300; i++) {
+                String label = readLabel();
+                assertTrue("primary".equals(label) || "replica".equals(label), label);
+            }
+        } finally {
+            reloading.set(false);
+            reloads.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void busyReplicaSkipsSnapshotTest() throws Exception {
+
+        try (Connection reading = replicaDataSource.getConnection()) {
+
+            // The read outlasts the drain timeout, its tables are left alone
+            replicator(100).replicate();
+            assertEquals("replica", probeLabel(reading));
+        }
+
+        assertEquals("replica", readLabel());
+    }
+
+    private H2SnapshotReplicator replicator(long drainTimeoutMs) {
+        return new H2SnapshotReplicator(primaryDataSource, REPLICA_URL, "sa", "", replicaDataSource, drainTimeoutMs,
+                lagTracker);
+    }
+
+    private static String probeLabel(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet result = statement.executeQuery("SELECT label FROM replica_probe WHERE id = 1")) {
+            result.next();
+            return result.getString(1);
+        }
+    }
+
+    private String readLabel() {
+        return readOnlyTransaction().execute(status -> label());
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly;
+    }
+
+    private String label() {
+        return jdbcTemplate.queryForObject("SELECT label FROM replica_probe WHERE id = 1", String.class);
+    }
+
+    private TransactionTemplate writeTransaction() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null));
+    }
+
+    private static void onReplica(String sql) {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
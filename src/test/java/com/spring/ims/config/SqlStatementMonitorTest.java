@@ -0,0 +1,131 @@
+package com.spring.ims.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.spring.ims.payload.response.SqlShapeStatsResponse;
+import com.spring.ims.payload.response.SqlStatsResponse;
+
+public class SqlStatementMonitorTest {
+
+    private SqlStatementMonitor monitor;
+
+    @BeforeEach
+    public void setUp() {
+        monitor = new SqlStatementMonitor();
+        ReflectionTestUtils.setField(monitor, "slowQueryMs", 100L);
+        ReflectionTestUtils.setField(monitor, "slowLogIntervalMs", 60000L);
+        ReflectionTestUtils.setField(monitor, "maxShapes", 2);
+        ReflectionTestUtils.setField(monitor, "maxEndpointsPerShape", 2);
+        monitor.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void normalizeTest() {
+
+        assertEquals("select * from issue i where i.status = ? and i.id in (?) and i.title like ?",
+                SqlStatementMonitor.normalize("select *\n  from issue i where i.status = 'it''s open'"
+                        + " and i.id in (1, 2,3) and i.title like ?"));
+        assertEquals("select issue0_.id from issue issue0_ where issue0_.id in (?) fetch first ? rows only",
+                SqlStatementMonitor.normalize("select issue0_.id from issue issue0_ where issue0_.id in (?, ?, ?)"
+                        + " fetch first ? rows only"));
+    }
+
+    @Test
+    public void histogramAndRowsTest() {
+
+        for (int i = 0; i < 98; i++) {
+            monitor.record("select * from issue where id = " + i, TimeUnit.MICROSECONDS.toNanos(500), 0);
+        }
+        monitor.record("select * from issue where id = 98", TimeUnit.MILLISECONDS.toNanos(30), 0);
+        monitor.record("select * from issue where id = 99", TimeUnit.MILLISECONDS.toNanos(150), 0);
+        monitor.recordRows("select * from issue where id = 5", 1);
+
+        // Literals differ, so all runs share one shape
+        SqlStatsResponse stats = monitor.getStats(10);
+        assertEquals(100L, stats.getTotalStatements());
+        assertEquals(1L, stats.getSlowStatements());
+        assertEquals(1, stats.getTrackedShapes());
+
+        SqlShapeStatsResponse shape = stats.getShapes().get(0);
+        assertEquals("select * from issue where id = ?", shape.getSql());
+        assertEquals(100L, shape.getCount());
+        assertEquals(1L, shape.getRows());
+        assertEquals(98L, shape.getHistogram().get(0).longValue());
+        assertEquals(1.0, shape.getP50Ms());
+        assertEquals(1.0, shape.getP95Ms());
+        assertEquals(50.0, shape.getP99Ms());
+        assertEquals(150.0, shape.getMaxMs());
+    }
+
+    @Test
+    public void slowStatementsAreSampledTest() {
+
+        for (int i = 0; i < 10; i++) {
+            monitor.record("update issue set status = 'CLOSED'", TimeUnit.MILLISECONDS.toNanos(200), 3);
+        }
+
+        // One line logged for the shape, the other slow runs suppressed
+        SqlStatsResponse stats = monitor.getStats(10);
+        assertEquals(10L, stats.getSlowStatements());
+        assertEquals(9L, stats.getSuppressedSlowLogs());
+        assertEquals(30L, stats.getShapes().get(0).getRows());
+        assertEquals(10L, stats.getShapes().get(0).getSlowCount());
+    }
+
+    @Test
+    public void endpointAttributionTest() {
+
+        ReflectionTestUtils.setField(monitor, "maxEndpointsPerShape", 3);
+        monitor.record("select 1", 1000, 0);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/issue/7");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        monitor.record("select 1", 1000, 0);
+
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/issue/{issueId}");
+        monitor.record("select 1", 1000, 0);
+        monitor.record("select 1", 1000, 0);
+
+        // Endpoints beyond the per-shape limit are counted together
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/issue");
+        monitor.record("select 1", 1000, 0);
+
+        SqlShapeStatsResponse shape = monitor.getStats(10).getShapes().get(0);
+        assertEquals(Long.valueOf(2L), shape.getEndpoints().get("GET /api/issue/{issueId}"));
+        assertEquals(Long.valueOf(1L), shape.getEndpoints().get("GET /api/issue/7"));
+        assertEquals(Long.valueOf(1L), shape.getEndpoints().get(SqlStatementMonitor.BACKGROUND));
+        assertEquals(Long.valueOf(1L), shape.getEndpoints().get(SqlStatementMonitor.OTHER));
+    }
+
+    @Test
+    public void shapeLimitTest() {
+
+        monitor.record("select a from t", TimeUnit.MILLISECONDS.toNanos(5), 0);
+        monitor.record("select b from t", TimeUnit.MILLISECONDS.toNanos(1), 0);
+        monitor.record("select c from t", TimeUnit.MILLISECONDS.toNanos(1), 0);
+
+        // Shapes are ordered by total time and capped
+        SqlStatsResponse stats = monitor.getStats(1);
+        assertEquals(3L, stats.getTotalStatements());
+        assertEquals(1L, stats.getUntrackedStatements());
+        assertEquals(2, stats.getTrackedShapes());
+        assertEquals(1, stats.getShapes().size());
+        assertEquals("select a from t", stats.getShapes().get(0).getSql());
+    }
+}
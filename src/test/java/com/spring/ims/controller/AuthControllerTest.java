@@ -2,6 +2,8 @@ package com.spring.ims.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -22,6 +24,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -34,7 +37,10 @@ import com.spring.ims.models.ERole;
 import com.spring.ims.models.Role;
 import com.spring.ims.models.User;
 import com.spring.ims.payload.request.LoginRequest;
+import com.spring.ims.payload.request.RoleUpdateRequest;
 import com.spring.ims.payload.request.SignupRequest;
+import com.spring.ims.payload.response.BatchItemResult;
+import com.spring.ims.payload.response.BatchResponse;
 import com.spring.ims.payload.response.JwtResponse;
 import com.spring.ims.security.services.AuthenticationService;
 
@@ -122,7 +128,7 @@ public class AuthControllerTest {
     	// Converting the issue to JSON format
         String json = new ObjectMapper().writeValueAsString(loginRequest);
         
-        when(authenticationService.authenticateUser(any(LoginRequest.class))).thenReturn(expectedOutput);
+        when(authenticationService.authenticateUser(any(LoginRequest.class), any())).thenReturn(expectedOutput);
         
         
         // Making a POST request to the "/api/auth/signin" endpoint 
@@ -140,5 +146,53 @@ public class AuthControllerTest {
 
     	
     }
+    
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    public void updateUserRolesTest() throws Exception {
+    	
+    	RoleUpdateRequest roleUpdateRequest = new RoleUpdateRequest();
+    	roleUpdateRequest.setRole(Collections.singleton("mod"));
+    	
+    	when(authenticationService.updateUserRoles(eq(1L), any())).thenReturn(new User());
+    	
+    	// Making a PUT request to the "/api/auth/users/1/roles" endpoint
+    	MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/api/auth/users/1/roles")
+    			.contentType(MediaType.APPLICATION_JSON_VALUE)
+    			.content(new ObjectMapper().writeValueAsString(roleUpdateRequest)))
+    			.andExpect(status().isOk())
+    			.andReturn();
+    	
+    	String responseBody = mvcResult.getResponse().getContentAsString();
+    	assertEquals("User roles updated successfully!", new ObjectMapper().readTree(responseBody).get("message").asText());
+    	verify(authenticationService).updateUserRoles(1L, Collections.singleton("mod"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    public void provisionUsersTest() throws Exception {
+    	
+    	SignupRequest signupRequest = new SignupRequest();
+    	signupRequest.setUsername("user1");
+    	signupRequest.setEmail("user1@gmail.com");
+    	signupRequest.setPassword("password");
+    	
+    	List<BatchItemResult> results = new ArrayList<>();
+    	results.add(new BatchItemResult(0, 5L, null));
+    	results.add(new BatchItemResult(1, null, "Error: Username is already taken!"));
+    	when(authenticationService.provisionUsers(any())).thenReturn(new BatchResponse(1, 1, results));
+    	
+    	// Making a POST request to the "/api/auth/users/batch" endpoint
+    	MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/users/batch")
+    			.contentType(MediaType.APPLICATION_JSON_VALUE)
+    			.content(new ObjectMapper().writeValueAsString(new SignupRequest[] { signupRequest, signupRequest })))
+    			.andExpect(status().isOk())
+    			.andReturn();
+    	
+    	String responseBody = mvcResult.getResponse().getContentAsString();
+    	assertEquals(1, new ObjectMapper().readTree(responseBody).get("created").asInt());
+    	assertEquals("Error: Username is already taken!",
+    			new ObjectMapper().readTree(responseBody).get("results").get(1).get("error").asText());
+    }
 
 }
@@ -0,0 +1,70 @@
+package com.spring.ims.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spring.ims.config.CacheConfig;
+import com.spring.ims.controllers.CacheController;
+import com.spring.ims.payload.response.CacheStatsResponse;
+
+@WebMvcTest(CacheController.class)
+@ExtendWith(SpringExtension.class)
+public class CacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CacheManager cacheManager;
+
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"ADMIN"})
+    public void getCacheStatsTest() throws Exception {
+
+        CaffeineCache cache = new CaffeineCache(CacheConfig.ISSUE_CACHE,
+                Caffeine.newBuilder().maximumSize(10).recordStats().build());
+
+        // One miss, one hit
+        cache.get(1L);
+        cache.put(1L, "issue");
+        cache.get(1L);
+
+        when(cacheManager.getCacheNames()).thenReturn(Collections.singletonList(CacheConfig.ISSUE_CACHE));
+        when(cacheManager.getCache(CacheConfig.ISSUE_CACHE)).thenReturn(cache);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/cache/stats")
+                .with(user("varsha20").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Check the response body
+        String responseBody = mvcResult.getResponse().getContentAsString();
+        List<CacheStatsResponse> stats = new ObjectMapper().readValue(responseBody, new TypeReference<List<CacheStatsResponse>>() {});
+        assertEquals(1, stats.size());
+        assertEquals(CacheConfig.ISSUE_CACHE, stats.get(0).getName());
+        assertEquals(1L, stats.get(0).getSize());
+        assertEquals(1L, stats.get(0).getHitCount());
+        assertEquals(1L, stats.get(0).getMissCount());
+    }
+}
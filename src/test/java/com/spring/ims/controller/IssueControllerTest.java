@@ -2,7 +2,10 @@ package com.spring.ims.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -10,7 +13,13 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -20,6 +29,7 @@ import org.mockito.InjectMocks;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -28,14 +38,32 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.spring.ims.controllers.IssueController;
+import com.spring.ims.dto.IssueChangeDto;
+import com.spring.ims.dto.IssueCountDto;
 import com.spring.ims.dto.IssueDto;
+import com.spring.ims.dto.IssueFilterDto;
+import com.spring.ims.dto.IssueTransitionDto;
+import com.spring.ims.dto.IssueViewDto;
+import com.spring.ims.enums.ChangeType;
 import com.spring.ims.enums.Severity;
+import com.spring.ims.exception.PreconditionFailedException;
 import com.spring.ims.models.Issue;
 import com.spring.ims.models.User;
+import com.spring.ims.payload.response.AffectedCountResponse;
+import com.spring.ims.payload.response.BatchItemResult;
+import com.spring.ims.payload.response.BatchResponse;
+import com.spring.ims.payload.response.ChangeFeedResponse;
+import com.spring.ims.payload.response.PageResponse;
+import com.spring.ims.payload.response.SearchResponse;
+import com.spring.ims.services.IssueArchiveService;
+import com.spring.ims.services.IssueChangeService;
+import com.spring.ims.services.IssueSearchService;
 import com.spring.ims.services.IssueService;
+import com.spring.ims.services.IssueStatsService;
 
 @WebMvcTest(IssueController.class)
 @ExtendWith(SpringExtension.class)
@@ -47,6 +75,18 @@ public class IssueControllerTest {
     @MockBean
     private IssueService issueService;
 
+    @MockBean
+    private IssueSearchService issueSearchService;
+
+    @MockBean
+    private IssueStatsService issueStatsService;
+
+    @MockBean
+    private IssueChangeService issueChangeService;
+
+    @MockBean
+    private IssueArchiveService issueArchiveService;
+
     private static ObjectMapper objectMapper;
 
     @InjectMocks
@@ -86,7 +126,7 @@ public class IssueControllerTest {
 
         // Checking the response body
         String responseBody = mvcResult.getResponse().getContentAsString();
-        Issue addedIssue = new ObjectMapper().readValue(responseBody, Issue.class);
+        IssueViewDto addedIssue = new ObjectMapper().readValue(responseBody, IssueViewDto.class);
         assertNotNull(addedIssue);
         assertEquals(issueDto.getTitle(), addedIssue.getTitle());
         assertEquals(issueDto.getDescription(), addedIssue.getDescription());
@@ -95,6 +135,39 @@ public class IssueControllerTest {
         assertNotNull(addedIssue.getId());
     }
     
+    @Test
+    public void testAddIssuesBatchEndpoint() throws Exception {
+    	
+        IssueDto issueDto = new IssueDto();
+        issueDto.setTitle("Test Issue");
+        issueDto.setDescription("This is a test issue");
+        issueDto.setResponsible("Test User");
+        issueDto.setStatus("Open");
+        
+        List<BatchItemResult> results = new ArrayList<>();
+        results.add(new BatchItemResult(0, 1L, null));
+        results.add(new BatchItemResult(1, null, "Title cannot be null or empty"));
+        
+        when(issueService.addIssues(any())).thenReturn(new BatchResponse(1, 1, results));
+        
+        String json = new ObjectMapper().writeValueAsString(Arrays.asList(issueDto, new IssueDto()));
+        
+        // Performing the POST request with the custom user
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/api/issue/batch")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(json)
+                .with(csrf())
+                .with(user("varsha20").roles("USER")))
+                .andExpect(status().isOk())
+                .andReturn();
+        
+        // Checking the response body
+        BatchResponse response = new ObjectMapper().readValue(mvcResult.getResponse().getContentAsString(), BatchResponse.class);
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getFailed());
+        assertEquals(2, response.getResults().size());
+    }
+    
     @Test
     @WithMockUser(username = "varsha20", roles = {"MODERATOR","USER"})
     public void testUpdateIssueEndpointWithModeratorRole() throws Exception {
@@ -115,12 +188,12 @@ public class IssueControllerTest {
         updatedIssue.setStatus(issueDto.getStatus());
         updatedIssue.setDescription(issueDto.getDescription());
         
-        when(issueService.updateIssue(any(Long.class), any(IssueDto.class))).thenReturn(updatedIssue);
+        when(issueService.updateIssue(any(Long.class), any(IssueDto.class), any())).thenReturn(updatedIssue);
         
         // Converting the issue to JSON format
         String json = new ObjectMapper().writeValueAsString(issueDto);
         
-        when(issueService.updateIssue(any(Long.class), any(IssueDto.class))).thenReturn(updatedIssue);
+        when(issueService.updateIssue(any(Long.class), any(IssueDto.class), any())).thenReturn(updatedIssue);
 
         // Perform the POST request with the custom user
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/api/issue/{issueId}", 1L)
@@ -133,7 +206,7 @@ public class IssueControllerTest {
 
         // Checking the response body
         String responseBody = mvcResult.getResponse().getContentAsString();
-        Issue updatedIssueResult = new ObjectMapper().readValue(responseBody, Issue.class);
+        IssueViewDto updatedIssueResult = new ObjectMapper().readValue(responseBody, IssueViewDto.class);
         assertNotNull(updatedIssueResult);
         assertEquals(issueDto.getTitle(), updatedIssueResult.getTitle());
         assertEquals(issueDto.getDescription(), updatedIssueResult.getDescription());
@@ -141,11 +214,138 @@ public class IssueControllerTest {
         assertEquals(issueDto.getStatus(), updatedIssueResult.getStatus());
     }
     
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"USER"})
+    public void testUpdateIssueWithIfMatch() throws Exception {
+    	
+        IssueDto issueDto = new IssueDto();
+        issueDto.setTitle("Test Issue");
+        issueDto.setDescription("This is a test issue");
+        issueDto.setResponsible("Test User");
+        issueDto.setStatus("Open");
+        
+        Issue updatedIssue = getIssueData();
+        updatedIssue.setVersion(4L);
+        
+        // Version 3 is read from the If-Match header
+        when(issueService.updateIssue(eq(1L), any(IssueDto.class), eq(Collections.singleton(3L)))).thenReturn(updatedIssue);
+        
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/api/issue/{issueId}", 1L)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(new ObjectMapper().writeValueAsString(issueDto))
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .with(csrf())
+                .with(user("varsha20").roles("USER")))
+                .andExpect(status().isOk())
+                .andReturn();
+        
+        // New version is returned as ETag
+        assertEquals("\"4\"", mvcResult.getResponse().getHeader(HttpHeaders.ETAG));
+        
+        // Stale version is rejected
+        when(issueService.updateIssue(any(Long.class), any(IssueDto.class), eq(Collections.singleton(2L))))
+        	.thenThrow(new PreconditionFailedException("Issue was modified by another request"));
+        
+        MvcResult rejected = mockMvc.perform(MockMvcRequestBuilders.put("/api/issue/{issueId}", 1L)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(new ObjectMapper().writeValueAsString(issueDto))
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .with(csrf())
+                .with(user("varsha20").roles("USER")))
+                .andExpect(status().isPreconditionFailed())
+                .andReturn();
+        
+        // Error body keeps the ErrorMessage fields
+        JsonNode error = new ObjectMapper().readTree(rejected.getResponse().getContentAsString());
+        assertEquals(412, error.get("statusCode").asInt());
+        assertEquals("Issue was modified by another request", error.get("message").asText());
+        assertEquals("uri=/api/issue/1", error.get("description").asText());
+        assertTrue(error.hasNonNull("timestamp"));
+    }
+    
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"USER"})
+    public void testUpdateIssueWithIfMatchList() throws Exception {
+    	
+        IssueDto issueDto = new IssueDto();
+        issueDto.setTitle("Test Issue");
+        issueDto.setDescription("This is a test issue");
+        issueDto.setResponsible("Test User");
+        issueDto.setStatus("Open");
+        String json = new ObjectMapper().writeValueAsString(issueDto);
+        
+        Issue updatedIssue = getIssueData();
+        updatedIssue.setVersion(4L);
+        
+        // Every listed version is passed on, weak and foreign tags cannot match
+        when(issueService.updateIssue(eq(1L), any(IssueDto.class), eq(new HashSet<>(Arrays.asList(2L, 3L))))).thenReturn(updatedIssue);
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/issue/{issueId}", 1L)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(json)
+                .header(HttpHeaders.IF_MATCH, "\"2\", W/\"5\", \"abc\", \"3\"")
+                .with(csrf())
+                .with(user("varsha20").roles("USER")))
+                .andExpect(status().isOk());
+        
+        // No tag that can match leaves an empty set, which the service rejects with 412
+        when(issueService.updateIssue(any(Long.class), any(IssueDto.class), eq(Collections.emptySet())))
+        	.thenThrow(new PreconditionFailedException("Issue was modified by another request"));
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/issue/{issueId}", 1L)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(json)
+                .header(HttpHeaders.IF_MATCH, "W/\"4\", \"abc\"")
+                .with(csrf())
+                .with(user("varsha20").roles("USER")))
+                .andExpect(status().isPreconditionFailed());
+        
+        // "*" skips the check
+        when(issueService.updateIssue(eq(1L), any(IssueDto.class), isNull())).thenReturn(updatedIssue);
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/issue/{issueId}", 1L)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(json)
+                .header(HttpHeaders.IF_MATCH, "*")
+                .with(csrf())
+                .with(user("varsha20").roles("USER")))
+                .andExpect(status().isOk());
+        
+        // An entry that is not an ETag is a bad request
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/issue/{issueId}", 1L)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(json)
+                .header(HttpHeaders.IF_MATCH, "\"3\", abc")
+                .with(csrf())
+                .with(user("varsha20").roles("USER")))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"MODERATOR"})
+    public void transitionIssuesTest() throws Exception {
+    	
+    	IssueTransitionDto transitionDto = new IssueTransitionDto();
+    	transitionDto.setIds(Arrays.asList(1L, 2L));
+    	transitionDto.setStatus("Closed");
+    	
+    	when(issueService.transitionIssues(any(IssueTransitionDto.class))).thenReturn(2);
+    	
+    	MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/api/issue/transition")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(new ObjectMapper().writeValueAsString(transitionDto))
+                .with(csrf())
+                .with(user("varsha20").roles("MODERATOR")))
+                .andExpect(status().isOk())
+                .andReturn();
+    	
+    	// Checking the response body
+    	AffectedCountResponse response = new ObjectMapper().readValue(mvcResult.getResponse().getContentAsString(), AffectedCountResponse.class);
+    	assertEquals(2L, response.getAffected());
+    }
+    
     @Test
     @WithMockUser(username = "varsha20", roles = {"MODERATOR","USER","ADMIN"})
     public void getIssueByIdTest() throws Exception {
     	
-    	 Issue issue = getIssueData();
+    	 IssueViewDto issue = IssueViewDto.from(getIssueData());
          
          // Mock the service method call
          when(issueService.getIssueById(any(Long.class))).thenReturn(issue);
@@ -160,8 +360,19 @@ public class IssueControllerTest {
                  
          // Check the response body
          String responseBody = mvcResult.getResponse().getContentAsString();
-         Issue issueResult = new ObjectMapper().readValue(responseBody, Issue.class);
+         IssueViewDto issueResult = new ObjectMapper().readValue(responseBody, IssueViewDto.class);
          assertNotNull(issueResult);
+         assertEquals(issue.getTitle(), issueResult.getTitle());
+         assertEquals("\"0\"", mvcResult.getResponse().getHeader(HttpHeaders.ETAG));
+         
+         // Same version again, answered without a body
+         mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/issue/{issueId}", 1L)
+                 .header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                 .with(csrf())
+                 .with(user("varsha20").roles("MODERATOR","USER","ADMIN")))
+                 .andExpect(status().isNotModified())
+                 .andReturn();
+         assertEquals("", mvcResult.getResponse().getContentAsString());
     }
     
     @Test
@@ -186,12 +397,12 @@ public class IssueControllerTest {
          issue2.setResponsible("Developer");
          issue2.setUser(new User());
          
-         List<Issue> issues = new ArrayList<>();
-         issues.add(issue1);
-         issues.add(issue2);
+         List<IssueViewDto> issues = new ArrayList<>();
+         issues.add(IssueViewDto.from(issue1));
+         issues.add(IssueViewDto.from(issue2));
          
          // Mock the service method call
-         when(issueService.getAllIssues()).thenReturn(issues);
+         when(issueService.getIssues(any(IssueFilterDto.class), any(), any())).thenReturn(new PageResponse<>(issues, 2L, issues.size()));
          
          // Performing the POST request with the custom user
          MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/issue/")
@@ -203,8 +414,108 @@ public class IssueControllerTest {
          
          // Check the response body
          String responseBody = mvcResult.getResponse().getContentAsString();
-         List<Issue> issueResult = new ObjectMapper().readValue(responseBody, new TypeReference<List<Issue>>() {});
-         assertEquals(issues.size(), issueResult.size());
+         PageResponse<IssueViewDto> issueResult = new ObjectMapper().readValue(responseBody, new TypeReference<PageResponse<IssueViewDto>>() {});
+         assertEquals(issues.size(), issueResult.getContent().size());
+         assertEquals(2L, issueResult.getNextCursor());
+    }
+    
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"USER"})
+    public void searchIssuesTest() throws Exception {
+    	
+    	 List<IssueViewDto> issues = new ArrayList<>();
+    	 issues.add(IssueViewDto.from(getIssueData()));
+    	 
+    	 // Mock the service method call
+    	 when(issueSearchService.search("test", null, null)).thenReturn(new SearchResponse<>(issues, 1, 0, 1));
+    	 
+    	 MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/issue/search")
+    			 .param("q", "test")
+                 .with(csrf())
+                 .with(user("varsha20").roles("USER")))
+                 .andExpect(status().isOk())
+                 .andReturn();
+    	 
+    	 // Check the response body
+    	 String responseBody = mvcResult.getResponse().getContentAsString();
+    	 SearchResponse<IssueViewDto> result = new ObjectMapper().readValue(responseBody, new TypeReference<SearchResponse<IssueViewDto>>() {});
+    	 assertEquals(1L, result.getTotalHits());
+    	 assertEquals("Test Issue", result.getContent().get(0).getTitle());
+    }
+    
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"MODERATOR"})
+    public void getIssueStatsTest() throws Exception {
+    	
+    	 List<IssueCountDto> counts = new ArrayList<>();
+    	 counts.add(new IssueCountDto(Severity.CRITICAL, "Open", "Developer", 4));
+    	 counts.add(new IssueCountDto(Severity.CRITICAL, "Open", "Tester", 2));
+    	 
+    	 // Mock the service method call
+    	 when(issueStatsService.getCounts("critical", "Open", null)).thenReturn(counts);
+    	 
+    	 MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/issue/stats")
+    			 .param("severity", "critical")
+    			 .param("status", "Open")
+                 .with(csrf())
+                 .with(user("varsha20").roles("MODERATOR")))
+                 .andExpect(status().isOk())
+                 .andReturn();
+    	 
+    	 // Check the response body
+    	 String responseBody = mvcResult.getResponse().getContentAsString();
+    	 List<IssueCountDto> result = new ObjectMapper().readValue(responseBody, new TypeReference<List<IssueCountDto>>() {});
+    	 assertEquals(2, result.size());
+    	 assertEquals(4L, result.get(0).getCount());
+    }
+    
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"ADMIN"})
+    public void getIssueChangesTest() throws Exception {
+    	
+    	 List<IssueChangeDto> changes = new ArrayList<>();
+    	 changes.add(new IssueChangeDto(5L, 5L, 1L, ChangeType.UPDATED, new Date(), IssueViewDto.from(getIssueData())));
+    	 changes.add(new IssueChangeDto(6L, 6L, 2L, ChangeType.DELETED, new Date(), null));
+    	 
+    	 // Mock the service method call
+    	 when(issueChangeService.getChanges(4L, null)).thenReturn(new ChangeFeedResponse(changes, 6L, false));
+    	 
+    	 MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/issue/changes")
+    			 .param("since", "4")
+                 .with(csrf())
+                 .with(user("varsha20").roles("ADMIN")))
+                 .andExpect(status().isOk())
+                 .andReturn();
+    	 
+    	 // Check the response body
+    	 String responseBody = mvcResult.getResponse().getContentAsString();
+    	 ChangeFeedResponse result = new ObjectMapper().readValue(responseBody, ChangeFeedResponse.class);
+    	 assertEquals(6L, result.getNextCursor());
+    	 assertEquals(2, result.getContent().size());
+    	 assertEquals("Test Issue", result.getContent().get(0).getIssue().getTitle());
+    	 assertEquals(ChangeType.DELETED, result.getContent().get(1).getChangeType());
+    }
+    
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"ADMIN"})
+    public void exportIssuesTest() throws Exception {
+    	
+    	 // Mock the service method call
+    	 when(issueService.exportIssues(any(OutputStream.class))).thenAnswer(invocation -> {
+    		 OutputStream out = invocation.getArgument(0);
+    		 out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+    		 return 2L;
+    	 });
+    	 
+    	 MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/issue/export")
+                 .with(csrf())
+                 .with(user("varsha20").roles("ADMIN")))
+                 .andExpect(status().isOk())
+                 .andReturn();
+    	 
+    	 // Check the response type and body
+    	 assertEquals("application/x-ndjson", mvcResult.getResponse().getContentType());
+    	 assertEquals(2, mvcResult.getResponse().getContentAsString().split("\n").length);
     }
     
     @Test
@@ -237,4 +548,40 @@ public class IssueControllerTest {
         return issue;
     }
 
+
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"ADMIN"})
+    public void archiveIssuesTest() throws Exception {
+
+        when(issueArchiveService.archiveIssues()).thenReturn(120L);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/api/issue/archive")
+                .with(csrf())
+                .with(user("varsha20").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Checking the response body
+        AffectedCountResponse response = new ObjectMapper().readValue(mvcResult.getResponse().getContentAsString(), AffectedCountResponse.class);
+        assertEquals(120L, response.getAffected());
+    }
+
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"ADMIN"})
+    public void deleteIssuesTest() throws Exception {
+
+        when(issueService.deleteIssues(any(IssueFilterDto.class))).thenReturn(1200L);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/api/issue/delete")
+                .with(csrf())
+                .with(user("varsha20").roles("ADMIN"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"Closed\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Checking the response body
+        AffectedCountResponse response = new ObjectMapper().readValue(mvcResult.getResponse().getContentAsString(), AffectedCountResponse.class);
+        assertEquals(1200L, response.getAffected());
+    }
 }
@@ -0,0 +1,150 @@
+package com.spring.ims.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.ims.config.SqlStatementMonitor;
+import com.spring.ims.controllers.MetricsController;
+import com.spring.ims.payload.response.AuthRejectionStatsResponse;
+import com.spring.ims.payload.response.LoginThrottleStatsResponse;
+import com.spring.ims.payload.response.PasswordHashingStatsResponse;
+import com.spring.ims.payload.response.ReplicationStatsResponse;
+import com.spring.ims.payload.response.SqlShapeStatsResponse;
+import com.spring.ims.payload.response.SqlStatsResponse;
+import com.spring.ims.security.jwt.AuthRejectionMonitor;
+import com.spring.ims.security.services.LoginThrottle;
+import com.spring.ims.security.services.PasswordHashingExecutor;
+
+@WebMvcTest(MetricsController.class)
+@ExtendWith(SpringExtension.class)
+public class MetricsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @MockBean
+    private LoginThrottle loginThrottle;
+
+    @MockBean
+    private AuthRejectionMonitor authRejectionMonitor;
+
+    @MockBean
+    private SqlStatementMonitor sqlStatementMonitor;
+
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"ADMIN"})
+    public void getPasswordHashingStatsTest() throws Exception {
+
+        when(passwordHashingExecutor.getStats()).thenReturn(
+                new PasswordHashingStatsResponse(2, 2, 5, 32, 120, 3, 0, 4.5, 80.0, 140.0));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/metrics/password-hashing")
+                .with(user("varsha20").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Check the response body
+        String responseBody = mvcResult.getResponse().getContentAsString();
+        PasswordHashingStatsResponse stats = new ObjectMapper().readValue(responseBody, PasswordHashingStatsResponse.class);
+        assertEquals(5, stats.getQueueDepth());
+        assertEquals(3L, stats.getRejectedCount());
+    }
+
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"ADMIN"})
+    public void getLoginThrottleStatsTest() throws Exception {
+
+        when(loginThrottle.getStats()).thenReturn(new LoginThrottleStatsResponse(100, 7, 3, 40, 12, 0));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/metrics/login-throttle")
+                .with(user("varsha20").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Check the response body
+        String responseBody = mvcResult.getResponse().getContentAsString();
+        LoginThrottleStatsResponse stats = new ObjectMapper().readValue(responseBody, LoginThrottleStatsResponse.class);
+        assertEquals(100L, stats.getAllowedCount());
+        assertEquals(7L, stats.getThrottledByUserCount());
+    }
+
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"ADMIN"})
+    public void getAuthRejectionStatsTest() throws Exception {
+
+        when(authRejectionMonitor.getStats()).thenReturn(
+                new AuthRejectionStatsResponse(25, 23, Collections.singletonMap("EXPIRED_TOKEN", 25L)));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/metrics/auth-rejections")
+                .with(user("varsha20").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Check the response body
+        String responseBody = mvcResult.getResponse().getContentAsString();
+        AuthRejectionStatsResponse stats = new ObjectMapper().readValue(responseBody, AuthRejectionStatsResponse.class);
+        assertEquals(23L, stats.getSuppressedLogCount());
+        assertEquals(Long.valueOf(25L), stats.getRejections().get("EXPIRED_TOKEN"));
+    }
+
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"ADMIN"})
+    public void getReplicationStatsWithoutReplicaTest() throws Exception {
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/metrics/replication")
+                .with(user("varsha20").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // No replica configured, so the stats report it as disabled
+        String responseBody = mvcResult.getResponse().getContentAsString();
+        ReplicationStatsResponse stats = new ObjectMapper().readValue(responseBody, ReplicationStatsResponse.class);
+        assertFalse(stats.isEnabled());
+        assertEquals(-1L, stats.getLagMs());
+    }
+
+    @Test
+    @WithMockUser(username = "varsha20", roles = {"ADMIN"})
+    public void getSqlStatsTest() throws Exception {
+
+        SqlShapeStatsResponse shape = new SqlShapeStatsResponse("select * from issue where id = ?", 40, 40, 1,
+                80.0, 2.0, 300.0, 1.0, 2.0, 250.0, Arrays.asList(30L, 9L, 1L),
+                Collections.singletonMap("GET /api/issue/{issueId}", 40L));
+        when(sqlStatementMonitor.getStats(5)).thenReturn(new SqlStatsResponse(40, 1, 0, 0, 1, 200,
+                Arrays.asList(1L, 2L), Collections.singletonList(shape)));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/metrics/sql")
+                .param("limit", "5")
+                .with(user("varsha20").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Check the response body
+        String responseBody = mvcResult.getResponse().getContentAsString();
+        SqlStatsResponse stats = new ObjectMapper().readValue(responseBody, SqlStatsResponse.class);
+        assertEquals(40L, stats.getTotalStatements());
+        assertEquals("select * from issue where id = ?", stats.getShapes().get(0).getSql());
+        assertEquals(Long.valueOf(40L), stats.getShapes().get(0).getEndpoints().get("GET /api/issue/{issueId}"));
+    }
+}
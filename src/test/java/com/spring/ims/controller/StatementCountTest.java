@@ -0,0 +1,174 @@
+package com.spring.ims.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.ims.dto.IssueDto;
+import com.spring.ims.enums.Severity;
+import com.spring.ims.models.ERole;
+import com.spring.ims.models.Issue;
+import com.spring.ims.models.User;
+import com.spring.ims.payload.request.LoginRequest;
+import com.spring.ims.repository.IssueRepository;
+import com.spring.ims.repository.UserRepository;
+import com.spring.ims.security.services.RoleRegistry;
+import com.spring.ims.services.IssueService;
+import com.spring.ims.support.StatementCounter;
+
+/**
+ * Runs endpoints against an in-memory database and bounds the number of SQL
+ * statements each one issues, so N+1 selects fail the build. The change feed
+ * sequencer is held back, its statements would be counted too.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statementcount;DB_CLOSE_DELAY=-1",
+        "spring.app.searchIndexPath=target/statement-count-index",
+        "spring.app.changeFeedSequenceMs=3600000",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@DirtiesContext
+public class StatementCountTest {
+
+    private static final int ISSUES_PER_USER = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private IssueRepository issueRepository;
+
+    @Autowired
+    private IssueService issueService;
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    private StatementCounter statements;
+
+    private Long issueId;
+
+    @BeforeEach
+    public void setUp() {
+        issueRepository.deleteAll();
+        userRepository.deleteAll();
+
+        // Three owners, so a per-row owner or role lookup shows up as extra statements
+        for (String username : Arrays.asList("admin", "owner1", "owner2")) {
+            User user = new User(username, username + "@test.com", encoder.encode("password"));
+            user.setRoles(new HashSet<>(Arrays.asList(roleRegistry.get(ERole.ROLE_ADMIN),
+                    roleRegistry.get(ERole.ROLE_USER), roleRegistry.get(ERole.ROLE_MODERATOR))));
+            userRepository.save(user);
+
+            for (int i = 0; i < ISSUES_PER_USER; i++) {
+                Issue issue = new Issue();
+                issue.setTitle("Issue " + i);
+                issue.setDescription("Description " + i);
+                issue.setResponsible("Developer");
+                issue.setStatus("OPEN");
+                issue.setSeverity(Severity.LOW);
+                issue.setUser(user);
+                issueId = issueRepository.save(issue).getId();
+            }
+        }
+
+        statements = new StatementCounter(entityManagerFactory);
+        statements.reset();
+    }
+
+    @Test
+    public void endpointStatementCountTest() throws Exception {
+
+        // Sign in loads the user with its roles in one statement
+        MvcResult signin = mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/signin")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(new ObjectMapper().writeValueAsString(new LoginRequest("admin", "password"))))
+                .andExpect(status().isOk())
+                .andReturn();
+        statements.assertAtMost(1, "POST /api/auth/signin");
+
+        JsonNode tokens = new ObjectMapper().readTree(signin.getResponse().getContentAsString());
+        String bearer = "Bearer " + tokens.get("token").asText();
+
+        // Each authenticated request checks the token version once
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/issue/{issueId}", issueId)
+                .header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk());
+        statements.assertAtMost(2, "GET /api/issue/{issueId}");
+
+        MvcResult page = mockMvc.perform(MockMvcRequestBuilders.get("/api/issue")
+                .param("size", "100")
+                .header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(3 * ISSUES_PER_USER,
+                new ObjectMapper().readTree(page.getResponse().getContentAsString()).get("content").size());
+        statements.assertAtMost(2, "GET /api/issue");
+
+        IssueDto issueDto = new IssueDto();
+        issueDto.setTitle("Updated");
+        issueDto.setDescription("Updated description");
+        issueDto.setResponsible("Developer");
+        issueDto.setStatus("OPEN");
+        issueDto.setSeverity("MAJOR");
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/issue/{issueId}", issueId)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(new ObjectMapper().writeValueAsString(issueDto))
+                .header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk());
+        statements.assertAtMost(5, "PUT /api/issue/{issueId}");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/issue/changes")
+                .header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk());
+        statements.assertAtMost(3, "GET /api/issue/changes");
+
+        // Refresh reads the user with its roles in one statement
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content("{\"refreshToken\":\"" + tokens.get("refreshToken").asText() + "\"}"))
+                .andExpect(status().isOk());
+        statements.assertAtMost(1, "POST /api/auth/refresh");
+    }
+
+    @Test
+    public void allIssuesWithOwnersStatementCountTest() {
+
+        // Owners come with the issues, reading them adds no statements
+        List<Issue> issues = issueService.getAllIssues();
+        issues.forEach(issue -> issue.getUser().getUsername());
+
+        assertEquals(3 * ISSUES_PER_USER, issues.size());
+        statements.assertAtMost(1, "getAllIssues");
+    }
+}
@@ -0,0 +1,105 @@
+package com.spring.ims.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.spring.ims.dto.IssueViewDto;
+import com.spring.ims.enums.Severity;
+import com.spring.ims.models.Issue;
+import com.spring.ims.models.IssueArchive;
+
+/**
+ * Runs the archive move against the migrated schema
+ */
+@DataJpaTest
+public class IssueArchiveRepositoryTest {
+
+    private static final List<String> TERMINAL_STATUSES = Arrays.asList("Closed", "Resolved");
+
+    @Autowired
+    private IssueRepository issueRepository;
+
+    @Autowired
+    private IssueArchiveRepository issueArchiveRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void moveFromIssuesTest() {
+
+        long closed = saveIssue("Closed");
+        long open = saveIssue("Open");
+        long recent = saveIssue("Resolved");
+
+        // Age all but the last issue past the cutoff
+        Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(30));
+        Date old = new Date(cutoff.getTime() - TimeUnit.DAYS.toMillis(1));
+        jdbcTemplate.update("UPDATE issue SET updated_at = ? WHERE id IN (?, ?)", old, closed, open);
+
+        List<Long> ids = Arrays.asList(closed, open, recent);
+        List<Issue> moved = issueArchiveRepository.moveFromIssues(ids, TERMINAL_STATUSES, cutoff, new Date());
+        entityManager.clear();
+
+        // Only the old closed issue leaves the issue table, with its grouping
+        assertEquals(1, moved.size());
+        assertEquals(closed, moved.get(0).getId());
+        assertEquals("Closed", moved.get(0).getStatus());
+        assertEquals(Severity.LOW, moved.get(0).getSeverity());
+        assertEquals(Arrays.asList(closed), issueArchiveRepository.findAllById(ids).stream().map(IssueArchive::getId).collect(Collectors.toList()));
+        assertFalse(issueRepository.existsById(closed));
+        assertTrue(issueRepository.existsById(open));
+        assertTrue(issueRepository.existsById(recent));
+
+        Optional<IssueViewDto> archived = issueArchiveRepository.findViewById(closed);
+        assertTrue(archived.isPresent());
+        assertEquals("Closed", archived.get().getStatus());
+        assertEquals("Archived issue", archived.get().getTitle());
+    }
+
+    @Test
+    public void deleteArchivedByIdTest() {
+
+        long closed = saveIssue("Closed");
+        Date cutoff = new Date();
+        jdbcTemplate.update("UPDATE issue SET updated_at = ? WHERE id = ?", new Date(cutoff.getTime() - 1000), closed);
+        issueArchiveRepository.moveFromIssues(Arrays.asList(closed), TERMINAL_STATUSES, cutoff, new Date());
+        entityManager.clear();
+
+        // Deleted once, then neither live nor archived
+        assertEquals(1, issueArchiveRepository.deleteArchivedById(closed));
+        assertEquals(0, issueArchiveRepository.deleteArchivedById(closed));
+        assertFalse(issueArchiveRepository.findViewById(closed).isPresent());
+        assertFalse(issueRepository.existsById(closed));
+    }
+
+    private long saveIssue(String status) {
+
+        Issue issue = new Issue();
+        issue.setTitle("Archived issue");
+        issue.setResponsible("Developer");
+        issue.setDescription("Description");
+        issue.setStatus(status);
+        issue.setSeverity(Severity.LOW);
+
+        return issueRepository.saveAndFlush(issue).getId();
+    }
+}
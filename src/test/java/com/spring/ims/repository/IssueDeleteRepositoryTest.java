@@ -0,0 +1,88 @@
+package com.spring.ims.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import com.spring.ims.enums.Severity;
+import com.spring.ims.models.Issue;
+
+/**
+ * Runs the single-statement deletes against the migrated schema
+ */
+@DataJpaTest
+public class IssueDeleteRepositoryTest {
+
+    @Autowired
+    private IssueRepository issueRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void deleteByIdReturningTest() {
+
+        long id = saveIssue("Open", Severity.MAJOR);
+
+        // The deleted row carries the grouping of the statistics
+        Optional<Issue> deleted = issueRepository.deleteByIdReturning(id);
+        assertTrue(deleted.isPresent());
+        assertEquals(id, deleted.get().getId());
+        assertEquals(Severity.MAJOR, deleted.get().getSeverity());
+        assertEquals("Open", deleted.get().getStatus());
+        assertEquals("Developer", deleted.get().getResponsible());
+        assertFalse(issueRepository.existsById(id));
+
+        // Nothing left to delete
+        assertFalse(issueRepository.deleteByIdReturning(id).isPresent());
+    }
+
+    @Test
+    public void deleteChunkByFilterTest() {
+
+        long first = saveIssue("Closed", Severity.LOW);
+        long second = saveIssue("Closed", Severity.CRITICAL);
+        long open = saveIssue("Open", Severity.LOW);
+        entityManager.clear();
+
+        // Only the matching issues are selected, in id order up to the limit
+        List<Issue> page = issueRepository.lockPageByFilter(0L, "Closed", null, null, null, 1);
+        assertEquals(1, page.size());
+        assertEquals(first, page.get(0).getId());
+        assertEquals(Severity.LOW, page.get(0).getSeverity());
+
+        // The next page starts after the last id
+        page = issueRepository.lockPageByFilter(first, "Closed", null, null, null, 10);
+        assertEquals(1, page.size());
+        assertEquals(second, page.get(0).getId());
+
+        List<Long> ids = Arrays.asList(first, second);
+        List<Issue> deleted = issueRepository.deleteByIdsReturning(ids);
+        assertEquals(2, deleted.size());
+        assertFalse(issueRepository.existsById(first));
+        assertFalse(issueRepository.existsById(second));
+        assertTrue(issueRepository.existsById(open));
+    }
+
+    private long saveIssue(String status, Severity severity) {
+
+        Issue issue = new Issue();
+        issue.setTitle("Deleted issue");
+        issue.setResponsible("Developer");
+        issue.setDescription("Description");
+        issue.setStatus(status);
+        issue.setSeverity(severity);
+
+        return issueRepository.saveAndFlush(issue).getId();
+    }
+}
@@ -0,0 +1,105 @@
+package com.spring.ims.repository;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import com.spring.ims.enums.Severity;
+import com.spring.ims.support.QueryPlanInspector;
+
+/**
+ * Runs the hot issue queries against the migrated schema and checks with H2
+ * {@code EXPLAIN} that each one is served by its index. Validating the
+ * entities against the schema also catches migrations that drift from the
+ * mappings.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.spring.ims.support.QueryPlanInspector"
+})
+public class IssueIndexUsageTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private IssueRepository issueRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @BeforeEach
+    public void setUp() {
+        QueryPlanInspector.reset();
+    }
+
+    @Test
+    public void pageByStatusUsesIndexTest() {
+
+        issueRepository.findViewPageAfter(0L, "OPEN", null, null, null, PageRequest.of(0, 20));
+        assertUsesIndex("IDX_ISSUE_STATUS_ID");
+    }
+
+    @Test
+    public void pageBySeverityUsesIndexTest() {
+
+        issueRepository.findViewPageAfter(0L, null, Severity.CRITICAL, null, null, PageRequest.of(0, 20));
+        assertUsesIndex("IDX_ISSUE_SEVERITY_ID");
+    }
+
+    @Test
+    public void pageByResponsibleUsesIndexTest() {
+
+        issueRepository.findViewPageAfter(0L, null, null, "Developer", null, PageRequest.of(0, 20));
+        assertUsesIndex("IDX_ISSUE_RESPONSIBLE_ID");
+    }
+
+    @Test
+    public void pageByOwnerUsesIndexTest() {
+
+        issueRepository.findViewPageAfter(0L, null, null, null, 1L, PageRequest.of(0, 20));
+        assertUsesIndex("FK_ISSUE_USER_INDEX");
+    }
+
+    @Test
+    public void bulkChunkByFilterUsesIndexTest() {
+
+        issueRepository.lockPageByFilter(0L, "OPEN", null, null, null, 500);
+        assertUsesIndex("IDX_ISSUE_STATUS_ID");
+    }
+
+    @Test
+    public void statisticsUseCoveringIndexTest() {
+
+        issueRepository.countBySeverityStatusResponsible();
+        assertUsesIndex("IDX_ISSUE_SEVERITY_STATUS_RESPONSIBLE");
+    }
+
+    @Test
+    public void archivableIssuesUseIndexTest() {
+
+        issueRepository.findArchivableIds(Arrays.asList("Closed", "Resolved"), new Date(), PageRequest.of(0, 500));
+        assertUsesIndex("IDX_ISSUE_STATUS_UPDATED_AT");
+    }
+
+    @Test
+    public void activeRevokedTokensUseIndexTest() {
+
+        revokedTokenRepository.findActiveIds(new Date());
+        assertUsesIndex("IDX_REVOKED_TOKEN_EXPIRES_AT");
+    }
+
+    private void assertUsesIndex(String index) {
+        String plan = QueryPlanInspector.explainLast(dataSource);
+        assertTrue(plan.contains(index), "Expected " + index + " in plan:\n" + plan);
+    }
+}
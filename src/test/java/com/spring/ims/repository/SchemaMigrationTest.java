@@ -0,0 +1,114 @@
+package com.spring.ims.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Upgrades a database created by the application before the migrations and
+ * checks that it ends up with the same schema as a fresh one, with id
+ * sequences that do not collide with the existing rows
+ */
+public class SchemaMigrationTest {
+
+    // As generated by Hibernate from the original entities
+    private static final String[] LEGACY_SCHEMA = {
+            "CREATE TABLE issue (id BIGINT GENERATED BY DEFAULT AS IDENTITY, description VARCHAR(200), responsible VARCHAR(50),"
+                    + " severity VARCHAR(255), status VARCHAR(50), title VARCHAR(50), user_id BIGINT, PRIMARY KEY (id))",
+            "CREATE TABLE roles (id INTEGER GENERATED BY DEFAULT AS IDENTITY, name VARCHAR(20), PRIMARY KEY (id))",
+            "CREATE TABLE user_roles (user_id BIGINT NOT NULL, role_id INTEGER NOT NULL, PRIMARY KEY (user_id, role_id))",
+            "CREATE TABLE users (id BIGINT GENERATED BY DEFAULT AS IDENTITY, email VARCHAR(50), password VARCHAR(120),"
+                    + " username VARCHAR(20), PRIMARY KEY (id))",
+            "ALTER TABLE users ADD CONSTRAINT UKr43af9ap4edm43mmtq01oddj6 UNIQUE (username)",
+            "ALTER TABLE users ADD CONSTRAINT UK6dotkott2kjsp8vw4d0m25fb7 UNIQUE (email)",
+            "ALTER TABLE issue ADD CONSTRAINT FKj8ryrqrh9ru3gm1o4vdnvnqwl FOREIGN KEY (user_id) REFERENCES users",
+            "ALTER TABLE user_roles ADD CONSTRAINT FKh8ciramu9cc9q3qcqiv4ue8a6 FOREIGN KEY (role_id) REFERENCES roles",
+            "ALTER TABLE user_roles ADD CONSTRAINT FKhfh9dx7w3ubf1co1vdev94g3f FOREIGN KEY (user_id) REFERENCES users",
+            "INSERT INTO roles (name) VALUES ('ROLE_USER'), ('ROLE_MODERATOR'), ('ROLE_ADMIN')",
+            "INSERT INTO users (username, email, password) VALUES ('varsha20', 'varsha@test.com', 'hash'), ('admin', 'admin@test.com', 'hash')",
+            "INSERT INTO user_roles (user_id, role_id) VALUES (1, 1), (2, 3)",
+            "INSERT INTO issue (title, responsible, description, status, severity, user_id) VALUES"
+                    + " ('First', 'Developer', 'Description', 'Open', 'LOW', 1),"
+                    + " ('Second', 'Developer', 'Description', 'Closed', 'MAJOR', 1),"
+                    + " ('Third', 'Tester', 'Description', 'Open', 'CRITICAL', 2)"
+    };
+
+    @Test
+    public void legacyDatabaseIsUpgradedTest() throws SQLException {
+
+        String legacyUrl = "jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1";
+        String freshUrl = "jdbc:h2:mem:fresh;DB_CLOSE_DELAY=-1";
+
+        try (Connection legacy = DriverManager.getConnection(legacyUrl, "sa", "");
+                Connection fresh = DriverManager.getConnection(freshUrl, "sa", "")) {
+
+            try (Statement statement = legacy.createStatement()) {
+                for (String sql : LEGACY_SCHEMA) {
+                    statement.execute(sql);
+                }
+            }
+
+            migrate(legacyUrl);
+            migrate(freshUrl);
+
+            // Same tables and columns as a database created by the migrations
+            assertEquals(columns(fresh), columns(legacy));
+
+            // Rows are kept, with the new columns at their defaults
+            assertEquals(3L, queryLong(legacy, "SELECT COUNT(*) FROM issue WHERE version = 0"));
+            assertEquals(2L, queryLong(legacy, "SELECT COUNT(*) FROM users WHERE token_version = 0"));
+
+            // The first pooled block of each sequence starts above the existing ids
+            assertTrue(queryLong(legacy, "SELECT NEXT VALUE FOR issue_seq") - 49 > 3);
+            assertTrue(queryLong(legacy, "SELECT NEXT VALUE FOR users_seq") - 49 > 2);
+
+            // Inserts with the ids Hibernate would assign succeed
+            try (Statement statement = legacy.createStatement()) {
+                statement.execute("INSERT INTO issue (id, title, responsible, description, status, severity, user_id)"
+                        + " VALUES (4, 'Fourth', 'Developer', 'Description', 'Open', 'LOW', 1)");
+            }
+        }
+    }
+
+    private void migrate(String url) {
+
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    private Set<String> columns(Connection connection) throws SQLException {
+
+        Set<String> columns = new TreeSet<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT table_name, column_name, data_type, is_nullable"
+                        + " FROM information_schema.columns WHERE table_schema = 'PUBLIC'"
+                        + " AND table_name <> 'flyway_schema_history'")) {
+            while (rs.next()) {
+                columns.add(rs.getString(1) + "." + rs.getString(2) + " " + rs.getString(3) + " " + rs.getString(4));
+            }
+        }
+        return columns;
+    }
+
+    private long queryLong(Connection connection, String sql) throws SQLException {
+
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.spring.ims.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.ims.security.jwt.AuthEntryPointJwt;
+import com.spring.ims.security.jwt.AuthRejectionMonitor;
+import com.spring.ims.security.jwt.AuthRejectionMonitor.Reason;
+
+public class AuthEntryPointJwtTest {
+
+    @Mock
+    private AuthRejectionMonitor rejectionMonitor;
+
+    @InjectMocks
+    private AuthEntryPointJwt authEntryPointJwt;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(authEntryPointJwt, "objectMapper", new ObjectMapper());
+        authEntryPointJwt.init();
+    }
+
+    @Test
+    public void commenceTest() throws Exception {
+
+        InsufficientAuthenticationException exception = new InsufficientAuthenticationException("Full authentication is required");
+
+        // The cached part of the body is reused, the path is written per request
+        for (String path : new String[] { "/api/issue/1", "/api/issue/\"quoted\"" }) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+            request.setServletPath(path);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            authEntryPointJwt.commence(request, response, exception);
+
+            assertEquals(401, response.getStatus());
+            assertEquals("application/json", response.getContentType());
+            JsonNode body = new ObjectMapper().readTree(response.getContentAsByteArray());
+            assertEquals(401, body.get("status").asInt());
+            assertEquals("Unauthorized", body.get("error").asText());
+            assertEquals("Full authentication is required", body.get("message").asText());
+            assertEquals(path, body.get("path").asText());
+        }
+
+        verify(rejectionMonitor, times(2)).record(Reason.UNAUTHORIZED, "Full authentication is required");
+    }
+}
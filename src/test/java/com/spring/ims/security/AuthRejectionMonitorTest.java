@@ -0,0 +1,39 @@
+package com.spring.ims.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.spring.ims.payload.response.AuthRejectionStatsResponse;
+import com.spring.ims.security.jwt.AuthRejectionMonitor;
+import com.spring.ims.security.jwt.AuthRejectionMonitor.Reason;
+
+public class AuthRejectionMonitorTest {
+
+    private AuthRejectionMonitor rejectionMonitor;
+
+    @BeforeEach
+    public void setUp() {
+        rejectionMonitor = new AuthRejectionMonitor();
+        ReflectionTestUtils.setField(rejectionMonitor, "logIntervalMs", 60000L);
+    }
+
+    @Test
+    public void sampledLoggingTest() {
+
+        for (int i = 0; i < 100; i++) {
+            rejectionMonitor.record(Reason.EXPIRED_TOKEN, "expired");
+        }
+        rejectionMonitor.record(Reason.UNAUTHORIZED, "Full authentication is required");
+
+        // Every rejection is counted, one line per reason is logged in the interval
+        AuthRejectionStatsResponse stats = rejectionMonitor.getStats();
+        assertEquals(101L, stats.getTotalCount());
+        assertEquals(99L, stats.getSuppressedLogCount());
+        assertEquals(Long.valueOf(100L), stats.getRejections().get("EXPIRED_TOKEN"));
+        assertEquals(Long.valueOf(1L), stats.getRejections().get("UNAUTHORIZED"));
+        assertEquals(Long.valueOf(0L), stats.getRejections().get("REVOKED_TOKEN"));
+    }
+}
@@ -0,0 +1,139 @@
+package com.spring.ims.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.spring.ims.security.jwt.AuthRejectionMonitor;
+import com.spring.ims.security.jwt.AuthRejectionMonitor.Reason;
+import com.spring.ims.security.jwt.AuthTokenFilter;
+import com.spring.ims.security.jwt.JwtUtils;
+import com.spring.ims.security.services.TokenRevocationService;
+import com.spring.ims.security.services.UserDetailsImpl;
+import com.spring.ims.security.services.UserDetailsServiceImpl;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+
+public class AuthTokenFilterTest {
+
+    @Mock
+    private JwtUtils jwtUtils;
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private AuthRejectionMonitor rejectionMonitor;
+
+    @InjectMocks
+    private AuthTokenFilter authTokenFilter;
+
+    private MockHttpServletRequest request;
+
+    private Claims claims;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(authTokenFilter, "claimsAuth", true);
+        ReflectionTestUtils.setField(authTokenFilter, "checkTokenVersion", true);
+
+        request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token");
+
+        claims = new DefaultClaims();
+        claims.setSubject("user1");
+        when(jwtUtils.getClaimsFromJwtToken("token")).thenReturn(claims);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void claimsAuthenticationTest() throws Exception {
+
+        UserDetailsImpl userDetails = new UserDetailsImpl(7L, "user1", "user1@test.com", null,
+                Arrays.asList(new SimpleGrantedAuthority("ROLE_ADMIN")), 0L);
+        when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(userDetails);
+        when(userDetailsService.isTokenVersionCurrent(7L, 0L)).thenReturn(true);
+
+        authTokenFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Authenticated from the claims, the user is never loaded
+        assertEquals(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verify(userDetailsService, never()).loadUserWithoutPassword(any(String.class));
+    }
+
+    @Test
+    public void outdatedTokenVersionTest() throws Exception {
+
+        when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(new UserDetailsImpl(7L, "user1", "user1@test.com", null,
+                Collections.emptyList(), 0L));
+        when(userDetailsService.isTokenVersionCurrent(7L, 0L)).thenReturn(false);
+
+        authTokenFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    public void revokedOrRefreshTokenTest() throws Exception {
+
+        claims.setId("token-id");
+        when(tokenRevocationService.isRevoked("token-id")).thenReturn(true);
+
+        authTokenFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        // Refresh tokens are not accepted as bearer tokens
+        when(tokenRevocationService.isRevoked("token-id")).thenReturn(false);
+        when(jwtUtils.isRefreshToken(claims)).thenReturn(true);
+
+        authTokenFilter.doFilter(new MockHttpServletRequest(request.getServletContext()) {{
+            addHeader("Authorization", "Bearer token");
+        }}, new MockHttpServletResponse(), new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(userDetailsService, never()).loadUserWithoutPassword(any(String.class));
+
+        // Both rejections are counted instead of logged one by one
+        verify(rejectionMonitor).record(Reason.REVOKED_TOKEN, "user1");
+        verify(rejectionMonitor).record(Reason.REFRESH_AS_ACCESS_TOKEN, "user1");
+    }
+
+    @Test
+    public void tokenWithoutClaimsTest() throws Exception {
+
+        UserDetailsImpl userDetails = new UserDetailsImpl(7L, "user1", "user1@test.com", null, Collections.emptyList());
+        when(userDetailsService.loadUserWithoutPassword("user1")).thenReturn(userDetails);
+
+        authTokenFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Older tokens still authenticate through the user lookup
+        assertEquals(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+}
@@ -0,0 +1,38 @@
+package com.spring.ims.security;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.spring.ims.security.services.BloomFilter;
+
+public class BloomFilterTest {
+
+    @Test
+    public void mightContainTest() {
+
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+
+        String[] added = new String[1000];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = UUID.randomUUID().toString();
+            filter.put(added[i]);
+        }
+
+        // No false negatives
+        for (String id : added) {
+            assertTrue(filter.mightContain(id));
+        }
+
+        // False positives stay near the configured rate
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,134 @@
+package com.spring.ims.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.spring.ims.security.jwt.AuthRejectionMonitor;
+import com.spring.ims.security.jwt.AuthRejectionMonitor.Reason;
+import com.spring.ims.security.jwt.JwtUtils;
+import com.spring.ims.security.services.UserDetailsImpl;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+public class JwtUtilsTest {
+
+    @Mock
+    private Authentication authentication;
+
+    private JwtUtils jwtUtils;
+
+    private AuthRejectionMonitor rejectionMonitor;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "testSecret");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtRefreshExpirationMs", 120000L);
+        ReflectionTestUtils.setField(jwtUtils, "claimsCacheSize", 100L);
+        rejectionMonitor = new AuthRejectionMonitor();
+        ReflectionTestUtils.setField(jwtUtils, "rejectionMonitor", rejectionMonitor);
+        jwtUtils.init();
+    }
+
+    @Test
+    public void claimsRoundTripTest() {
+
+        List<GrantedAuthority> authorities = Arrays.asList(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"));
+        when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(7L, "user1", "user1@test.com", "pass", authorities, 3L));
+
+        String token = jwtUtils.generateJwtToken(authentication);
+        Claims claims = jwtUtils.getClaimsFromJwtToken(token);
+
+        // The principal is rebuilt without the password
+        UserDetailsImpl userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+        assertEquals(7L, userDetails.getId());
+        assertEquals("user1", userDetails.getUsername());
+        assertEquals("user1@test.com", userDetails.getEmail());
+        assertEquals(3L, userDetails.getTokenVersion());
+        assertEquals(2, userDetails.getAuthorities().size());
+        assertNull(userDetails.getPassword());
+    }
+
+    @Test
+    public void refreshTokenTest() {
+
+        UserDetailsImpl userDetails = new UserDetailsImpl(7L, "user1", "user1@test.com", "pass",
+                Arrays.asList(new SimpleGrantedAuthority("ROLE_USER")), 3L);
+
+        Claims access = jwtUtils.getClaimsFromJwtToken(jwtUtils.generateAccessToken(userDetails));
+        Claims refresh = jwtUtils.getClaimsFromJwtToken(jwtUtils.generateRefreshToken(userDetails));
+
+        // Both carry a token id for revocation, only the refresh token is marked as such
+        assertFalse(jwtUtils.isRefreshToken(access));
+        assertTrue(jwtUtils.isRefreshToken(refresh));
+        assertNotNull(access.getId());
+        assertNotEquals(access.getId(), refresh.getId());
+
+        // Refresh tokens carry no roles and cannot become a principal
+        assertNull(jwtUtils.getUserDetailsFromClaims(refresh));
+    }
+
+    @Test
+    public void verifiedTokenCacheTest() {
+
+        String token = Jwts.builder().setSubject("user1")
+                .setExpiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(SignatureAlgorithm.HS512, "testSecret").compact();
+
+        // A repeated token is served from the cache
+        Claims claims = jwtUtils.getClaimsFromJwtToken(token);
+        assertSame(claims, jwtUtils.getClaimsFromJwtToken(token));
+
+        // Expired tokens are never cached
+        String expired = Jwts.builder().setSubject("user1")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(SignatureAlgorithm.HS512, "testSecret").compact();
+        assertNull(jwtUtils.getClaimsFromJwtToken(expired));
+        assertNull(jwtUtils.getClaimsFromJwtToken(expired));
+    }
+
+    @Test
+    public void invalidTokenTest() {
+
+        // Tampered signature
+        String tampered = Jwts.builder().setSubject("user1")
+                .signWith(SignatureAlgorithm.HS512, "otherSecret").compact();
+        assertNull(jwtUtils.getClaimsFromJwtToken(tampered));
+        assertNull(jwtUtils.getClaimsFromJwtToken("not.a.token"));
+
+        // A replayed bad token is refused without parsing it again
+        assertNull(jwtUtils.getClaimsFromJwtToken(tampered));
+        assertEquals(1L, rejectionMonitor.getCount(Reason.INVALID_SIGNATURE));
+        assertEquals(1L, rejectionMonitor.getCount(Reason.MALFORMED_TOKEN));
+        assertEquals(1L, rejectionMonitor.getCount(Reason.REPEATED_INVALID_TOKEN));
+
+        // Token without user claims
+        Claims claims = jwtUtils.getClaimsFromJwtToken(Jwts.builder().setSubject("user1")
+                .signWith(SignatureAlgorithm.HS512, "testSecret").compact());
+        assertNull(jwtUtils.getUserDetailsFromClaims(claims));
+    }
+}
@@ -0,0 +1,108 @@
+package com.spring.ims.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.spring.ims.IConstants.IConstants;
+import com.spring.ims.exception.TooManyRequestsException;
+import com.spring.ims.payload.response.LoginThrottleStatsResponse;
+import com.spring.ims.security.services.LoginThrottle;
+
+public class LoginThrottleTest {
+
+    private LoginThrottle loginThrottle;
+
+    @BeforeEach
+    public void setUp() {
+        loginThrottle = new LoginThrottle();
+        ReflectionTestUtils.setField(loginThrottle, "userCapacity", 3);
+        ReflectionTestUtils.setField(loginThrottle, "userRefillPerMinute", 3);
+        ReflectionTestUtils.setField(loginThrottle, "ipCapacity", 5);
+        ReflectionTestUtils.setField(loginThrottle, "ipRefillPerMinute", 5);
+        ReflectionTestUtils.setField(loginThrottle, "maxKeys", 1000L);
+        loginThrottle.init();
+    }
+
+    @Test
+    public void throttleByUserTest() {
+
+        // The bucket allows a burst of its capacity
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.acquire("user1", "10.0.0." + i);
+        }
+
+        // Usernames are matched case-insensitively
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class, () -> {
+            loginThrottle.acquire("USER1", "10.0.0.9");
+        });
+        assertEquals(IConstants.LOGIN_THROTTLED, exception.getMessage());
+        assertTrue(exception.getRetryAfterSeconds() >= 1 && exception.getRetryAfterSeconds() <= 20);
+
+        // Other users are not affected
+        loginThrottle.acquire("user2", "10.0.0.9");
+
+        LoginThrottleStatsResponse stats = loginThrottle.getStats();
+        assertEquals(4L, stats.getAllowedCount());
+        assertEquals(1L, stats.getThrottledByUserCount());
+        assertEquals(0L, stats.getThrottledByIpCount());
+    }
+
+    @Test
+    public void throttleByIpTest() {
+
+        for (int i = 0; i < 5; i++) {
+            loginThrottle.acquire("user" + i, "10.0.0.1");
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> {
+            loginThrottle.acquire("user9", "10.0.0.1");
+        });
+
+        // The username bucket is not charged for an attempt rejected by address
+        loginThrottle.acquire("user9", "10.0.0.2");
+
+        assertEquals(1L, loginThrottle.getStats().getThrottledByIpCount());
+    }
+
+    @Test
+    public void throttledUserDoesNotChargeIpTest() {
+
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.acquire("user1", "10.0.0." + i);
+        }
+
+        // Rejections by username leave the address bucket full
+        for (int i = 0; i < 10; i++) {
+            assertThrows(TooManyRequestsException.class, () -> {
+                loginThrottle.acquire("user1", "10.0.0.9");
+            });
+        }
+        for (int i = 0; i < 5; i++) {
+            loginThrottle.acquire("user" + (i + 2), "10.0.0.9");
+        }
+
+        LoginThrottleStatsResponse stats = loginThrottle.getStats();
+        assertEquals(10L, stats.getThrottledByUserCount());
+        assertEquals(0L, stats.getThrottledByIpCount());
+    }
+
+    @Test
+    public void boundedBucketsTest() {
+
+        for (int i = 0; i < 5000; i++) {
+            loginThrottle.acquire("user" + i, null);
+        }
+
+        LoginThrottleStatsResponse stats = loginThrottle.getStats();
+        assertEquals(5000L, stats.getAllowedCount());
+
+        // Buckets beyond the bound are evicted
+        assertTrue(stats.getTrackedUsers() <= 1000);
+        assertTrue(stats.getEvictedBuckets() >= 4000);
+    }
+}
@@ -0,0 +1,121 @@
+package com.spring.ims.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.spring.ims.exception.ServiceUnavailableException;
+import com.spring.ims.exception.TooManyRequestsException;
+import com.spring.ims.payload.response.PasswordHashingStatsResponse;
+import com.spring.ims.security.services.PasswordHashingExecutor;
+
+public class PasswordHashingExecutorTest {
+
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    private ExecutorService callers;
+
+    @BeforeEach
+    public void setUp() {
+        passwordHashingExecutor = new PasswordHashingExecutor();
+        ReflectionTestUtils.setField(passwordHashingExecutor, "threads", 1);
+        ReflectionTestUtils.setField(passwordHashingExecutor, "queueSize", 1);
+        ReflectionTestUtils.setField(passwordHashingExecutor, "timeoutMs", 200L);
+        passwordHashingExecutor.start();
+
+        callers = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        callers.shutdownNow();
+        passwordHashingExecutor.stop();
+    }
+
+    @Test
+    public void executeTest() {
+
+        assertEquals("hash", passwordHashingExecutor.execute(() -> "hash"));
+
+        // Task exceptions reach the caller unchanged
+        assertThrows(BadCredentialsException.class, () -> {
+            passwordHashingExecutor.execute(() -> {
+                throw new BadCredentialsException("Bad credentials");
+            });
+        });
+    }
+
+    @Test
+    public void executeAllTest() {
+
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i);
+        }
+
+        // Results keep the item order and run off the caller thread
+        List<String> results = passwordHashingExecutor.executeAll(items,
+            item -> item + ":" + Thread.currentThread().getName().startsWith("password-hash-bulk-"));
+
+        assertEquals(100, results.size());
+        assertEquals("0:true", results.get(0));
+        assertEquals("99:true", results.get(99));
+    }
+
+    @Test
+    public void rejectWhenQueueIsFullTest() throws Exception {
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // One task occupies the thread, a second one the queue
+        callers.submit(() -> passwordHashingExecutor.execute(() -> {
+            running.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        }));
+        running.await(5, TimeUnit.SECONDS);
+        callers.submit(() -> passwordHashingExecutor.execute(() -> true));
+        waitForQueueDepth(1);
+
+        assertThrows(TooManyRequestsException.class, () -> {
+            passwordHashingExecutor.execute(() -> true);
+        });
+
+        PasswordHashingStatsResponse stats = passwordHashingExecutor.getStats();
+        assertEquals(1, stats.getQueueDepth());
+        assertEquals(1L, stats.getRejectedCount());
+
+        release.countDown();
+    }
+
+    @Test
+    public void timeoutTest() {
+
+        assertThrows(ServiceUnavailableException.class, () -> {
+            passwordHashingExecutor.execute(() -> {
+                Thread.sleep(5000);
+                return true;
+            });
+        });
+        assertEquals(1L, passwordHashingExecutor.getStats().getTimedOutCount());
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+
+        for (int i = 0; i < 100 && passwordHashingExecutor.getStats().getQueueDepth() < depth; i++) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.spring.ims.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.spring.ims.IConstants.IConstants;
+import com.spring.ims.models.ERole;
+import com.spring.ims.models.Role;
+import com.spring.ims.repository.RoleRepository;
+import com.spring.ims.security.services.RoleRegistry;
+
+public class RoleRegistryTest {
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @InjectMocks
+    private RoleRegistry roleRegistry;
+
+    private Role userRole = new Role(ERole.ROLE_USER);
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        when(roleRepository.findAll()).thenReturn(Arrays.asList(userRole));
+        roleRegistry.load();
+    }
+
+    @Test
+    public void getTest() {
+
+        // Served from memory after the startup load
+        assertSame(userRole, roleRegistry.get(ERole.ROLE_USER));
+        assertSame(userRole, roleRegistry.get(ERole.ROLE_USER));
+        verify(roleRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void missingRoleTest() {
+
+        Role adminRole = new Role(ERole.ROLE_ADMIN);
+
+        // A role added after startup is found by one reload
+        when(roleRepository.findAll()).thenReturn(Arrays.asList(userRole, adminRole));
+        assertSame(adminRole, roleRegistry.get(ERole.ROLE_ADMIN));
+
+        Exception exception = assertThrows(RuntimeException.class, () -> {
+            roleRegistry.get(ERole.ROLE_MODERATOR);
+        });
+        assertEquals(IConstants.ROLE_NOT_FOUND, exception.getMessage());
+    }
+}
@@ -0,0 +1,87 @@
+package com.spring.ims.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.annotation.DirtiesContext;
+
+import com.spring.ims.models.ERole;
+import com.spring.ims.models.User;
+import com.spring.ims.repository.UserRepository;
+import com.spring.ims.security.services.AuthenticationService;
+import com.spring.ims.security.services.RoleRegistry;
+import com.spring.ims.security.services.UserDetailsImpl;
+import com.spring.ims.security.services.UserDetailsServiceImpl;
+
+/**
+ * Updates roles against an in-memory database and checks the token version,
+ * the cached user details and the signin lookup
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:roleupdate;DB_CLOSE_DELAY=-1",
+        "spring.app.searchIndexPath=target/role-update-index"
+})
+@DirtiesContext
+public class UserRoleUpdateTest {
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository.deleteAll();
+
+        user = new User("member", "member@test.com", "hash");
+        user.setRoles(Collections.singleton(roleRegistry.get(ERole.ROLE_USER)));
+        user = userRepository.save(user);
+    }
+
+    @Test
+    public void roleUpdateIncrementsVersionAndEvictsTest() {
+
+        UserDetailsImpl cached = userDetailsService.loadUserWithoutPassword("member");
+
+        // Each update increments the stored version, starting from the stored value
+        authenticationService.updateUserRoles(user.getId(), Collections.singleton("mod"));
+        User updated = authenticationService.updateUserRoles(user.getId(), Collections.singleton("mod"));
+        assertEquals(2L, updated.getTokenVersion());
+        assertEquals(2L, userRepository.findTokenVersionById(user.getId()).get());
+
+        // The cached details were dropped after the commit, the reload has the new role
+        UserDetailsImpl reloaded = userDetailsService.loadUserWithoutPassword("member");
+        assertEquals(0L, cached.getTokenVersion());
+        assertEquals(2L, reloaded.getTokenVersion());
+        assertTrue(reloaded.getAuthorities().contains(new SimpleGrantedAuthority(ERole.ROLE_MODERATOR.name())));
+    }
+
+    @Test
+    public void cachedDetailsHoldNoPasswordTest() {
+
+        // Token requests are served from the cache without the hash
+        assertNull(userDetailsService.loadUserWithoutPassword("member").getPassword());
+
+        // Signins load the hash without caching it
+        assertNotNull(userDetailsService.loadUserByUsername("member").getPassword());
+        assertNull(userDetailsService.loadUserWithoutPassword("member").getPassword());
+    }
+}
@@ -6,6 +6,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -13,32 +15,54 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.validation.Validator;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.spring.ims.IConstants.IConstants;
 import com.spring.ims.exception.EmailAlreadyExistsException;
+import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.exception.InvalidTokenException;
+import com.spring.ims.exception.ResourceNotFoundException;
+import com.spring.ims.exception.TooManyRequestsException;
 import com.spring.ims.exception.UserNameAlreadyExistsException;
 import com.spring.ims.models.ERole;
 import com.spring.ims.models.Role;
 import com.spring.ims.models.User;
 import com.spring.ims.payload.request.LoginRequest;
 import com.spring.ims.payload.request.SignupRequest;
-import com.spring.ims.repository.RoleRepository;
+import com.spring.ims.payload.response.BatchResponse;
 import com.spring.ims.repository.UserRepository;
 import com.spring.ims.security.jwt.JwtUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
 import com.spring.ims.security.services.AuthenticationService;
+import com.spring.ims.security.services.LoginThrottle;
+import com.spring.ims.security.services.PasswordHashingExecutor;
+import com.spring.ims.security.services.RoleRegistry;
+import com.spring.ims.security.services.TokenRevocationService;
 import com.spring.ims.security.services.UserDetailsImpl;
+import com.spring.ims.security.services.UserDetailsServiceImpl;
 
 class AuthenticationServiceTest {
 
@@ -55,14 +79,43 @@ class AuthenticationServiceTest {
 	private UserRepository userRepository;
 	
 	@Mock
-	private RoleRepository roleRepository;
+	private RoleRegistry roleRegistry;
 	
 	@Mock
 	private PasswordEncoder encoder;
+	
+	@Mock
+	private UserDetailsServiceImpl userDetailsService;
+	
+	@Mock
+	private PasswordHashingExecutor passwordHashingExecutor;
+	
+	@Mock
+	private TokenRevocationService tokenRevocationService;
+	
+	@Mock
+	private TransactionTemplate transactionTemplate;
+	
+	@Mock
+	private LoginThrottle loginThrottle;
+	
+	@Mock
+	private Validator validator;
 
 	@BeforeEach
 	public void setup() {
 		MockitoAnnotations.openMocks(this);
+		
+		// Runs hashing tasks on the calling thread
+		when(passwordHashingExecutor.execute(any())).thenAnswer(invocation -> ((Callable<?>) invocation.getArgument(0)).call());
+		when(passwordHashingExecutor.executeAll(any(), any())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0))
+				.stream().map(invocation.<Function<Object, Object>>getArgument(1)).collect(Collectors.toList()));
+		
+		// Runs transaction callbacks directly
+		Mockito.doAnswer(invocation -> {
+			invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
 	}
 
 	@Test
@@ -78,7 +131,8 @@ class AuthenticationServiceTest {
 		Mockito.when(authenticationManager.authenticate(Mockito.any(UsernamePasswordAuthenticationToken.class))).thenReturn(authentication);
 
 		// Mocking the JWT token generation response
-		Mockito.when(jwtUtils.generateJwtToken(Mockito.any(Authentication.class))).thenReturn("testjwttoken");
+		Mockito.when(jwtUtils.generateAccessToken(Mockito.any(UserDetailsImpl.class))).thenReturn("testjwttoken");
+		Mockito.when(jwtUtils.generateRefreshToken(Mockito.any(UserDetailsImpl.class))).thenReturn("testrefreshtoken");
 
 		Mockito.when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(1L, "user1", "email@test.com", "pass", simpleGrantedAuthority));
 
@@ -87,6 +141,7 @@ class AuthenticationServiceTest {
         myList.add("ROLE_USER");
 		Map<String, Object> expectedOutput = new HashMap<>();
         expectedOutput.put("jwt", "testjwttoken");
+        expectedOutput.put("refreshToken", "testrefreshtoken");
         expectedOutput.put("id", 1L);
         expectedOutput.put("name", "user1");
         expectedOutput.put("email", "email@test.com");
@@ -95,10 +150,26 @@ class AuthenticationServiceTest {
 		LoginRequest loginRequest = new LoginRequest("user1", "pass1");
 
         // Calling the method to be tested
-		Map<String, Object> actualOutput = authenticationService.authenticateUser(loginRequest);
+		Map<String, Object> actualOutput = authenticationService.authenticateUser(loginRequest, "10.0.0.1");
 
 		// Assert that the output matches the expected output
 		assertEquals(expectedOutput, actualOutput);
+		Mockito.verify(loginThrottle).acquire("user1", "10.0.0.1");
+	}
+	
+	@Test
+	void authenticateUserThrottledTest() {
+		
+		Mockito.doThrow(new TooManyRequestsException(IConstants.LOGIN_THROTTLED, 12))
+				.when(loginThrottle).acquire("user1", "10.0.0.1");
+		
+		TooManyRequestsException exception = assertThrows(TooManyRequestsException.class, () -> {
+			authenticationService.authenticateUser(new LoginRequest("user1", "pass1"), "10.0.0.1");
+		});
+		assertEquals(12, exception.getRetryAfterSeconds());
+		
+		// No password check for a throttled attempt
+		Mockito.verifyNoInteractions(authenticationManager, passwordHashingExecutor);
 	}
 	
 	@Test 
@@ -126,18 +197,20 @@ class AuthenticationServiceTest {
 		user.setRoles(userRoles);
 		
 		// Success case
-		// Mock the userRepository and roleRepository
-		when(userRepository.existsByUsername("testuser")).thenReturn(false);
-		when(userRepository.existsByEmail("test@gmail.com")).thenReturn(false);
-		when(roleRepository.findByName(ERole.ROLE_ADMIN)).thenReturn(Optional.of(adminRole));
-		when(roleRepository.findByName(ERole.ROLE_MODERATOR)).thenReturn(Optional.of(modRole));
-		when(roleRepository.findByName(ERole.ROLE_USER)).thenReturn(Optional.of(userRole));
+		// Mock the userRepository and roleRegistry
+		when(roleRegistry.get(ERole.ROLE_ADMIN)).thenReturn(adminRole);
+		when(roleRegistry.get(ERole.ROLE_MODERATOR)).thenReturn(modRole);
+		when(roleRegistry.get(ERole.ROLE_USER)).thenReturn(userRole);
 		when(userRepository.save(any(User.class))).thenReturn(user);
 		
 		// Calling the registerUser method
 		User savedUser = authenticationService.registerUser(signupRequest);
 		
 		assertEquals(user.getEmail(), savedUser.getEmail());
+		
+		// A single insert, no existence checks or role queries
+		Mockito.verify(userRepository).save(any(User.class));
+		Mockito.verifyNoMoreInteractions(userRepository);
         
         
 	}
@@ -147,6 +220,8 @@ class AuthenticationServiceTest {
     	
     	SignupRequest signupRequest = getSignupData();
 
+        // The insert hits the unique constraint on email
+        Mockito.when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("constraint"));
         Mockito.when(userRepository.existsByUsername(Mockito.anyString())).thenReturn(false);
         Mockito.when(userRepository.existsByEmail(Mockito.anyString())).thenReturn(true);
         
@@ -162,6 +237,8 @@ class AuthenticationServiceTest {
     	
         SignupRequest signupRequest = getSignupData();
 
+        // The insert hits the unique constraint on username
+        Mockito.when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("constraint"));
         Mockito.when(userRepository.existsByUsername(Mockito.anyString())).thenReturn(true);
         Mockito.when(userRepository.existsByEmail(Mockito.anyString())).thenReturn(false);
         
@@ -173,6 +250,169 @@ class AuthenticationServiceTest {
         
     }
     
+    @Test
+    public void updateUserRolesTest() {
+    	
+    	User user = getUserData();
+    	user.setId(1L);
+    	Role modRole = new Role(ERole.ROLE_MODERATOR);
+    	
+    	when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+    	when(roleRegistry.get(ERole.ROLE_MODERATOR)).thenReturn(modRole);
+    	when(userRepository.incrementTokenVersion(1L)).thenAnswer(invocation -> {
+    		user.setTokenVersion(user.getTokenVersion() + 1);
+    		return 1;
+    	});
+    	when(userRepository.findWithRolesById(1L)).thenReturn(Optional.of(user));
+    	
+    	User savedUser = authenticationService.updateUserRoles(1L, Collections.singleton("mod"));
+    	
+    	// Old tokens and cached details no longer apply, the version is incremented by the statement
+    	assertEquals(Collections.singleton(modRole), savedUser.getRoles());
+    	assertEquals(1L, savedUser.getTokenVersion());
+    	Mockito.verify(userRepository).incrementTokenVersion(1L);
+    	Mockito.verify(userRepository, Mockito.never()).save(user);
+    	Mockito.verify(userDetailsService).evictUser("testuser");
+    	
+    	// Unknown user
+    	when(userRepository.findById(2L)).thenReturn(Optional.empty());
+    	assertThrows(ResourceNotFoundException.class, () -> {
+    		authenticationService.updateUserRoles(2L, Collections.singleton("mod"));
+    	});
+    }
+    
+    @Test
+    public void refreshAccessTokenTest() {
+    	
+    	User user = getUserData();
+    	user.setId(1L);
+    	user.setRoles(Collections.singleton(new Role(ERole.ROLE_USER)));
+    	
+    	Claims claims = new DefaultClaims();
+    	claims.setId("refresh-id");
+    	claims.put(JwtUtils.CLAIM_USER_ID, 1);
+    	claims.put(JwtUtils.CLAIM_TOKEN_VERSION, 0);
+    	
+    	when(jwtUtils.getClaimsFromJwtToken("refresh")).thenReturn(claims);
+    	when(jwtUtils.isRefreshToken(claims)).thenReturn(true);
+    	when(userRepository.findWithRolesById(1L)).thenReturn(Optional.of(user));
+    	when(jwtUtils.generateAccessToken(any(UserDetailsImpl.class))).thenReturn("newjwttoken");
+    	
+    	// New access token, same refresh token, no password check
+    	Map<String, Object> output = authenticationService.refreshAccessToken("refresh");
+    	assertEquals("newjwttoken", output.get("jwt"));
+    	assertEquals("refresh", output.get("refreshToken"));
+    	Mockito.verifyNoInteractions(authenticationManager, encoder);
+    	
+    	// Revoked refresh token
+    	when(tokenRevocationService.isRevoked("refresh-id")).thenReturn(true);
+    	assertThrows(InvalidTokenException.class, () -> {
+    		authenticationService.refreshAccessToken("refresh");
+    	});
+    	
+    	// Token version changed since the token was issued
+    	when(tokenRevocationService.isRevoked("refresh-id")).thenReturn(false);
+    	user.setTokenVersion(1L);
+    	assertThrows(InvalidTokenException.class, () -> {
+    		authenticationService.refreshAccessToken("refresh");
+    	});
+    }
+    
+    @Test
+    public void signoutTest() {
+    	
+    	// Whole seconds, as JWT dates are stored
+    	Date expiresAt = new Date(System.currentTimeMillis() / 1000 * 1000 + 60000);
+    	Claims claims = new DefaultClaims();
+    	claims.setId("access-id");
+    	claims.setExpiration(expiresAt);
+    	when(jwtUtils.getClaimsFromJwtToken("access")).thenReturn(claims);
+    	
+    	// The invalid refresh token is ignored
+    	authenticationService.signout("access", "invalid");
+    	
+    	Mockito.verify(tokenRevocationService).revoke("access-id", expiresAt);
+    	Mockito.verifyNoMoreInteractions(tokenRevocationService);
+    }
+    
+    @Test
+    public void provisionUsersTest() {
+    	
+    	SignupRequest taken = getSignupData();
+    	SignupRequest newUser = getSignupData();
+    	newUser.setUsername("newuser");
+    	newUser.setEmail("new@gmail.com");
+    	SignupRequest duplicate = getSignupData();
+    	duplicate.setUsername("newuser");
+    	duplicate.setEmail("other@gmail.com");
+    	
+    	when(userRepository.findExistingUsernames(any())).thenReturn(Collections.singletonList("testuser"));
+    	when(userRepository.findExistingEmails(any())).thenReturn(Collections.emptyList());
+    	when(roleRegistry.get(ERole.ROLE_USER)).thenReturn(new Role(ERole.ROLE_USER));
+    	when(encoder.encode("testpassword")).thenReturn("hash");
+    	
+    	// Assigns ids the way the sequence generator would
+    	when(userRepository.saveAll(any())).thenAnswer(invocation -> {
+    		invocation.<List<User>>getArgument(0).forEach(user -> user.setId(7L));
+    		return invocation.getArgument(0);
+    	});
+    	
+    	BatchResponse response = authenticationService.provisionUsers(Arrays.asList(taken, newUser, duplicate));
+    	
+    	assertEquals(1, response.getCreated());
+    	assertEquals(2, response.getFailed());
+    	assertEquals(IConstants.USERNAME_ALREADY_EXISTS, response.getResults().get(0).getError());
+    	assertEquals(Long.valueOf(7L), response.getResults().get(1).getId());
+    	assertEquals(IConstants.USERNAME_ALREADY_EXISTS, response.getResults().get(2).getError());
+    	
+    	// Only the accepted user is hashed and inserted
+    	ArgumentCaptor<List<User>> captor = ArgumentCaptor.forClass(List.class);
+    	Mockito.verify(userRepository).saveAll(captor.capture());
+    	assertEquals(1, captor.getValue().size());
+    	assertEquals("hash", captor.getValue().get(0).getPassword());
+    	Mockito.verify(encoder, Mockito.times(1)).encode(any());
+    }
+    
+    @Test
+    public void provisionUsersConflictTest() {
+    	
+    	SignupRequest first = getSignupData();
+    	SignupRequest second = getSignupData();
+    	second.setUsername("newuser");
+    	second.setEmail("new@gmail.com");
+    	
+    	when(roleRegistry.get(ERole.ROLE_USER)).thenReturn(new Role(ERole.ROLE_USER));
+    	
+    	// A concurrent signup takes the first username after the lookup
+    	when(userRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException("constraint"));
+    	when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
+    		User user = invocation.getArgument(0);
+    		if ("testuser".equals(user.getUsername())) {
+    			throw new DataIntegrityViolationException("constraint");
+    		}
+    		user.setId(8L);
+    		return user;
+    	});
+    	when(userRepository.existsByUsername("testuser")).thenReturn(true);
+    	
+    	BatchResponse response = authenticationService.provisionUsers(Arrays.asList(first, second));
+    	
+    	assertEquals(1, response.getCreated());
+    	assertEquals(IConstants.USERNAME_ALREADY_EXISTS, response.getResults().get(0).getError());
+    	assertEquals(Long.valueOf(8L), response.getResults().get(1).getId());
+    }
+    
+    @Test
+    public void provisionUsersTooLargeTest() {
+    	
+    	List<SignupRequest> signupRequests = Collections.nCopies(IConstants.MAX_USER_BATCH + 1, getSignupData());
+    	
+    	Exception exception = assertThrows(InvalidInputException.class, () -> {
+    		authenticationService.provisionUsers(signupRequests);
+    	});
+    	assertEquals(IConstants.USER_BATCH_TOO_LARGE, exception.getMessage());
+    }
+    
     public SignupRequest getSignupData() {
     	
     	 SignupRequest signupRequest = new SignupRequest();
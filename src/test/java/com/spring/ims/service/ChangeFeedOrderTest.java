@@ -0,0 +1,89 @@
+package com.spring.ims.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import com.spring.ims.payload.response.ChangeFeedResponse;
+import com.spring.ims.services.IssueChangeService;
+
+/**
+ * Interleaves two writing transactions so that the entry with the lower id
+ * commits last, and checks that a poller following the feed sees both
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:changefeed;DB_CLOSE_DELAY=-1",
+        "spring.app.searchIndexPath=target/change-feed-index",
+        "spring.app.changeFeedSequenceMs=3600000"
+})
+@DirtiesContext
+public class ChangeFeedOrderTest {
+
+    @Autowired
+    private IssueChangeService issueChangeService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    public void lateCommitOfLowerIdIsNotSkippedTest() throws Exception {
+
+        issueChangeService.sequenceChanges();
+        long cursor = issueChangeService.getChanges(null, 100).getNextCursor();
+
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            first.setAutoCommit(false);
+            second.setAutoCommit(false);
+
+            // The first writer takes the lower id, the second commits first
+            long firstId = recordChange(first, 1L);
+            long secondId = recordChange(second, 2L);
+            assertTrue(firstId < secondId);
+            second.commit();
+
+            // Only the committed entry is sequenced and polled
+            assertEquals(1, issueChangeService.sequenceChanges());
+            ChangeFeedResponse page = issueChangeService.getChanges(cursor, 100);
+            assertEquals(1, page.getContent().size());
+            assertEquals(secondId, page.getContent().get(0).getChangeId());
+            cursor = page.getNextCursor();
+
+            // The lower id commits later and still comes after the cursor
+            first.commit();
+            assertEquals(1, issueChangeService.sequenceChanges());
+            page = issueChangeService.getChanges(cursor, 100);
+            assertEquals(1, page.getContent().size());
+            assertEquals(firstId, page.getContent().get(0).getChangeId());
+            assertTrue(page.getNextCursor() > cursor);
+        }
+    }
+
+    private long recordChange(Connection connection, Long issueId) throws Exception {
+
+        long id;
+        try (PreparedStatement statement = connection.prepareStatement("SELECT NEXT VALUE FOR issue_change_seq");
+                ResultSet result = statement.executeQuery()) {
+            result.next();
+            id = result.getLong(1);
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO issue_change"
+                + " (id, issue_id, change_type, changed_at) VALUES (?, ?, 'DELETED', CURRENT_TIMESTAMP)")) {
+            statement.setLong(1, id);
+            statement.setLong(2, issueId);
+            statement.executeUpdate();
+        }
+
+        return id;
+    }
+}
@@ -0,0 +1,129 @@
+package com.spring.ims.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.ims.enums.ChangeType;
+import com.spring.ims.models.Issue;
+import com.spring.ims.repository.IssueArchiveRepository;
+import com.spring.ims.repository.IssueRepository;
+import com.spring.ims.serviceImpl.IssueArchiveServiceImpl;
+import com.spring.ims.services.IssueChangeService;
+import com.spring.ims.services.IssueSearchService;
+import com.spring.ims.services.IssueStatsService;
+
+public class IssueArchiveServiceImplTest {
+
+    private static final List<String> TERMINAL_STATUSES = Arrays.asList("Closed", "Resolved");
+
+    @Mock
+    private IssueRepository issueRepository;
+
+    @Mock
+    private IssueArchiveRepository issueArchiveRepository;
+
+    @Mock
+    private IssueChangeService issueChangeService;
+
+    @Mock
+    private IssueSearchService issueSearchService;
+
+    @Mock
+    private IssueStatsService issueStatsService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private IssueArchiveServiceImpl issueArchiveService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(issueArchiveService, "terminalStatuses", TERMINAL_STATUSES);
+        ReflectionTestUtils.setField(issueArchiveService, "archiveAfterDays", 30L);
+        ReflectionTestUtils.setField(issueArchiveService, "chunkSize", 2);
+
+        // Runs each chunk directly
+        doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+    }
+
+    @Test
+    public void archiveIssuesInChunksTest() {
+
+        List<Long> first = Arrays.asList(1L, 2L);
+        List<Long> second = Arrays.asList(3L, 4L);
+        List<Long> last = Collections.singletonList(5L);
+
+        when(issueRepository.findArchivableIds(eq(TERMINAL_STATUSES), any(Date.class), any(Pageable.class)))
+                .thenReturn(first, second, last);
+        when(issueArchiveRepository.moveFromIssues(eq(first), eq(TERMINAL_STATUSES), any(Date.class), any(Date.class)))
+                .thenReturn(issues(1L, 2L));
+
+        // Issue 4 was reopened after it was selected and stays live
+        when(issueArchiveRepository.moveFromIssues(eq(second), eq(TERMINAL_STATUSES), any(Date.class), any(Date.class)))
+                .thenReturn(issues(3L));
+        when(issueArchiveRepository.moveFromIssues(eq(last), eq(TERMINAL_STATUSES), any(Date.class), any(Date.class)))
+                .thenReturn(issues(5L));
+
+        long archived = issueArchiveService.archiveIssues();
+
+        // A partly moved chunk does not end the run, a short selection does
+        assertEquals(4L, archived);
+        verify(issueRepository, times(3)).findArchivableIds(eq(TERMINAL_STATUSES), any(Date.class), any(Pageable.class));
+        verify(issueChangeService).recordChanges(first, ChangeType.ARCHIVED);
+        verify(issueChangeService).recordChanges(Collections.singletonList(3L), ChangeType.ARCHIVED);
+        verify(issueChangeService).recordChanges(last, ChangeType.ARCHIVED);
+        verify(issueSearchService).removeIssues(first);
+        verify(issueSearchService).removeIssues(Collections.singletonList(3L));
+        verify(issueStatsService, times(4)).issueRemoved(any(Issue.class));
+        verify(issueStatsService, never()).rebuild();
+    }
+
+    @Test
+    public void archiveWithoutDueIssuesTest() {
+
+        when(issueRepository.findArchivableIds(eq(TERMINAL_STATUSES), any(Date.class), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        assertEquals(0L, issueArchiveService.archiveIssues());
+        verify(issueArchiveRepository, never()).moveFromIssues(anyList(), anyList(), any(Date.class), any(Date.class));
+        verify(issueStatsService, never()).issueRemoved(any(Issue.class));
+    }
+
+    private List<Issue> issues(Long... ids) {
+
+        List<Issue> issues = new ArrayList<>();
+        for (Long id : ids) {
+            Issue issue = new Issue();
+            issue.setId(id);
+            issue.setStatus("Closed");
+            issues.add(issue);
+        }
+        return issues;
+    }
+}
@@ -0,0 +1,127 @@
+package com.spring.ims.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import com.spring.ims.dto.IssueViewDto;
+import com.spring.ims.enums.ChangeType;
+import com.spring.ims.enums.Severity;
+import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.models.IssueChange;
+import com.spring.ims.payload.response.ChangeFeedResponse;
+import com.spring.ims.repository.IssueChangeRepository;
+import com.spring.ims.repository.IssueRepository;
+import com.spring.ims.serviceImpl.IssueChangeServiceImpl;
+
+public class IssueChangeServiceImplTest {
+
+    @Mock
+    private IssueChangeRepository issueChangeRepository;
+
+    @Mock
+    private IssueRepository issueRepository;
+
+    @InjectMocks
+    private IssueChangeServiceImpl issueChangeService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void getChangesTest() {
+
+        List<IssueChange> changes = new ArrayList<>();
+        // Ids follow persist order, positions follow commit order
+        changes.add(new IssueChange(31L, 1L, ChangeType.CREATED, new Date(), 11L));
+        changes.add(new IssueChange(30L, 2L, ChangeType.DELETED, new Date(), 12L));
+        changes.add(new IssueChange(32L, 3L, ChangeType.UPDATED, new Date(), 13L));
+
+        // One row more than requested means another page is waiting
+        when(issueChangeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(10L, PageRequest.of(0, 3))).thenReturn(changes);
+        when(issueRepository.findViewsByIds(Arrays.asList(1L))).thenReturn(Arrays.asList(
+                new IssueViewDto(1L, "Test Issue", "Developer", "This is a test issue", "Open", Severity.LOW, 1L, "testUser", 0L)));
+
+        ChangeFeedResponse response = issueChangeService.getChanges(10L, 2);
+
+        assertTrue(response.isHasMore());
+        assertEquals(12L, response.getNextCursor());
+        assertEquals(2, response.getContent().size());
+        assertEquals(30L, response.getContent().get(1).getChangeId());
+        assertEquals(12L, response.getContent().get(1).getPosition());
+        assertEquals("Test Issue", response.getContent().get(0).getIssue().getTitle());
+
+        // Deletions are tombstones
+        assertEquals(ChangeType.DELETED, response.getContent().get(1).getChangeType());
+        assertNull(response.getContent().get(1).getIssue());
+    }
+
+    @Test
+    public void getChangesWithoutNewChangesTest() {
+
+        when(issueChangeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(eq(42L), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        // The cursor stays where the client left it
+        ChangeFeedResponse response = issueChangeService.getChanges(42L, null);
+
+        assertFalse(response.isHasMore());
+        assertEquals(42L, response.getNextCursor());
+        assertEquals(0, response.getContent().size());
+
+        Assertions.assertThrows(InvalidInputException.class, () -> {
+            issueChangeService.getChanges(0L, 0);
+        });
+    }
+
+    @Test
+    public void getChangesWithArchivedIssueTest() {
+
+        List<IssueChange> changes = new ArrayList<>();
+        changes.add(new IssueChange(21L, 5L, ChangeType.ARCHIVED, new Date(), 21L));
+
+        when(issueChangeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(eq(20L), any(Pageable.class))).thenReturn(changes);
+
+        ChangeFeedResponse response = issueChangeService.getChanges(20L, 10);
+
+        // Archived issues left the issue table, like deleted ones
+        assertEquals(1, response.getContent().size());
+        assertEquals(ChangeType.ARCHIVED, response.getContent().get(0).getChangeType());
+        assertNull(response.getContent().get(0).getIssue());
+    }
+
+    @Test
+    public void sequenceChangesTest() {
+
+        when(issueChangeRepository.sequencePending()).thenReturn(3);
+
+        assertEquals(3, issueChangeService.sequenceChanges());
+
+        // Positions are only taken while holding the feed lock
+        InOrder inOrder = inOrder(issueChangeRepository);
+        inOrder.verify(issueChangeRepository).lockFeed();
+        inOrder.verify(issueChangeRepository).sequencePending();
+    }
+}
@@ -0,0 +1,264 @@
+package com.spring.ims.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexNotFoundException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.spring.ims.dto.IssueViewDto;
+import com.spring.ims.enums.Severity;
+import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.models.Issue;
+import com.spring.ims.payload.response.SearchResponse;
+import com.spring.ims.repository.IssueRepository;
+import com.spring.ims.serviceImpl.IssueSearchServiceImpl;
+
+public class IssueSearchServiceImplTest {
+
+    @Mock
+    private IssueRepository issueRepository;
+
+    @InjectMocks
+    private IssueSearchServiceImpl issueSearchService;
+
+    @TempDir
+    Path indexDir;
+
+    private List<Issue> issues;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+
+        ReflectionTestUtils.setField(issueSearchService, "indexPath", indexDir.toString());
+        issueSearchService.open();
+
+        issues = new ArrayList<>();
+        issues.add(getIssue(1L, "Login page broken", "Users cannot sign in after the deploy"));
+        issues.add(getIssue(2L, "Slow dashboard", "Dashboard takes ten seconds, login is fine"));
+        issues.add(getIssue(3L, "Typo in footer", "Copyright year is wrong"));
+
+        // Resolves whatever ids the index returns
+        when(issueRepository.findViewsByIds(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            List<IssueViewDto> views = new ArrayList<>();
+            for (Issue issue : issues) {
+                if (ids.contains(issue.getId())) {
+                    views.add(IssueViewDto.from(issue));
+                }
+            }
+            return views;
+        });
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        issueSearchService.close();
+    }
+
+    @Test
+    public void searchRanksTitleMatchesFirstTest() {
+
+        issueSearchService.indexIssues(issues);
+
+        SearchResponse<IssueViewDto> result = issueSearchService.search("login", 0, 10);
+
+        // Title match ranks above description match
+        assertEquals(2L, result.getTotalHits());
+        assertEquals(1L, result.getContent().get(0).getId());
+        assertEquals(2L, result.getContent().get(1).getId());
+
+        // Second page of one result
+        result = issueSearchService.search("login", 1, 1);
+        assertEquals(1, result.getSize());
+        assertEquals(2L, result.getContent().get(0).getId());
+    }
+
+    @Test
+    public void updateAndRemoveTest() {
+
+        issueSearchService.indexIssues(issues);
+
+        // Updated text replaces the previous entry
+        Issue updated = getIssue(3L, "Footer shows wrong year", "Copyright year is wrong");
+        issues.set(2, updated);
+        issueSearchService.indexIssue(updated);
+        assertEquals(0L, issueSearchService.search("typo", 0, 10).getTotalHits());
+        assertEquals(1L, issueSearchService.search("footer", 0, 10).getTotalHits());
+
+        issueSearchService.removeIssue(3L);
+        assertEquals(0L, issueSearchService.search("footer", 0, 10).getTotalHits());
+    }
+
+    @Test
+    public void rebuildIndexTest() {
+
+        List<IssueViewDto> views = new ArrayList<>();
+        for (Issue issue : issues) {
+            views.add(IssueViewDto.from(issue));
+        }
+        when(issueRepository.streamAllViews()).thenReturn(views.stream());
+
+        // Entry of a deleted issue disappears on rebuild
+        issueSearchService.indexIssue(getIssue(4L, "Deleted issue", "Gone"));
+        assertEquals(3L, issueSearchService.rebuildIndex());
+        assertEquals(0L, issueSearchService.search("deleted", 0, 10).getTotalHits());
+        assertEquals(1L, issueSearchService.search("dashboard", 0, 10).getTotalHits());
+    }
+
+    @Test
+    public void writesDuringRebuildTest() throws Exception {
+
+        issueSearchService.indexIssues(issues);
+
+        // The rebuild reads the table before issue 1 is updated and issue 3 deleted
+        CountDownLatch streamStarted = new CountDownLatch(1);
+        CountDownLatch releaseStream = new CountDownLatch(1);
+        List<IssueViewDto> views = new ArrayList<>();
+        for (Issue issue : issues) {
+            views.add(IssueViewDto.from(issue));
+        }
+        when(issueRepository.streamAllViews()).thenAnswer(invocation -> {
+            streamStarted.countDown();
+            releaseStream.await(5, TimeUnit.SECONDS);
+            return views.stream();
+        });
+
+        CompletableFuture<Long> rebuild = CompletableFuture.supplyAsync(issueSearchService::rebuildIndex);
+        streamStarted.await(5, TimeUnit.SECONDS);
+
+        // Both writes commit while the rebuild runs
+        Issue updated = getIssue(1L, "Sign in page broken", "Users cannot sign in after the deploy");
+        issues.set(0, updated);
+        CompletableFuture<Void> writes = CompletableFuture.runAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                issueSearchService.indexIssue(updated);
+                issueSearchService.removeIssue(3L);
+                TransactionSynchronizationUtils.triggerBeforeCommit(false);
+                TransactionSynchronizationUtils.triggerAfterCommit();
+                TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+
+        // Searches keep seeing the old index, the writes wait for the rebuild
+        Thread.sleep(200);
+        assertFalse(writes.isDone());
+        assertEquals(1L, issueSearchService.search("typo", 0, 10).getTotalHits());
+
+        releaseStream.countDown();
+        assertEquals(3L, rebuild.get(5, TimeUnit.SECONDS));
+        writes.get(5, TimeUnit.SECONDS);
+
+        // Applied on top of the rebuilt index, one entry per issue
+        assertEquals(0L, issueSearchService.search("typo", 0, 10).getTotalHits());
+        assertEquals(0L, issueSearchService.search("login page", 0, 10).getTotalHits());
+        assertEquals(1L, issueSearchService.search("sign", 0, 10).getTotalHits());
+        assertEquals(1L, issueSearchService.search("dashboard", 0, 10).getTotalHits());
+    }
+
+    @Test
+    public void searchInvalidInputTest() {
+
+        Assertions.assertThrows(InvalidInputException.class, () -> {
+            issueSearchService.search(" ", 0, 10);
+        });
+        Assertions.assertThrows(InvalidInputException.class, () -> {
+            issueSearchService.search("login", -1, 10);
+        });
+        Assertions.assertThrows(InvalidInputException.class, () -> {
+            issueSearchService.search("login", 0, 0);
+        });
+    }
+
+    @Test
+    public void indexesOnlyAfterCommitTest() {
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            issueSearchService.indexIssues(issues);
+
+            // Not searchable while the transaction is open
+            assertEquals(0L, issueSearchService.search("login", 0, 10).getTotalHits());
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            assertEquals(2L, issueSearchService.search("login", 0, 10).getTotalHits());
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // A rolled back write never reaches the index
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            issueSearchService.removeIssue(1L);
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(2L, issueSearchService.search("login", 0, 10).getTotalHits());
+    }
+
+    @Test
+    public void commitIndexMakesChangesDurableTest() throws Exception {
+
+        // Searchable right away, but not yet committed
+        issueSearchService.indexIssues(issues);
+        assertEquals(2L, issueSearchService.search("login", 0, 10).getTotalHits());
+        assertEquals(0, committedDocs());
+
+        issueSearchService.commitIndex();
+        assertEquals(3, committedDocs());
+    }
+
+    private int committedDocs() throws Exception {
+        try (Directory directory = FSDirectory.open(indexDir);
+                DirectoryReader reader = DirectoryReader.open(directory)) {
+            return reader.numDocs();
+        }
+        catch (IndexNotFoundException e) {
+            return 0;
+        }
+    }
+
+    private Issue getIssue(Long id, String title, String description) {
+
+        Issue issue = new Issue();
+        issue.setId(id);
+        issue.setTitle(title);
+        issue.setDescription(description);
+        issue.setResponsible("Developer");
+        issue.setStatus("Open");
+        issue.setSeverity(Severity.LOW);
+        return issue;
+    }
+}
@@ -2,16 +2,27 @@ package com.spring.ims.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validator;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,39 +30,79 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.spring.ims.IConstants.IConstants;
 import com.spring.ims.dto.IssueDto;
+import com.spring.ims.dto.IssueFilterDto;
+import com.spring.ims.dto.IssueTransitionDto;
+import com.spring.ims.dto.IssueViewDto;
+import com.spring.ims.enums.ChangeType;
 import com.spring.ims.enums.Severity;
 import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.exception.PreconditionFailedException;
 import com.spring.ims.exception.ResourceNotFoundException;
 import com.spring.ims.models.ERole;
 import com.spring.ims.models.Issue;
 import com.spring.ims.models.Role;
 import com.spring.ims.models.User;
+import com.spring.ims.payload.response.BatchResponse;
+import com.spring.ims.payload.response.PageResponse;
+import com.spring.ims.repository.IssueArchiveRepository;
 import com.spring.ims.repository.IssueRepository;
 import com.spring.ims.repository.UserRepository;
 import com.spring.ims.security.services.UserDetailsImpl;
 import com.spring.ims.serviceImpl.IssueServiceImpl;
+import com.spring.ims.services.IssueChangeService;
+import com.spring.ims.services.IssueSearchService;
+import com.spring.ims.services.IssueStatsService;
 
 public class IssueServiceImplTest {
 
     @Mock
     private IssueRepository issueRepository;
 
+    @Mock
+    private IssueArchiveRepository issueArchiveRepository;
+
     @Mock
     private UserRepository userRepository;
 
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private IssueSearchService issueSearchService;
+
+    @Mock
+    private IssueStatsService issueStatsService;
+
+    @Mock
+    private IssueChangeService issueChangeService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private IssueServiceImpl issueService;
 
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+
+        // Runs transaction callbacks directly
+        doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
     }
 
     @Test
@@ -79,6 +130,55 @@ public class IssueServiceImplTest {
        
         Assertions.assertNotNull(issue);
         assertEquals("Test Issue", issue.getTitle());
+        verify(issueSearchService, times(1)).indexIssue(issue);
+        verify(issueChangeService, times(1)).recordChange(issue.getId(), ChangeType.CREATED);
+    }
+    
+    @Test
+    public void testAddIssues() throws Exception {
+    	
+    	Issue issue = getIssue();
+    	when(authentication.getPrincipal()).thenReturn(UserDetailsImpl.build(issue.getUser()));
+    	SecurityContextHolder.getContext().setAuthentication(authentication);
+    	when(userRepository.findByUsername(any(String.class))).thenReturn(Optional.of(issue.getUser()));
+    	when(validator.validate(any(Issue.class))).thenReturn(Collections.emptySet());
+    	
+    	// Assigns ids the way the sequence generator would
+    	long[] nextId = {100L};
+    	doAnswer(invocation -> {
+    		((Issue) invocation.getArgument(0)).setId(nextId[0]++);
+    		return null;
+    	}).when(entityManager).persist(any(Issue.class));
+    	
+    	IssueDto valid = new IssueDto();
+    	valid.setTitle("Disk full");
+    	valid.setDescription("Disk usage above 95%");
+    	valid.setResponsible("ops");
+    	valid.setStatus("Open");
+    	
+    	IssueDto invalid = new IssueDto();
+    	invalid.setTitle("No description");
+    	
+    	BatchResponse response = issueService.addIssues(Arrays.asList(valid, invalid, valid));
+    	
+    	// Owner is resolved once, invalid item does not fail the batch
+    	verify(userRepository, times(1)).findByUsername(any(String.class));
+    	verify(entityManager, times(2)).persist(any(Issue.class));
+    	assertEquals(2, response.getCreated());
+    	assertEquals(1, response.getFailed());
+    	assertEquals(100L, response.getResults().get(0).getId());
+    	assertEquals(IConstants.DESCRIPTION_NULL_OR_EMPTY, response.getResults().get(1).getError());
+    	assertEquals(101L, response.getResults().get(2).getId());
+    	verify(issueChangeService, times(1)).recordChanges(Arrays.asList(100L, 101L), ChangeType.CREATED);
+    }
+    
+    @Test
+    public void testAddIssuesWithEmptyBatch() {
+    	
+    	// Throws Exception 
+    	Assertions.assertThrows(InvalidInputException.class, () -> {
+    		issueService.addIssues(Collections.emptyList());
+    	});
     }
     
     @Test
@@ -102,17 +202,42 @@ public class IssueServiceImplTest {
         updatedIssue.setUser(issue.getUser());
         
         // Calling repositories methods
-        when(issueRepository.findById(any(Long.class))).thenReturn(Optional.of(issue));
+        when(issueRepository.findWithUserById(any(Long.class))).thenReturn(Optional.of(issue));
     
         when(issueRepository.save(any(Issue.class))).thenReturn(updatedIssue);
         
         // Calling the main method to test
-        Issue updatedIssueInfo = issueService.updateIssue(1L, issueDto);
+        Issue updatedIssueInfo = issueService.updateIssue(1L, issueDto, null);
 
         // Checking test result
         Assertions.assertNotNull(updatedIssueInfo);
         assertEquals(issueDto.getTitle(), updatedIssueInfo.getTitle());
+        verify(issueStatsService, times(1)).issueChanged(Severity.LOW, null, "Developer", updatedIssue);
+        verify(issueChangeService, times(1)).recordChange(1L, ChangeType.UPDATED);
     }
+    @Test
+    public void testUpdateIssueVersionMismatch() {
+    	
+        IssueDto issueDto = new IssueDto();
+        issueDto.setTitle("Updated Test Issue");
+        issueDto.setDescription("Updated description");
+        issueDto.setResponsible("Updated Responsible");
+        issueDto.setStatus("Closed");
+        
+        Issue issue = getIssue();
+        issue.setVersion(3L);
+        when(issueRepository.findWithUserById(any(Long.class))).thenReturn(Optional.of(issue));
+        
+        // Client holds older versions, nothing is saved
+        Assertions.assertThrows(PreconditionFailedException.class, () -> {
+        	issueService.updateIssue(1L, issueDto, new HashSet<>(Arrays.asList(1L, 2L)));
+        });
+        Assertions.assertThrows(PreconditionFailedException.class, () -> {
+        	issueService.updateIssue(1L, issueDto, Collections.emptySet());
+        });
+        verify(issueRepository, times(0)).save(any(Issue.class));
+    }
+    
     @Test
     public void testAddIssueWithNullIssueDto() {
         // Given
@@ -229,7 +354,7 @@ public class IssueServiceImplTest {
          issues.add(issue2);
          
          // Calling repository method
-         when(issueRepository.findAll()).thenReturn(issues);
+         when(issueRepository.findAllWithUser()).thenReturn(issues);
          
           // Calling main method
          List<Issue> issuesList = issueService.getAllIssues();
@@ -237,21 +362,149 @@ public class IssueServiceImplTest {
     	
     }
     
+    @Test
+    public void getIssuesKeysetPageTest() {
+    	
+    	List<IssueViewDto> issues = new ArrayList<>();
+    	for(long id = 11; id <= 13; id++) {
+    		Issue issue = getIssue();
+    		issue.setId(id);
+    		issues.add(IssueViewDto.from(issue));
+    	}
+    	
+    	IssueFilterDto filter = new IssueFilterDto();
+    	filter.setSeverity("critical");
+    	
+    	// Repository returns one row more than the requested page size
+    	when(issueRepository.findViewPageAfter(eq(10L), isNull(), eq(Severity.CRITICAL), isNull(), isNull(), any(Pageable.class)))
+    		.thenReturn(issues);
+    	
+    	PageResponse<IssueViewDto> page = issueService.getIssues(filter, 10L, 2);
+    	assertEquals(2, page.getContent().size());
+    	assertEquals(12L, page.getNextCursor());
+    	
+    	// Last page has no next cursor
+    	page = issueService.getIssues(filter, 10L, 3);
+    	assertEquals(3, page.getSize());
+    	Assertions.assertNull(page.getNextCursor());
+    }
+    
+    @Test
+    public void getIssuesInvalidInputTest() {
+    	
+    	// Page size out of range
+    	Assertions.assertThrows(InvalidInputException.class, () -> {
+    		issueService.getIssues(new IssueFilterDto(), null, 0);
+    	});
+    	
+    	// Unknown severity
+    	IssueFilterDto filter = new IssueFilterDto();
+    	filter.setSeverity("urgent");
+    	Assertions.assertThrows(InvalidInputException.class, () -> {
+    		issueService.getIssues(filter, null, 10);
+    	});
+    }
+    
+    @Test
+    public void exportIssuesTest() throws Exception {
+    	
+    	Issue issue1 = getIssue();
+    	Issue issue2 = getIssue();
+    	issue2.setId(2L);
+    	
+    	when(issueRepository.streamAllWithUser()).thenReturn(Stream.of(issue1, issue2));
+    	
+    	ByteArrayOutputStream out = new ByteArrayOutputStream();
+    	long count = issueService.exportIssues(out);
+    	
+    	// One JSON object per line, without the owner's password or roles
+    	String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+    	assertEquals(2L, count);
+    	assertEquals(2, lines.length);
+    	assertEquals("{\"id\":2,\"title\":\"Test Issue\",\"responsible\":\"Developer\",\"description\":\"This is a test issue\","
+    			+ "\"status\":null,\"severity\":\"LOW\",\"userId\":1,\"username\":\"testUser\"}", lines[1]);
+    }
+    
+    @Test
+    public void transitionIssuesTest() {
+    	
+    	IssueTransitionDto byIds = new IssueTransitionDto();
+    	byIds.setIds(Arrays.asList(1L, 2L, 3L));
+    	byIds.setStatus("Closed");
+    	
+    	// The previous groups are read under lock before the update
+    	List<Issue> before = Arrays.asList(getIssue(), getIssue(), getIssue());
+    	when(issueRepository.lockGroupingsByIds(byIds.getIds())).thenReturn(before);
+    	when(issueRepository.transitionByIds(byIds.getIds(), "Closed", null)).thenReturn(3);
+    	assertEquals(3, issueService.transitionIssues(byIds));
+    	verify(issueStatsService, times(1)).issuesTransitioned(before, "Closed", null);
+    	
+    	IssueFilterDto filter = new IssueFilterDto();
+    	filter.setStatus("Open");
+    	IssueTransitionDto byFilter = new IssueTransitionDto();
+    	byFilter.setFilter(filter);
+    	byFilter.setSeverity("Critical");
+    	
+    	// Matching issues are locked and updated chunk by chunk, every change is logged
+    	List<Issue> matching = new ArrayList<>();
+    	for(long id = 1; id <= IConstants.BULK_CHUNK_SIZE + 2; id++) {
+    		Issue issue = getIssue();
+    		issue.setId(id);
+    		matching.add(issue);
+    	}
+    	List<Issue> firstChunk = matching.subList(0, IConstants.BULK_CHUNK_SIZE);
+    	List<Issue> lastChunk = matching.subList(IConstants.BULK_CHUNK_SIZE, matching.size());
+    	when(issueRepository.lockPageByFilter(0L, "Open", null, null, null, IConstants.BULK_CHUNK_SIZE))
+    			.thenReturn(firstChunk);
+    	when(issueRepository.lockPageByFilter((long) IConstants.BULK_CHUNK_SIZE, "Open", null, null, null, IConstants.BULK_CHUNK_SIZE))
+    			.thenReturn(lastChunk);
+    	assertEquals(IConstants.BULK_CHUNK_SIZE + 2, issueService.transitionIssues(byFilter));
+    	
+    	List<Long> lastIds = Arrays.asList(IConstants.BULK_CHUNK_SIZE + 1L, IConstants.BULK_CHUNK_SIZE + 2L);
+    	verify(issueRepository, times(1)).transitionByIds(lastIds, null, Severity.CRITICAL);
+    	verify(transactionTemplate, times(3)).execute(any());
+    	verify(issueChangeService, times(1)).recordChanges(byIds.getIds(), ChangeType.UPDATED);
+    	verify(issueChangeService, times(1)).recordChanges(lastIds, ChangeType.UPDATED);
+    	verify(issueStatsService, times(1)).issuesTransitioned(firstChunk, null, Severity.CRITICAL);
+    	verify(issueStatsService, times(1)).issuesTransitioned(lastChunk, null, Severity.CRITICAL);
+    	verify(issueStatsService, never()).rebuild();
+    }
+    
+    @Test
+    public void transitionIssuesInvalidInputTest() {
+    	
+    	// Nothing to set
+    	IssueTransitionDto noTarget = new IssueTransitionDto();
+    	noTarget.setIds(Arrays.asList(1L));
+    	Assertions.assertThrows(InvalidInputException.class, () -> {
+    		issueService.transitionIssues(noTarget);
+    	});
+    	
+    	// Neither ids nor filter, which would update every issue
+    	IssueTransitionDto noScope = new IssueTransitionDto();
+    	noScope.setStatus("Closed");
+    	noScope.setFilter(new IssueFilterDto());
+    	Assertions.assertThrows(InvalidInputException.class, () -> {
+    		issueService.transitionIssues(noScope);
+    	});
+    }
+    
     @Test
     public void getIssueByIdTest() throws ResourceNotFoundException{
     	
     	
-        Issue issue = getIssue();
+        IssueViewDto issue = IssueViewDto.from(getIssue());
 
         // Success case
-        when(issueRepository.findById(any(Long.class))).thenReturn(Optional.of(issue));
+        when(issueRepository.findViewById(any(Long.class))).thenReturn(Optional.of(issue));
         
-        Issue resultIssue = issueService.getIssueById(1L);
+        IssueViewDto resultIssue = issueService.getIssueById(1L);
         assertEquals(1L, resultIssue.getId());
+        assertEquals("testUser", resultIssue.getUsername());
         
         
         // Failure case
-        when(issueRepository.findById(any(Long.class))).thenReturn(Optional.empty());
+        when(issueRepository.findViewById(any(Long.class))).thenReturn(Optional.empty());
         
         // Throws exception on fail
         Assertions.assertThrows(ResourceNotFoundException.class, () -> {
@@ -263,15 +516,90 @@ public class IssueServiceImplTest {
     @Test
     public void deleteIssueByIdTest() throws ResourceNotFoundException {
         Long issueId = 1L;
+        Issue issue = getIssue();
 
-        // Mocking the repository call
-        doNothing().when(issueRepository).deleteById(issueId);
+        // The delete statement returns the deleted row
+        when(issueRepository.deleteByIdReturning(issueId)).thenReturn(Optional.of(issue));
 
         // Calling the method to be tested
         issueService.deleteIssueById(issueId);
 
-        // Verifying that the deleteById method of the repository was called exactly once with the specified issueId
-        verify(issueRepository, times(1)).deleteById(issueId);
+        // Verifying that the issue was deleted exactly once and removed from index and statistics
+        verify(issueRepository, times(1)).deleteByIdReturning(issueId);
+        verify(issueChangeService, times(1)).recordChange(issueId, ChangeType.DELETED);
+        verify(issueSearchService, times(1)).removeIssue(issueId);
+        verify(issueStatsService, times(1)).issueRemoved(issue);
+        
+        // Unknown issue
+        when(issueRepository.deleteByIdReturning(issueId)).thenReturn(Optional.empty());
+        when(issueArchiveRepository.deleteArchivedById(issueId)).thenReturn(0);
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> {
+        	issueService.deleteIssueById(issueId);
+        });
+    }
+    
+    @Test
+    public void deleteArchivedIssueByIdTest() throws ResourceNotFoundException {
+        Long issueId = 1L;
+
+        // Not live, but archived
+        when(issueRepository.deleteByIdReturning(issueId)).thenReturn(Optional.empty());
+        when(issueArchiveRepository.deleteArchivedById(issueId)).thenReturn(1);
+
+        issueService.deleteIssueById(issueId);
+
+        // Deleted from the archive with a tombstone, index and statistics were left on archiving
+        verify(issueArchiveRepository, times(1)).deleteArchivedById(issueId);
+        verify(issueChangeService, times(1)).recordChange(issueId, ChangeType.DELETED);
+        verify(issueSearchService, never()).removeIssue(issueId);
+        verify(issueStatsService, never()).issueRemoved(any());
+    }
+    
+    @Test
+    public void deleteIssuesByFilterTest() throws InvalidInputException {
+    	
+    	List<Long> fullIds = new ArrayList<>();
+    	List<Issue> fullChunk = new ArrayList<>();
+    	for(long id = 1; id <= IConstants.BULK_CHUNK_SIZE; id++) {
+    		Issue issue = getIssue();
+    		issue.setId(id);
+    		fullIds.add(id);
+    		fullChunk.add(issue);
+    	}
+    	Issue last = getIssue();
+    	last.setId(1000L);
+    	List<Long> lastIds = Collections.singletonList(1000L);
+    	
+    	// A full chunk is followed by another one, a short chunk ends the run
+    	when(issueRepository.lockPageByFilter(0L, "Closed", null, null, null, IConstants.BULK_CHUNK_SIZE))
+    			.thenReturn(fullChunk);
+    	when(issueRepository.lockPageByFilter((long) IConstants.BULK_CHUNK_SIZE, "Closed", null, null, null, IConstants.BULK_CHUNK_SIZE))
+    			.thenReturn(Collections.singletonList(last));
+    	when(issueRepository.deleteByIdsReturning(fullIds)).thenReturn(fullChunk);
+    	when(issueRepository.deleteByIdsReturning(lastIds)).thenReturn(Collections.singletonList(last));
+    	
+    	IssueFilterDto filter = new IssueFilterDto();
+    	filter.setStatus("Closed");
+    	
+    	assertEquals(IConstants.BULK_CHUNK_SIZE + 1, issueService.deleteIssues(filter));
+    	
+    	verify(issueChangeService, times(1)).recordChanges(fullIds, ChangeType.DELETED);
+    	verify(issueChangeService, times(1)).recordChanges(lastIds, ChangeType.DELETED);
+    	verify(issueSearchService, times(1)).removeIssues(fullIds);
+    	verify(issueSearchService, times(1)).removeIssues(lastIds);
+    	verify(issueStatsService, times(IConstants.BULK_CHUNK_SIZE + 1)).issueRemoved(any(Issue.class));
+    }
+    
+    @Test
+    public void deleteIssuesWithoutFilterTest() {
+    	
+    	// An empty filter would delete every issue
+    	Assertions.assertThrows(InvalidInputException.class, () -> {
+    		issueService.deleteIssues(new IssueFilterDto());
+    	});
+    	Assertions.assertThrows(InvalidInputException.class, () -> {
+    		issueService.deleteIssues(null);
+    	});
     }
 
     @Test
@@ -310,4 +638,20 @@ public class IssueServiceImplTest {
 
         return issue;
     }
+
+    @Test
+    public void getArchivedIssueByIdTest() throws ResourceNotFoundException {
+
+        Issue issue = getIssue();
+        issue.setStatus("Closed");
+        IssueViewDto archived = IssueViewDto.from(issue);
+
+        // Not live any more, found in the archive
+        when(issueRepository.findViewById(1L)).thenReturn(Optional.empty());
+        when(issueArchiveRepository.findViewById(1L)).thenReturn(Optional.of(archived));
+
+        IssueViewDto resultIssue = issueService.getIssueById(1L);
+        assertEquals(1L, resultIssue.getId());
+        assertEquals("Closed", resultIssue.getStatus());
+    }
 }
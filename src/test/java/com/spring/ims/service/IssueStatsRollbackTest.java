@@ -0,0 +1,205 @@
+package com.spring.ims.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.ims.dto.IssueCountDto;
+import com.spring.ims.dto.IssueDto;
+import com.spring.ims.dto.IssueFilterDto;
+import com.spring.ims.dto.IssueTransitionDto;
+import com.spring.ims.models.Issue;
+import com.spring.ims.models.User;
+import com.spring.ims.repository.IssueRepository;
+import com.spring.ims.repository.UserRepository;
+import com.spring.ims.security.services.UserDetailsImpl;
+import com.spring.ims.services.IssueSearchService;
+import com.spring.ims.services.IssueService;
+import com.spring.ims.services.IssueStatsService;
+
+/**
+ * Fails or rolls back issue writes and checks that the statistics and the
+ * search index only follow committed writes
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statsrollback;DB_CLOSE_DELAY=-1",
+        "spring.app.searchIndexPath=target/stats-rollback-index"
+})
+@DirtiesContext
+public class IssueStatsRollbackTest {
+
+    @Autowired
+    private IssueService issueService;
+
+    @Autowired
+    private IssueStatsService issueStatsService;
+
+    @Autowired
+    private IssueSearchService issueSearchService;
+
+    @Autowired
+    private IssueRepository issueRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Issue issue;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        issueRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = userRepository.save(new User("owner", "owner@test.com", "hash"));
+        UserDetailsImpl principal = UserDetailsImpl.build(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        issue = issueService.addIssue(issueDto("First", "Open"));
+        issueStatsService.rebuild();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void failedInsertLeavesCountsTest() {
+
+        String before = counts();
+
+        // Too long for the column, rejected when the insert is flushed at commit
+        IssueDto tooLong = issueDto(String.join("", Collections.nCopies(60, "x")), "Open");
+        assertThrows(RuntimeException.class, () -> issueService.addIssue(tooLong));
+
+        assertEquals(before, counts());
+        assertEquals(1L, issueRepository.count());
+    }
+
+    @Test
+    public void versionConflictLeavesCountsTest() throws Exception {
+
+        String before = counts();
+
+        // Another writer bumps the version between the read and the flush
+        assertThrows(RuntimeException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            try {
+                issueService.updateIssue(issue.getId(), issueDto("First", "Closed"), null);
+                bumpVersion(issue.getId());
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+
+        assertEquals(before, counts());
+
+        // A committed update moves the issue to its new group
+        issueService.updateIssue(issue.getId(), issueDto("First", "Closed"), null);
+        List<IssueCountDto> after = issueStatsService.getCounts(null, null, null);
+        assertEquals(1, after.size());
+        assertEquals("Closed", after.get(0).getStatus());
+    }
+
+    @Test
+    public void rolledBackDeleteLeavesIndexAndCountsTest() {
+
+        String before = counts();
+
+        // The delete statement runs, then the surrounding transaction rolls back
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                issueService.deleteIssueById(issue.getId());
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertEquals(before, counts());
+        assertEquals(1L, issueSearchService.search("first", 0, 10).getSize());
+
+        // A committed delete leaves both
+        issueService.deleteIssueById(issue.getId());
+        assertEquals("", counts());
+        assertEquals(0L, issueSearchService.search("first", 0, 10).getSize());
+    }
+
+    @Test
+    public void bulkTransitionsMoveCountsTest() throws Exception {
+
+        Issue second = issueService.addIssue(issueDto("Second", "Open"));
+
+        // Filter transition, the counters follow without a rebuild
+        IssueFilterDto filter = new IssueFilterDto();
+        filter.setStatus("Open");
+        IssueTransitionDto byFilter = new IssueTransitionDto();
+        byFilter.setFilter(filter);
+        byFilter.setStatus("Closed");
+        assertEquals(2, issueService.transitionIssues(byFilter));
+        assertEquals("LOW/Closed/Developer=2;", counts());
+
+        // Transition by ids, the missing id is ignored
+        IssueTransitionDto byIds = new IssueTransitionDto();
+        byIds.setIds(Arrays.asList(second.getId(), second.getId() + 1000));
+        byIds.setSeverity("Major");
+        issueService.transitionIssues(byIds);
+        assertEquals(2, issueStatsService.getCounts(null, null, null).size());
+        assertEquals(1L, issueStatsService.getCounts("MAJOR", "Closed", "Developer").get(0).getCount());
+    }
+
+    private String counts() {
+
+        StringBuilder counts = new StringBuilder();
+        for (IssueCountDto count : issueStatsService.getCounts(null, null, null)) {
+            counts.append(count.getSeverity()).append('/').append(count.getStatus()).append('/')
+                    .append(count.getResponsible()).append('=').append(count.getCount()).append(';');
+        }
+        return counts.toString();
+    }
+
+    private void bumpVersion(Long issueId) throws Exception {
+
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("UPDATE issue SET version = version + 1 WHERE id = ?")) {
+            connection.setAutoCommit(true);
+            statement.setLong(1, issueId);
+            statement.executeUpdate();
+        }
+    }
+
+    private IssueDto issueDto(String title, String status) {
+
+        IssueDto issueDto = new IssueDto();
+        issueDto.setTitle(title);
+        issueDto.setDescription("Description");
+        issueDto.setResponsible("Developer");
+        issueDto.setStatus(status);
+        return issueDto;
+    }
+}
@@ -0,0 +1,187 @@
+package com.spring.ims.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.spring.ims.dto.IssueCountDto;
+import com.spring.ims.enums.Severity;
+import com.spring.ims.exception.InvalidInputException;
+import com.spring.ims.models.Issue;
+import com.spring.ims.repository.IssueRepository;
+import com.spring.ims.serviceImpl.IssueStatsServiceImpl;
+
+public class IssueStatsServiceImplTest {
+
+    @Mock
+    private IssueRepository issueRepository;
+
+    @InjectMocks
+    private IssueStatsServiceImpl issueStatsService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        List<IssueCountDto> rows = new ArrayList<>();
+        rows.add(new IssueCountDto(Severity.CRITICAL, "Open", "Developer", 3));
+        rows.add(new IssueCountDto(Severity.CRITICAL, "Open", "Tester", 1));
+        rows.add(new IssueCountDto(Severity.LOW, "Closed", "Developer", 5));
+
+        // Startup load
+        when(issueRepository.countBySeverityStatusResponsible()).thenReturn(rows);
+        issueStatsService.rebuild();
+    }
+
+    @Test
+    public void getCountsTest() {
+
+        assertEquals(3, issueStatsService.getCounts(null, null, null).size());
+        assertEquals(2, issueStatsService.getCounts("critical", "Open", null).size());
+        assertEquals(8L, total(issueStatsService.getCounts(null, null, "Developer")));
+
+        Assertions.assertThrows(InvalidInputException.class, () -> {
+            issueStatsService.getCounts("urgent", null, null);
+        });
+    }
+
+    @Test
+    public void incrementalUpdatesTest() {
+
+        Issue issue = getIssue(Severity.CRITICAL, "Open", "Tester");
+
+        // New issue
+        issueStatsService.issueAdded(issue);
+        assertEquals(2L, total(issueStatsService.getCounts("CRITICAL", "Open", "Tester")));
+
+        // Closed and downgraded
+        issue.setStatus("Closed");
+        issue.setSeverity(Severity.LOW);
+        issueStatsService.issueChanged(Severity.CRITICAL, "Open", "Tester", issue);
+        assertEquals(1L, total(issueStatsService.getCounts("CRITICAL", "Open", "Tester")));
+        assertEquals(1L, total(issueStatsService.getCounts("LOW", "Closed", "Tester")));
+
+        // Deleted, the empty group is not reported
+        issueStatsService.issueRemoved(issue);
+        assertEquals(0, issueStatsService.getCounts("LOW", "Closed", "Tester").size());
+    }
+
+    @Test
+    public void issuesTransitionedTest() {
+
+        List<Issue> before = Arrays.asList(getIssue(Severity.CRITICAL, "Open", "Developer"),
+                getIssue(Severity.CRITICAL, "Open", "Tester"), getIssue(Severity.LOW, "Closed", "Developer"));
+
+        // Every issue is closed, the one already closed stays in its group
+        issueStatsService.issuesTransitioned(before, "Closed", null);
+        assertEquals(2L, total(issueStatsService.getCounts("CRITICAL", "Open", "Developer")));
+        assertEquals(0, issueStatsService.getCounts("CRITICAL", "Open", "Tester").size());
+        assertEquals(1L, total(issueStatsService.getCounts("CRITICAL", "Closed", "Developer")));
+        assertEquals(1L, total(issueStatsService.getCounts("CRITICAL", "Closed", "Tester")));
+        assertEquals(5L, total(issueStatsService.getCounts("LOW", "Closed", "Developer")));
+    }
+
+    @Test
+    public void rebuildWaitsForCommittingWriteTest() throws Exception {
+
+        // A write reaches its commit and is already in the table the rebuild reads
+        when(issueRepository.countBySeverityStatusResponsible())
+                .thenReturn(Collections.singletonList(new IssueCountDto(Severity.MAJOR, "Open", "Tester", 1)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            issueStatsService.issueAdded(getIssue(Severity.MAJOR, "Open", "Tester"));
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+
+            // The rebuild waits until the write has been applied
+            CompletableFuture<Void> rebuild = CompletableFuture.runAsync(issueStatsService::rebuild);
+            Thread.sleep(200);
+            assertFalse(rebuild.isDone());
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            rebuild.get(5, TimeUnit.SECONDS);
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Counted once, by the rebuild
+        assertEquals(1L, total(issueStatsService.getCounts("MAJOR", "Open", "Tester")));
+    }
+
+    @Test
+    public void writeCommittingDuringRebuildIsKeptTest() throws Exception {
+
+        // The rebuild query runs until released and does not see the write
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        when(issueRepository.countBySeverityStatusResponsible()).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await(5, TimeUnit.SECONDS);
+            return Collections.singletonList(new IssueCountDto(Severity.MAJOR, "Open", "Tester", 1));
+        });
+
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(issueStatsService::rebuild);
+        queryStarted.await(5, TimeUnit.SECONDS);
+
+        // The write commits while the query runs
+        CompletableFuture<Void> write = CompletableFuture.runAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                issueStatsService.issueAdded(getIssue(Severity.MAJOR, "Open", "Tester"));
+                TransactionSynchronizationUtils.triggerBeforeCommit(false);
+                TransactionSynchronizationUtils.triggerAfterCommit();
+                TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+            finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+        Thread.sleep(200);
+        assertFalse(write.isDone());
+
+        releaseQuery.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+        write.get(5, TimeUnit.SECONDS);
+
+        // Applied to the new table instead of being lost with the old one
+        assertEquals(2L, total(issueStatsService.getCounts("MAJOR", "Open", "Tester")));
+    }
+
+    private long total(List<IssueCountDto> counts) {
+
+        long total = 0;
+        for (IssueCountDto count : counts) {
+            total += count.getCount();
+        }
+        return total;
+    }
+
+    private Issue getIssue(Severity severity, String status, String responsible) {
+
+        Issue issue = new Issue();
+        issue.setSeverity(severity);
+        issue.setStatus(status);
+        issue.setResponsible(responsible);
+        return issue;
+    }
+}
@@ -0,0 +1,64 @@
+package com.spring.ims.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Records the SQL Hibernate prepares, so tests can ask H2 for the plan of the
+ * statement a repository method actually runs. Registered through
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ */
+public class QueryPlanInspector implements StatementInspector {
+
+    private static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql);
+        return sql;
+    }
+
+    public static void reset() {
+        statements.clear();
+    }
+
+    /**
+     * The last recorded statement
+     */
+    public static String lastStatement() {
+        synchronized (statements) {
+            if (statements.isEmpty()) {
+                throw new IllegalStateException("No statement recorded");
+            }
+            return statements.get(statements.size() - 1);
+        }
+    }
+
+    /**
+     * H2's plan for the last recorded statement. Every parameter is bound as a
+     * string, which H2 converts to the compared column's type, so the plan is
+     * the one the real values would get.
+     */
+    public static String explainLast(DataSource dataSource) {
+        String sql = lastStatement();
+
+        int parameters = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                parameters++;
+            }
+        }
+        Object[] arguments = new Object[parameters];
+        for (int i = 0; i < parameters; i++) {
+            arguments[i] = "1";
+        }
+
+        return new JdbcTemplate(dataSource).queryForObject("EXPLAIN " + sql, String.class, arguments);
+    }
+}
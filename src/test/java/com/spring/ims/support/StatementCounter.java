@@ -0,0 +1,39 @@
+package com.spring.ims.support;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Counts the JDBC statements Hibernate prepares, so tests can put an upper
+ * bound on the statements of an operation and fail on N+1 regressions.
+ */
+public class StatementCounter {
+
+    private final Statistics statistics;
+
+    public StatementCounter(EntityManagerFactory entityManagerFactory) {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    public long getCount() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Fails if more than {@code max} statements ran since the last reset, then resets
+     */
+    public void assertAtMost(long max, String operation) {
+        long count = getCount();
+        reset();
+        assertTrue(count <= max, operation + " ran " + count + " statements, at most " + max + " expected");
+    }
+}